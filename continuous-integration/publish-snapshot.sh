@@ -9,6 +9,7 @@ if [ "$TRAVIS_REPO_SLUG" == "amplify-education/hiccup" ] && \
   echo -e "Publishing maven snapshot...\n"
 
   mvn clean source:jar javadoc:jar deploy --settings="continuous-integration/settings.xml" -DskipTests=true -Dinvoker.skip=true
+  mvn -f processor/pom.xml clean source:jar javadoc:jar deploy --settings="continuous-integration/settings.xml" -DskipTests=true -Dinvoker.skip=true
 
   echo -e "Published maven snapshot"
 fi
\ No newline at end of file
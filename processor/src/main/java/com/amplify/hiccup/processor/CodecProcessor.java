@@ -0,0 +1,240 @@
+package com.amplify.hiccup.processor;
+
+import com.amplify.hiccup.shared.Codecs;
+import com.amplify.hiccup.shared.GenerateCodec;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@link com.amplify.hiccup.shared.ModelCodec} for every class annotated with
+ * {@link GenerateCodec}, reading and writing its fields directly so no reflection or JSON is
+ * needed at runtime.
+ *
+ * <p>The processor is shipped apart from the hiccup library and registered as a service, so it
+ * runs for any project that has hiccup-processor on its compile classpath, and it is left out of
+ * apps.</p>
+ */
+public class CodecProcessor extends AbstractProcessor {
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GenerateCodec.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateCodec can only be applied to classes");
+                continue;
+            }
+            TypeElement model = (TypeElement) element;
+            List<Field> fields = findFields(model);
+            if (fields != null && hasNoArgConstructor(model)) {
+                write(model, fields);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the fields of the model and then of its superclasses, in the order of
+     * {@link com.amplify.hiccup.shared.ColumnPlan}.
+     */
+    private List<Field> findFields(TypeElement model) {
+        List<Field> fields = new ArrayList<Field>();
+        boolean valid = true;
+        PackageElement modelPackage = processingEnv.getElementUtils().getPackageOf(model);
+        for (TypeElement type = model; type != null; type = superclassOf(type)) {
+            boolean samePackage = modelPackage.equals(processingEnv.getElementUtils().getPackageOf(type));
+            for (VariableElement variable : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = variable.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.PRIVATE)) {
+                    error(type == model ? variable : model,
+                            "Fields of @GenerateCodec models cannot be private: " + variable.getSimpleName());
+                    valid = false;
+                    continue;
+                }
+                if (!samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+                    error(model, "Inherited fields of @GenerateCodec models must be public or declared in the "
+                            + "model's package: " + variable.getSimpleName());
+                    valid = false;
+                    continue;
+                }
+                Kind kind = Kind.of(variable.asType(), processingEnv.getTypeUtils().asElement(variable.asType()));
+                if (kind == null) {
+                    error(type == model ? variable : model,
+                            "Field type cannot be mapped to a column: " + variable.asType());
+                    valid = false;
+                    continue;
+                }
+                fields.add(new Field(variable.getSimpleName().toString(), variable.asType(), kind));
+            }
+        }
+        return valid ? fields : null;
+    }
+
+    /**
+     * @return the superclass of {@code type}, or null if it is {@link Object}.
+     */
+    private static TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement model) {
+        if (model.getModifiers().contains(Modifier.ABSTRACT)
+                || (model.getNestingKind().isNested() && !model.getModifiers().contains(Modifier.STATIC))) {
+            error(model, "@GenerateCodec models must be concrete top-level or static nested classes");
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(model, "@GenerateCodec models need a non-private no-arg constructor");
+        return false;
+    }
+
+    private void write(TypeElement model, List<Field> fields) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(model).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(model).toString();
+        String codecName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + Codecs.SUFFIX;
+        String source = new CodecSource(packageName, codecName, model.getQualifiedName().toString(), fields).toString();
+        try {
+            String qualifiedCodecName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedCodecName, model);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(model, "Could not write codec: " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    enum Kind {
+        LONG("getAsLong", "cursor.getLong(%s)"),
+        INT("getAsInteger", "cursor.getInt(%s)"),
+        SHORT("getAsShort", "cursor.getShort(%s)"),
+        BYTE("getAsByte", "(byte) cursor.getInt(%s)"),
+        BOOLEAN("getAsBoolean", "cursor.getLong(%s) != 0"),
+        FLOAT("getAsFloat", "cursor.getFloat(%s)"),
+        DOUBLE("getAsDouble", "cursor.getDouble(%s)"),
+        STRING("getAsString", "cursor.getString(%s)"),
+        ENUM("getAsString", "cursor.getString(%s)"),
+        BLOB("getAsByteArray", "cursor.getBlob(%s)");
+
+        final String valuesGetter;
+        final String cursorGetter;
+
+        Kind(String valuesGetter, String cursorGetter) {
+            this.valuesGetter = valuesGetter;
+            this.cursorGetter = cursorGetter;
+        }
+
+        static Kind of(TypeMirror type, Element element) {
+            switch (type.getKind()) {
+                case LONG:
+                    return LONG;
+                case INT:
+                    return INT;
+                case SHORT:
+                    return SHORT;
+                case BYTE:
+                    return BYTE;
+                case BOOLEAN:
+                    return BOOLEAN;
+                case FLOAT:
+                    return FLOAT;
+                case DOUBLE:
+                    return DOUBLE;
+                case ARRAY:
+                    return type.toString().equals("byte[]") ? BLOB : null;
+                case DECLARED:
+                    if (element != null && element.getKind() == ElementKind.ENUM) {
+                        return ENUM;
+                    }
+                    return ofBoxed(type.toString());
+                default:
+                    return null;
+            }
+        }
+
+        private static Kind ofBoxed(String typeName) {
+            if (typeName.equals("java.lang.Long")) {
+                return LONG;
+            } else if (typeName.equals("java.lang.Integer")) {
+                return INT;
+            } else if (typeName.equals("java.lang.Short")) {
+                return SHORT;
+            } else if (typeName.equals("java.lang.Byte")) {
+                return BYTE;
+            } else if (typeName.equals("java.lang.Boolean")) {
+                return BOOLEAN;
+            } else if (typeName.equals("java.lang.Float")) {
+                return FLOAT;
+            } else if (typeName.equals("java.lang.Double")) {
+                return DOUBLE;
+            } else if (typeName.equals("java.lang.String")) {
+                return STRING;
+            }
+            return null;
+        }
+    }
+
+    static class Field {
+        final String name;
+        final String typeName;
+        final Kind kind;
+        final boolean primitive;
+
+        Field(String name, TypeMirror type, Kind kind) {
+            this.name = name;
+            this.typeName = type.toString();
+            this.kind = kind;
+            this.primitive = type.getKind().isPrimitive();
+        }
+    }
+}
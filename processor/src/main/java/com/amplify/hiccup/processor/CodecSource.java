@@ -0,0 +1,163 @@
+package com.amplify.hiccup.processor;
+
+import java.util.List;
+
+/**
+ * Java source of a generated {@link com.amplify.hiccup.shared.ModelCodec}.
+ */
+class CodecSource {
+
+    private final String packageName;
+    private final String codecName;
+    private final String modelName;
+    private final List<CodecProcessor.Field> fields;
+
+    private final StringBuilder source = new StringBuilder();
+
+    CodecSource(String packageName, String codecName, String modelName, List<CodecProcessor.Field> fields) {
+        this.packageName = packageName;
+        this.codecName = codecName;
+        this.modelName = modelName;
+        this.fields = fields;
+    }
+
+    @Override
+    public String toString() {
+        source.setLength(0);
+        if (!packageName.isEmpty()) {
+            line("package " + packageName + ";");
+            line("");
+        }
+        line("import android.content.ContentValues;");
+        line("import android.database.Cursor;");
+        line("");
+        line("import com.amplify.hiccup.shared.Codecs;");
+        line("import com.amplify.hiccup.shared.ModelCodec;");
+        line("");
+        line("/** Generated by " + CodecProcessor.class.getName() + ", do not edit. */");
+        line("public final class " + codecName + " implements ModelCodec<" + modelName + "> {");
+        line("");
+        appendColumnNames();
+        appendWriteRow();
+        appendToValues();
+        appendFromValues();
+        appendFromCursor();
+        line("}");
+        return source.toString();
+    }
+
+    private void appendColumnNames() {
+        StringBuilder names = new StringBuilder();
+        for (CodecProcessor.Field field : fields) {
+            names.append(names.length() == 0 ? "" : ", ").append('"').append(field.name).append('"');
+        }
+        line("    private static final String[] COLUMN_NAMES = new String[]{" + names + "};");
+        line("");
+        line("    @Override");
+        line("    public String[] getColumnNames() {");
+        line("        return COLUMN_NAMES.clone();");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public int[] indexesIn(Cursor cursor) {");
+        line("        return Codecs.indexesIn(cursor, COLUMN_NAMES);");
+        line("    }");
+        line("");
+    }
+
+    private void appendWriteRow() {
+        line("    @Override");
+        line("    public void writeRow(" + modelName + " model, Object[] row, int offset) {");
+        for (int i = 0; i < fields.size(); i++) {
+            line("        row[offset + " + i + "] = " + columnValue(fields.get(i)) + ";");
+        }
+        line("    }");
+        line("");
+    }
+
+    private void appendToValues() {
+        line("    @Override");
+        line("    public ContentValues toValues(" + modelName + " model) {");
+        line("        ContentValues contentValues = new ContentValues(" + fields.size() + ");");
+        for (CodecProcessor.Field field : fields) {
+            line("        Codecs.put(contentValues, \"" + field.name + "\", " + columnValue(field) + ");");
+        }
+        line("        return contentValues;");
+        line("    }");
+        line("");
+    }
+
+    private void appendFromValues() {
+        line("    @Override");
+        line("    public " + modelName + " fromValues(ContentValues contentValues) {");
+        line("        " + modelName + " model = new " + modelName + "();");
+        for (CodecProcessor.Field field : fields) {
+            String key = "\"" + field.name + "\"";
+            String value = "contentValues." + field.kind.valuesGetter + "(" + key + ")";
+            line("        if (contentValues.get(" + key + ") != null) {");
+            line("            model." + field.name + " = " + fromStored(field, value) + ";");
+            if (!field.primitive) {
+                line("        } else if (contentValues.containsKey(" + key + ")) {");
+                line("            model." + field.name + " = null;");
+            }
+            line("        }");
+        }
+        line("        return model;");
+        line("    }");
+        line("");
+    }
+
+    private void appendFromCursor() {
+        line("    @Override");
+        line("    public " + modelName + " fromCursor(Cursor cursor, int[] indexes) {");
+        line("        " + modelName + " model = new " + modelName + "();");
+        for (int i = 0; i < fields.size(); i++) {
+            CodecProcessor.Field field = fields.get(i);
+            String index = "indexes[" + i + "]";
+            line("        if (" + index + " != -1 && !cursor.isNull(" + index + ")) {");
+            line("            model." + field.name + " = " + fromStored(field, String.format(field.kind.cursorGetter, index)) + ";");
+            line("        }");
+        }
+        line("        return model;");
+        line("    }");
+    }
+
+    /**
+     * The cursor friendly value of a field, as in {@link com.amplify.hiccup.shared.ColumnPlan}:
+     * Long, Double, String or byte[].
+     */
+    private static String columnValue(CodecProcessor.Field field) {
+        String value = "model." + field.name;
+        switch (field.kind) {
+            case LONG:
+            case INT:
+            case SHORT:
+            case BYTE:
+                return field.primitive ? "(long) " + value : nullSafe(value, value + ".longValue()");
+            case BOOLEAN:
+                return field.primitive ? "(" + value + " ? 1L : 0L)" : nullSafe(value, "(" + value + " ? 1L : 0L)");
+            case FLOAT:
+            case DOUBLE:
+                return field.primitive ? "(double) " + value : nullSafe(value, value + ".doubleValue()");
+            case ENUM:
+                return nullSafe(value, value + ".name()");
+            default:
+                return value;
+        }
+    }
+
+    private static String fromStored(CodecProcessor.Field field, String value) {
+        if (field.kind == CodecProcessor.Kind.ENUM) {
+            return field.typeName + ".valueOf(" + value + ")";
+        }
+        return value;
+    }
+
+    private static String nullSafe(String value, String expression) {
+        return value + " == null ? null : (Object) " + expression;
+    }
+
+    private void line(String line) {
+        source.append(line).append('\n');
+    }
+}
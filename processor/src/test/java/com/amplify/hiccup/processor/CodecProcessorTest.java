@@ -0,0 +1,296 @@
+package com.amplify.hiccup.processor;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import com.amplify.hiccup.shared.ColumnPlan;
+import com.amplify.hiccup.shared.Codecs;
+import com.amplify.hiccup.shared.ModelCodec;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class CodecProcessorTest {
+
+    private File workDir;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @Before
+    public void setUp() throws IOException {
+        workDir = File.createTempFile("codec-processor", "");
+        workDir.delete();
+        workDir.mkdirs();
+        diagnostics = new DiagnosticCollector<JavaFileObject>();
+    }
+
+    @After
+    public void tearDown() {
+        delete(workDir);
+    }
+
+    @Test
+    public void generateCodecForAnnotatedModel() throws IOException {
+        boolean compiled = compile("com/example/Post.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Post {\n"
+                + "    public enum Status { DRAFT }\n"
+                + "    long id; Integer count; boolean published; Double rating; String title; Status status; byte[] blob;\n"
+                + "    static int ignoredConstant; transient String ignoredCache;\n"
+                + "}\n");
+
+        assertThat(compiled).isTrue();
+        assertThat(new File(workDir, "classes/com/example/Post_HiccupCodec.class")).exists();
+        assertThat(new File(workDir, "generated/com/example/Post_HiccupCodec.java")).exists();
+    }
+
+    @Test
+    public void nameCodecOfNestedModelAfterItsBinaryName() throws IOException {
+        boolean compiled = compile("com/example/Outer.java",
+                "package com.example;\n"
+                + "public class Outer {\n"
+                + "    @com.amplify.hiccup.shared.GenerateCodec\n"
+                + "    public static class Inner { String name; }\n"
+                + "}\n");
+
+        assertThat(compiled).isTrue();
+        assertThat(new File(workDir, "classes/com/example/Outer$Inner_HiccupCodec.class")).exists();
+    }
+
+    @Test
+    public void roundTripModelThroughGeneratedCodec() throws Exception {
+        boolean compiled = compile("com/example/Post.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Post extends Entity {\n"
+                + "    public enum Status { DRAFT, PUBLISHED }\n"
+                + "    int count; Integer votes; boolean published; Double rating; String title; Status status; byte[] blob;\n"
+                + "}\n"
+                + "class Entity { long id; public String etag; }\n");
+        assertThat(compiled).isTrue();
+        Class<?> modelClass = load("com.example.Post");
+        Object model = modelClass.newInstance();
+        set(model, "id", 7L);
+        set(model, "etag", "v2");
+        set(model, "count", 3);
+        set(model, "published", true);
+        set(model, "rating", 4.5);
+        set(model, "title", "Hello");
+        set(model, "status", enumConstant(field(model, "status").getType(), "PUBLISHED"));
+        set(model, "blob", new byte[]{1, 2});
+
+        @SuppressWarnings("unchecked")
+        ModelCodec<Object> codec = (ModelCodec<Object>) Codecs.of(modelClass);
+        Object fromValues = codec.fromValues(codec.toValues(model));
+        MatrixCursor cursor = new MatrixCursor(codec.getColumnNames());
+        Object[] row = new Object[codec.getColumnNames().length];
+        codec.writeRow(model, row, 0);
+        cursor.addRow(row);
+        cursor.moveToFirst();
+        Object fromCursor = codec.fromCursor(cursor, codec.indexesIn(cursor));
+
+        assertThat(codec.getColumnNames()).containsExactly(ColumnPlan.of(modelClass).getColumnNames());
+        for (Object decoded : Arrays.asList(fromValues, fromCursor)) {
+            assertThat(get(decoded, "id")).isEqualTo(7L);
+            assertThat(get(decoded, "etag")).isEqualTo("v2");
+            assertThat(get(decoded, "count")).isEqualTo(3);
+            assertThat(get(decoded, "votes")).isNull();
+            assertThat(get(decoded, "published")).isEqualTo(true);
+            assertThat(get(decoded, "rating")).isEqualTo(4.5);
+            assertThat(get(decoded, "title")).isEqualTo("Hello");
+            assertThat(get(decoded, "status").toString()).isEqualTo("PUBLISHED");
+            assertThat((byte[]) get(decoded, "blob")).isEqualTo(new byte[]{1, 2});
+        }
+    }
+
+    @Test
+    public void writeSameValuesAsColumnPlan() throws Exception {
+        boolean compiled = compile("com/example/Comment.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Comment extends Entity { String text; Boolean flagged; }\n"
+                + "class Entity { long id; }\n");
+        assertThat(compiled).isTrue();
+        Class<?> modelClass = load("com.example.Comment");
+        Object model = modelClass.newInstance();
+        set(model, "id", 5L);
+        set(model, "text", "Nice");
+        set(model, "flagged", false);
+
+        @SuppressWarnings("unchecked")
+        ModelCodec<Object> codec = (ModelCodec<Object>) Codecs.of(modelClass);
+        Object[] codecRow = new Object[3];
+        Object[] planRow = new Object[3];
+        codec.writeRow(model, codecRow, 0);
+        ColumnPlan.of(modelClass).writeRow(model, planRow, 0);
+        ContentValues codecValues = codec.toValues(model);
+
+        assertThat(codecRow).containsExactly(planRow);
+        assertThat(codecValues).isEqualTo(ColumnPlan.of(modelClass).toValues(model));
+    }
+
+    @Test
+    public void rejectNonPublicFieldsInheritedFromOtherPackages() throws IOException {
+        boolean compiled = compile(
+                "com/example/base/Entity.java",
+                "package com.example.base;\n"
+                + "public class Entity { protected long id; }\n",
+                "com/example/Tag.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Tag extends com.example.base.Entity { String name; }\n");
+
+        assertThat(compiled).isFalse();
+        assertThat(errorMessages()).contains(
+                "Inherited fields of @GenerateCodec models must be public or declared in the model's package: id");
+    }
+
+    @Test
+    public void rejectPrivateFields() throws IOException {
+        boolean compiled = compile("com/example/Secret.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Secret { private String value; }\n");
+
+        assertThat(compiled).isFalse();
+        assertThat(errorMessages()).contains("Fields of @GenerateCodec models cannot be private");
+    }
+
+    @Test
+    public void rejectUnsupportedFieldTypes() throws IOException {
+        boolean compiled = compile("com/example/Nested.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Nested { java.util.List<String> tags; }\n");
+
+        assertThat(compiled).isFalse();
+        assertThat(errorMessages()).contains("Field type cannot be mapped to a column: java.util.List<java.lang.String>");
+    }
+
+    @Test
+    public void rejectModelsWithoutNoArgConstructor() throws IOException {
+        boolean compiled = compile("com/example/Immutable.java",
+                "package com.example;\n"
+                + "@com.amplify.hiccup.shared.GenerateCodec\n"
+                + "public class Immutable { String name; Immutable(String name) { this.name = name; } }\n");
+
+        assertThat(compiled).isFalse();
+        assertThat(errorMessages()).contains("@GenerateCodec models need a non-private no-arg constructor");
+    }
+
+    /**
+     * Compiles pairs of source paths and sources with the processor.
+     */
+    private boolean compile(String... pathsAndSources) throws IOException {
+        File classes = new File(workDir, "classes");
+        File generated = new File(workDir, "generated");
+        classes.mkdirs();
+        generated.mkdirs();
+        List<File> sourceFiles = new ArrayList<File>();
+        for (int i = 0; i < pathsAndSources.length; i += 2) {
+            File sourceFile = new File(workDir, "src/" + pathsAndSources[i]);
+            sourceFile.getParentFile().mkdirs();
+            Writer writer = new FileWriter(sourceFile);
+            try {
+                writer.write(pathsAndSources[i + 1]);
+            } finally {
+                writer.close();
+            }
+            sourceFiles.add(sourceFile);
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            List<String> options = Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", classes.getPath(),
+                    "-s", generated.getPath());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sourceFiles));
+            task.setProcessors(Arrays.asList(new CodecProcessor()));
+            return task.call();
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    /**
+     * Loads a compiled class, with android and hiccup classes shared with the test.
+     */
+    private Class<?> load(String className) throws Exception {
+        URL classes = new File(workDir, "classes").toURI().toURL();
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classes}, getClass().getClassLoader());
+        return Class.forName(className, true, classLoader);
+    }
+
+    private String errorMessages() {
+        StringBuilder messages = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                messages.append(diagnostic.getMessage(null)).append('\n');
+            }
+        }
+        return messages.toString();
+    }
+
+    private static void set(Object model, String name, Object value) throws Exception {
+        field(model, name).set(model, value);
+    }
+
+    private static Object get(Object model, String name) throws Exception {
+        return field(model, name).get(model);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(Class<?> enumClass, String name) {
+        return Enum.valueOf((Class) enumClass, name);
+    }
+
+    private static Field field(Object model, String name) throws NoSuchFieldException {
+        for (Class<?> type = model.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // declared by a superclass
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
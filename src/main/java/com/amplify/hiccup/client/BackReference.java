@@ -0,0 +1,26 @@
+package com.amplify.hiccup.client;
+
+/**
+ * Fills a value of a {@link BatchRequest} operation with the id of the row created by an earlier
+ * POST in the same batch, eg, a comment's {@code post_id}. The id is parsed from the uri the
+ * earlier POST returned, or is the count it returned.
+ */
+public final class BackReference {
+
+    final String key;
+    final int operationIndex;
+
+    private BackReference(String key, int operationIndex) {
+        this.key = key;
+        this.operationIndex = operationIndex;
+    }
+
+    /**
+     * @param key the value to fill.
+     * @param operationIndex the index of the earlier operation in the batch, ie, the batch's
+     *     {@link BatchRequest#size()} before it was added.
+     */
+    public static BackReference of(String key, int operationIndex) {
+        return new BackReference(key, operationIndex);
+    }
+}
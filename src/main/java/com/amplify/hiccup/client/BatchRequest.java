@@ -4,66 +4,201 @@ import android.content.*;
 import android.net.Uri;
 import android.os.RemoteException;
 
+import com.amplify.hiccup.shared.StreamedBody;
+
 import java.util.ArrayList;
+import java.util.List;
 
 public class BatchRequest {
 
+    public static final int DEFAULT_MAX_OPERATIONS_PER_CHUNK = 500;
+    public static final long DEFAULT_MAX_BYTES_PER_CHUNK = 256 * 1024;
+
+    private static final int OPERATION_OVERHEAD_BYTES = 64;
+    private static final BackReference[] NO_REFERENCES = new BackReference[0];
+
     private final Context context;
 
     private String authority;
-    private ArrayList<ContentProviderOperation> operations;
+    private ArrayList<Entry> entries;
+    private int maxOperationsPerChunk;
+    private long maxBytesPerChunk;
+    private int yieldEvery;
 
     BatchRequest(Context context) {
         this.context = context;
-        this.operations = new ArrayList<ContentProviderOperation>();
+        this.entries = new ArrayList<Entry>();
+        this.maxOperationsPerChunk = DEFAULT_MAX_OPERATIONS_PER_CHUNK;
+        this.maxBytesPerChunk = DEFAULT_MAX_BYTES_PER_CHUNK;
+    }
+
+    /**
+     * Splits the batch into several {@code applyBatch} calls so that none exceeds
+     * {@code maxOperations} operations or roughly {@code maxBytes} of values, keeping each call
+     * well below the binder transaction limit. An operation larger than {@code maxBytes} is
+     * applied on its own, and operations tied by {@link BackReference}s are always applied in the
+     * same chunk, even if it grows past the limits.
+     *
+     * <p>Each chunk is applied atomically by providers that apply batches in a transaction, but the
+     * batch as a whole is not: chunks applied before a failing one stay applied.</p>
+     *
+     * @return {@link BatchRequest} for fluent interface.
+     */
+    public BatchRequest chunkBy(int maxOperations, long maxBytes) {
+        if (maxOperations < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Chunks must allow at least one operation and byte");
+        }
+        this.maxOperationsPerChunk = maxOperations;
+        this.maxBytesPerChunk = maxBytes;
+        return this;
+    }
+
+    /**
+     * Allows the provider to yield its transaction to other threads every {@code operations} operations
+     * within a chunk, see {@link ContentProviderOperation#isYieldAllowed()}. Chunks always release
+     * the provider between each other. Hiccup providers only yield within chunks through controllers
+     * that implement {@link com.amplify.hiccup.service.YieldingController}.
+     *
+     * @return {@link BatchRequest} for fluent interface.
+     */
+    public BatchRequest allowYieldEvery(int operations) {
+        if (operations < 1) {
+            throw new IllegalArgumentException("Yield interval must be positive");
+        }
+        this.yieldEvery = operations;
+        return this;
     }
 
     public BatchRequest post(Uri uri, ContentValues contentValues) {
+        return post(uri, contentValues, NO_REFERENCES);
+    }
+
+    /**
+     * Adds a POST whose values are completed with the ids created by earlier POSTs of the batch,
+     * so parents and their children are created in a single round trip:
+     *
+     * <pre>
+     * int post = batch.size();
+     * batch.post(postsUri, postValues)
+     *      .post(commentsUri, commentValues, BackReference.of("post_id", post));
+     * </pre>
+     *
+     * @throws IllegalArgumentException if a reference is not to an earlier operation of the batch.
+     */
+    public BatchRequest post(Uri uri, ContentValues contentValues, BackReference... backReferences) {
         assertAndSetCommonAuthority(uri);
-        ContentProviderOperation operation = ContentProviderOperation
-                .newInsert(uri)
-                .withValues(contentValues)
-                .build();
-        operations.add(operation);
+        add(Verb.POST, uri, contentValues, backReferences);
         return this;
     }
 
     public BatchRequest put(Uri uri, ContentValues contentValues) {
+        return put(uri, contentValues, NO_REFERENCES);
+    }
+
+    /**
+     * @see #post(Uri, ContentValues, BackReference...)
+     */
+    public BatchRequest put(Uri uri, ContentValues contentValues, BackReference... backReferences) {
         assertAndSetCommonAuthority(uri);
-        ContentProviderOperation operation = ContentProviderOperation
-                .newUpdate(uri)
-                .withValues(contentValues)
-                .build();
-        operations.add(operation);
+        add(Verb.PUT, uri, contentValues, backReferences);
         return this;
     }
 
     public BatchRequest delete(Uri uri) {
         assertAndSetCommonAuthority(uri);
-        ContentProviderOperation operation = ContentProviderOperation
-                .newDelete(uri)
-                .build();
-        operations.add(operation);
+        add(Verb.DELETE, uri, null, NO_REFERENCES);
         return this;
     }
 
-    public void submit() {
-        if (operations.size() < 1) {
+    /**
+     * Applies the operations in as many chunks as needed, in the order they were added.
+     *
+     * @throws BatchFailedException if a chunk fails, with the results of the chunks applied before it.
+     */
+    public BatchResult submit() {
+        if (entries.size() < 1) {
             throw new IllegalStateException("Cannot submit an empty batch");
         }
 
         ContentResolver resolver = context.getContentResolver();
+        BatchResult result = new BatchResult();
         try {
-            resolver.applyBatch(authority, operations);
-        } catch (RemoteException e) {
-            throw new BatchFailedException(e);
-        } catch (OperationApplicationException e) {
-            throw new BatchFailedException(e);
+            for (ArrayList<ContentProviderOperation> chunk : chunks()) {
+                try {
+                    result.addChunk(resolver.applyBatch(authority, chunk), chunk.size());
+                } catch (RemoteException e) {
+                    throw new BatchFailedException(e, result);
+                } catch (OperationApplicationException e) {
+                    throw new BatchFailedException(e, result);
+                }
+            }
+        } finally {
+            HiccupClient.GETS.invalidate(authority);
         }
+        return result;
     }
 
     public int size() {
-        return operations.size();
+        return entries.size();
+    }
+
+    /**
+     * Builds the operations anew, so every submission is built from the entries alone.
+     */
+    List<ArrayList<ContentProviderOperation>> chunks() {
+        int[] firstReferencedFrom = firstReferencedFromEachIndex();
+        List<ArrayList<ContentProviderOperation>> chunks = new ArrayList<ArrayList<ContentProviderOperation>>();
+        ArrayList<ContentProviderOperation> chunk = new ArrayList<ContentProviderOperation>();
+        int chunkStart = 0;
+        long chunkBytes = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            boolean full = chunk.size() >= maxOperationsPerChunk || chunkBytes + entry.sizeBytes > maxBytesPerChunk;
+            if (full && !chunk.isEmpty() && firstReferencedFrom[i] >= i) {
+                chunks.add(chunk);
+                chunk = new ArrayList<ContentProviderOperation>();
+                chunkStart = i;
+                chunkBytes = 0;
+            }
+            boolean yieldAllowed = yieldEvery > 0 && chunk.size() > 0 && chunk.size() % yieldEvery == 0;
+            ContentProviderOperation.Builder builder = entry.newBuilder();
+            for (BackReference backReference : entry.backReferences) {
+                builder.withValueBackReference(backReference.key, backReference.operationIndex - chunkStart);
+            }
+            chunk.add(builder.withYieldAllowed(yieldAllowed).build());
+            chunkBytes += entry.sizeBytes;
+        }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    /**
+     * Returns, for each index, the earliest operation referenced by it or any later operation, so a
+     * chunk may only start at indexes where that is the index itself.
+     */
+    private int[] firstReferencedFromEachIndex() {
+        int[] firstReferenced = new int[entries.size()];
+        int first = entries.size();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            for (BackReference backReference : entries.get(i).backReferences) {
+                first = Math.min(first, backReference.operationIndex);
+            }
+            firstReferenced[i] = Math.min(first, i);
+        }
+        return firstReferenced;
+    }
+
+    private void add(Verb verb, Uri uri, ContentValues contentValues, BackReference[] backReferences) {
+        for (BackReference backReference : backReferences) {
+            if (backReference.operationIndex < 0 || backReference.operationIndex >= entries.size()) {
+                throw new IllegalArgumentException("Back reference must be to an earlier operation ("
+                        + backReference.operationIndex + ")");
+            }
+        }
+        long sizeBytes = OPERATION_OVERHEAD_BYTES + uri.toString().length() * 2
+                + StreamedBody.sizeOfValues(contentValues);
+        entries.add(new Entry(verb, uri, contentValues == null ? null : new ContentValues(contentValues),
+                sizeBytes, backReferences));
     }
 
     private void assertAndSetCommonAuthority(Uri uri) {
@@ -76,8 +211,51 @@ public class BatchRequest {
     }
 
     public static class BatchFailedException extends RuntimeException {
-        BatchFailedException(Throwable throwable) {
+        private final BatchResult appliedResult;
+
+        BatchFailedException(Throwable throwable, BatchResult appliedResult) {
             super(throwable);
+            this.appliedResult = appliedResult;
+        }
+
+        /**
+         * Returns the results of the chunks that were applied before the failure.
+         */
+        public BatchResult getAppliedResult() {
+            return appliedResult;
+        }
+    }
+
+    private enum Verb {
+        POST,
+        PUT,
+        DELETE
+    }
+
+    private static class Entry {
+        final Verb verb;
+        final Uri uri;
+        final ContentValues contentValues;
+        final long sizeBytes;
+        final BackReference[] backReferences;
+
+        Entry(Verb verb, Uri uri, ContentValues contentValues, long sizeBytes, BackReference[] backReferences) {
+            this.verb = verb;
+            this.uri = uri;
+            this.contentValues = contentValues;
+            this.sizeBytes = sizeBytes;
+            this.backReferences = backReferences;
+        }
+
+        ContentProviderOperation.Builder newBuilder() {
+            switch (verb) {
+                case POST:
+                    return ContentProviderOperation.newInsert(uri).withValues(contentValues);
+                case PUT:
+                    return ContentProviderOperation.newUpdate(uri).withValues(contentValues);
+                default:
+                    return ContentProviderOperation.newDelete(uri);
+            }
         }
     }
 }
@@ -0,0 +1,106 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentProviderResult;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of a submitted {@link BatchRequest}, in the order its operations were added, gathered
+ * across all the chunks it was applied in.
+ */
+public final class BatchResult {
+
+    private final List<ContentProviderResult> results = new ArrayList<ContentProviderResult>();
+
+    private int chunkCount;
+
+    BatchResult() {
+    }
+
+    void addChunk(ContentProviderResult[] chunkResults, int operationCount) {
+        for (int i = 0; i < operationCount; i++) {
+            results.add(chunkResults != null && i < chunkResults.length ? chunkResults[i] : null);
+        }
+        chunkCount++;
+    }
+
+    /**
+     * Returns the number of operations applied.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of {@code applyBatch} calls the batch was split into.
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Returns the result of the operation at {@code index}, or null if the provider returned none.
+     */
+    public ContentProviderResult get(int index) {
+        return results.get(index);
+    }
+
+    /**
+     * Returns the uri created by the POST at {@code index}.
+     *
+     * @throws IllegalStateException if the operation did not return a uri.
+     */
+    public Uri getUri(int index) {
+        ContentProviderResult result = results.get(index);
+        if (result == null || result.uri == null) {
+            throw new IllegalStateException("Operation " + index + " did not return a uri");
+        }
+        return result.uri;
+    }
+
+    /**
+     * Returns the id of the row created by the POST at {@code index}, ie, the last segment of its uri.
+     *
+     * @throws IllegalStateException if the operation did not return a uri ending with an id.
+     */
+    public long getId(int index) {
+        Uri uri = getUri(index);
+        try {
+            return Long.parseLong(uri.getLastPathSegment());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Operation " + index + " did not return a uri ending with an id (" + uri + ")");
+        }
+    }
+
+    /**
+     * Returns the number of rows affected by the PUT or DELETE at {@code index}.
+     *
+     * @throws IllegalStateException if the operation did not return a count.
+     */
+    public int getCount(int index) {
+        ContentProviderResult result = results.get(index);
+        if (result == null || result.count == null) {
+            throw new IllegalStateException("Operation " + index + " did not return a count");
+        }
+        return result.count;
+    }
+
+    public ContentProviderResult[] getResults() {
+        return results.toArray(new ContentProviderResult[results.size()]);
+    }
+
+    /**
+     * Returns the sum of the rows affected by all updates and deletes.
+     */
+    public int getTotalCount() {
+        int total = 0;
+        for (ContentProviderResult result : results) {
+            if (result != null && result.count != null) {
+                total += result.count;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,20 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentValues;
+
+import com.amplify.hiccup.shared.BinaryBody;
+
+/**
+ * {@link RequestAdapter} that sends models as compact {@link BinaryBody} blobs rather than JSON text.
+ */
+public class BinaryRequestAdapter implements RequestAdapter {
+
+    private static final String BODY = "body";
+
+    @Override
+    public ContentValues toValues(Object model) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(BODY, BinaryBody.encode(model));
+        return contentValues;
+    }
+}
@@ -0,0 +1,98 @@
+package com.amplify.hiccup.client;
+
+import com.amplify.hiccup.shared.CursorRows;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rows of the most recently used GETs, with the version of the resources they were read at, the
+ * keys of the most recently requested GETs, which are cached once requested again unless their
+ * response cannot be, and the authorities of providers that do not tell versions.
+ */
+class CachedResponses {
+
+    private final LinkedHashMap<String, Response> responses;
+    private final LinkedHashMap<String, Boolean> requested;
+    private final Set<String> unversionedAuthorities = new HashSet<String>();
+
+    CachedResponses(final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.responses = new LinkedHashMap<String, Response>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.requested = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Records a GET of {@code key}, and returns true if it was requested before, recently enough
+     * to be worth caching, and its response may be cached.
+     */
+    synchronized boolean requestedBefore(String key) {
+        Boolean cacheable = requested.get(key);
+        if (cacheable == null) {
+            requested.put(key, Boolean.TRUE);
+            return false;
+        }
+        return cacheable;
+    }
+
+    /**
+     * Keeps GETs of {@code key} from being checked and cached, eg, since its response is streamed.
+     */
+    synchronized void setUncacheable(String key) {
+        requested.put(key, Boolean.FALSE);
+    }
+
+    synchronized boolean isVersioned(String authority) {
+        return !unversionedAuthorities.contains(authority);
+    }
+
+    synchronized void setUnversioned(String authority) {
+        unversionedAuthorities.add(authority);
+    }
+
+    synchronized Response get(String key) {
+        return responses.get(key);
+    }
+
+    synchronized void put(String key, Response response) {
+        responses.put(key, response);
+    }
+
+    synchronized void remove(String key) {
+        responses.remove(key);
+    }
+
+    synchronized void clear() {
+        responses.clear();
+        requested.clear();
+        unversionedAuthorities.clear();
+    }
+
+    synchronized int size() {
+        return responses.size();
+    }
+
+    static class Response {
+        final String version;
+        final CursorRows rows;
+
+        Response(String version, CursorRows rows) {
+            this.version = version;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+import com.amplify.hiccup.shared.Change;
+import com.amplify.hiccup.shared.ChangeFeed;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Subscription to the changes at or below a Uri, read from the service's change feed whenever it
+ * notifies the Uri. Reads run on the client's executor, one at a time, and notifications that
+ * arrive during a read are folded into a single follow-up read.
+ *
+ * @see HiccupClient#subscribe(Uri, long, Listener)
+ */
+public class ChangeSubscription implements Closeable {
+
+    /**
+     * Called on the executor thread, one call at a time.
+     */
+    public interface Listener {
+        /**
+         * @param changes the changes since the previous call, in the order they were made.
+         */
+        void onChanges(List<Change> changes);
+
+        /**
+         * The service no longer has all the changes since the previous call, eg, because the
+         * subscriber fell too far behind or the provider restarted. Resources must be fetched again,
+         * and changes are delivered from {@code version} on.
+         */
+        void onReset(long version);
+
+        void onFailure(Throwable throwable);
+    }
+
+    private final ContentResolver contentResolver;
+    private final Uri uri;
+    private final Listener listener;
+    private final ContentObserver observer;
+    private final CoalescingRunner reader;
+
+    private long version;
+
+    ChangeSubscription(ContentResolver contentResolver, Uri uri, long version,
+                       Executor executor, Listener listener) {
+        this.contentResolver = contentResolver;
+        this.uri = uri;
+        this.version = version;
+        this.listener = listener;
+        this.observer = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                requestRead();
+            }
+        };
+        this.reader = new CoalescingRunner(executor, new Runnable() {
+            @Override
+            public void run() {
+                readOnce(getVersion());
+            }
+        });
+    }
+
+    /**
+     * Registers for notifications, and reads the changes made since the subscription's version.
+     */
+    void start() {
+        contentResolver.registerContentObserver(uri, true, observer);
+        requestRead();
+    }
+
+    /**
+     * Returns the version of the feed the subscription has read up to.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void close() {
+        if (reader.close()) {
+            contentResolver.unregisterContentObserver(observer);
+        }
+    }
+
+    void requestRead() {
+        reader.request();
+    }
+
+    private void readOnce(long since) {
+        ChangeFeed.Page page;
+        try {
+            Bundle extras = new Bundle();
+            extras.putLong(ChangeFeed.EXTRA_SINCE, since);
+            Bundle result = contentResolver.call(uri, ChangeFeed.METHOD_CHANGES, uri.toString(), extras);
+            if (result == null) {
+                throw new IllegalStateException("Provider does not handle Hiccup calls (" + uri.getAuthority() + ")");
+            }
+            page = ChangeFeed.fromBundle(result);
+        } catch (RuntimeException e) {
+            if (!reader.isClosed()) {
+                listener.onFailure(e);
+            }
+            return;
+        }
+        synchronized (this) {
+            version = page.getVersion();
+        }
+        if (reader.isClosed()) {
+            return;
+        }
+        if (!page.isComplete()) {
+            listener.onReset(page.getVersion());
+        } else if (!page.getChanges().isEmpty()) {
+            listener.onChanges(page.getChanges());
+        }
+    }
+}
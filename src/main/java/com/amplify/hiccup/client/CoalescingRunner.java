@@ -0,0 +1,87 @@
+package com.amplify.hiccup.client;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a task on an executor, one run at a time. Requests that arrive while it runs are folded
+ * into a single run after it, so under load intermediate states are skipped and only the latest
+ * one is processed.
+ */
+class CoalescingRunner {
+
+    private final Executor executor;
+    private final Runnable task;
+    private final Runnable loop;
+
+    private boolean running;
+    private boolean dirty;
+    private boolean closed;
+
+    CoalescingRunner(Executor executor, Runnable task) {
+        this.executor = executor;
+        this.task = task;
+        this.loop = new Runnable() {
+            @Override
+            public void run() {
+                runUntilClean();
+            }
+        };
+    }
+
+    void request() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (running) {
+                dirty = true;
+                return;
+            }
+            running = true;
+        }
+        executor.execute(loop);
+    }
+
+    /**
+     * Stops running the task once the current run, if any, completes.
+     *
+     * @return false if the runner was already closed.
+     */
+    synchronized boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void runUntilClean() {
+        while (true) {
+            synchronized (this) {
+                if (closed) {
+                    running = false;
+                    return;
+                }
+                dirty = false;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    running = false;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                if (!dirty || closed) {
+                    running = false;
+                    return;
+                }
+            }
+        }
+    }
+}
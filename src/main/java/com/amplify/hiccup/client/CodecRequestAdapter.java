@@ -0,0 +1,21 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentValues;
+
+import com.amplify.hiccup.shared.Codecs;
+import com.amplify.hiccup.shared.ModelCodec;
+
+/**
+ * {@link RequestAdapter} that writes models with their compile-time generated {@link ModelCodec}.
+ *
+ * @see com.amplify.hiccup.shared.GenerateCodec
+ */
+public class CodecRequestAdapter implements RequestAdapter {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ContentValues toValues(Object model) {
+        ModelCodec<Object> codec = (ModelCodec<Object>) Codecs.of(model.getClass());
+        return codec.toValues(model);
+    }
+}
@@ -0,0 +1,28 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+import com.amplify.hiccup.shared.Codecs;
+import com.amplify.hiccup.shared.ModelCodec;
+
+/**
+ * {@link ResponseAdapter} that reads rows with the compile-time generated {@link ModelCodec}
+ * of the requested model class.
+ *
+ * @see com.amplify.hiccup.shared.GenerateCodec
+ */
+public class CodecResponseAdapter implements ResponseAdapter {
+
+    private final ColumnIndexes columnIndexes = new ColumnIndexes();
+
+    @Override
+    public <T> T toModel(Cursor cursor, Class<T> modelClass) {
+        ModelCodec<T> codec = Codecs.of(modelClass);
+        return codec.fromCursor(cursor, indexesOf(cursor, codec));
+    }
+
+    private int[] indexesOf(Cursor cursor, ModelCodec<?> codec) {
+        int[] indexes = columnIndexes.get(cursor, codec);
+        return indexes != null ? indexes : columnIndexes.put(cursor, codec, codec.indexesIn(cursor));
+    }
+}
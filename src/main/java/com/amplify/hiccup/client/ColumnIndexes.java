@@ -0,0 +1,47 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+/**
+ * The column indexes a reader, eg, a {@link com.amplify.hiccup.shared.ModelCodec} or
+ * {@link com.amplify.hiccup.shared.ColumnPlan}, last looked up in a cursor, so response adapters
+ * look them up once per cursor rather than once per row.
+ *
+ * <p>Indexes are kept by the cursor's column names array rather than by the cursor, so closed
+ * cursors are not kept alive. Cursors that return a new array on every call only miss.</p>
+ */
+class ColumnIndexes {
+
+    private volatile Entry last;
+
+    /**
+     * @return the indexes looked up for {@code reader} in a cursor of the same columns, or null.
+     */
+    int[] get(Cursor cursor, Object reader) {
+        Entry entry = last;
+        if (entry == null || entry.reader != reader || entry.columnNames != cursor.getColumnNames()) {
+            return null;
+        }
+        return entry.indexes;
+    }
+
+    /**
+     * @return {@code indexes}.
+     */
+    int[] put(Cursor cursor, Object reader, int[] indexes) {
+        last = new Entry(cursor.getColumnNames(), reader, indexes);
+        return indexes;
+    }
+
+    private static class Entry {
+        final String[] columnNames;
+        final Object reader;
+        final int[] indexes;
+
+        Entry(String[] columnNames, Object reader, int[] indexes) {
+            this.columnNames = columnNames;
+            this.reader = reader;
+            this.indexes = indexes;
+        }
+    }
+}
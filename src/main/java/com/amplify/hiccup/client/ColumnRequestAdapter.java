@@ -0,0 +1,18 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentValues;
+
+import com.amplify.hiccup.shared.ColumnPlan;
+
+/**
+ * {@link RequestAdapter} that sends each model field as its own typed value rather than a JSON body.
+ *
+ * @see com.amplify.hiccup.service.ColumnContentAdapter
+ */
+public class ColumnRequestAdapter implements RequestAdapter {
+
+    @Override
+    public ContentValues toValues(Object model) {
+        return ColumnPlan.of(model.getClass()).toValues(model);
+    }
+}
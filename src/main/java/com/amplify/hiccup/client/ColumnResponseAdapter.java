@@ -0,0 +1,36 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+import com.amplify.hiccup.shared.ColumnPlan;
+
+/**
+ * {@link ResponseAdapter} that reads the current row of a cursor produced by
+ * {@link com.amplify.hiccup.service.ColumnContentAdapter} into a model, field by field.
+ */
+public class ColumnResponseAdapter implements RecyclingResponseAdapter {
+
+    private final ColumnIndexes columnIndexes = new ColumnIndexes();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T toModel(Cursor cursor, Class<T> modelClass) {
+        ColumnPlan columnPlan = ColumnPlan.of(modelClass);
+        return (T) columnPlan.fromCursor(cursor, indexesOf(cursor, columnPlan));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T toModel(Cursor cursor, Class<T> modelClass, T model) {
+        if (model == null) {
+            return toModel(cursor, modelClass);
+        }
+        ColumnPlan columnPlan = ColumnPlan.of(modelClass);
+        return (T) columnPlan.readCursor(cursor, indexesOf(cursor, columnPlan), model);
+    }
+
+    private int[] indexesOf(Cursor cursor, ColumnPlan columnPlan) {
+        int[] indexes = columnIndexes.get(cursor, columnPlan);
+        return indexes != null ? indexes : columnIndexes.put(cursor, columnPlan, columnPlan.indexesIn(cursor));
+    }
+}
@@ -0,0 +1,216 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent GETs of the same {@link Uri} into a single query. The first caller runs the
+ * query, and callers arriving while it is in flight wait for it and share its cursor, each through
+ * its own {@link SharedCursor} view. The cursor is closed once every view is.
+ *
+ * <p>The shared query is only cancelled once all of its callers have cancelled.</p>
+ *
+ * <p>Callers only join queries that started after the last write, or notification, of the Uri's
+ * authority they know of, so a GET made after a write, or after the notification of a change,
+ * never returns rows read before it. Each authority has a generation, which
+ * {@link #invalidate(String)} bumps, and queries that started at an older generation are left to
+ * the callers that joined them.</p>
+ */
+class GetCoalescer {
+
+    interface Query {
+        /**
+         * @param cancellationSignal null if the query cannot be cancelled.
+         */
+        Cursor run(CancellationSignal cancellationSignal);
+    }
+
+    private final ConcurrentMap<Uri, InFlight> inFlight = new ConcurrentHashMap<Uri, InFlight>();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, ContentObserver> watched = new ConcurrentHashMap<String, ContentObserver>();
+
+    /**
+     * @param cancellationSignal the caller's signal, or null if the caller never cancels.
+     */
+    Cursor get(Uri uri, CancellationSignal cancellationSignal, Query query) {
+        InFlight flight = new InFlight(cancellationSignal != null, generationOf(uri.getAuthority()).get());
+        while (true) {
+            InFlight existing = inFlight.putIfAbsent(uri, flight);
+            if (existing == null) {
+                return lead(uri, flight, cancellationSignal, query);
+            }
+            if (existing.generation < flight.generation) {
+                // may have read the rows before the caller's write, or notification
+                if (inFlight.replace(uri, existing, flight)) {
+                    return lead(uri, flight, cancellationSignal, query);
+                }
+                continue;
+            }
+            if (existing.join(cancellationSignal)) {
+                return existing.await();
+            }
+            // finished or cancelled by all its callers, don't wait for it
+            inFlight.remove(uri, existing);
+        }
+    }
+
+    /**
+     * Keeps GETs of {@code authority} made from now on from joining queries in flight, eg, once a
+     * write returned or a change was notified.
+     */
+    void invalidate(String authority) {
+        generationOf(authority).incrementAndGet();
+    }
+
+    /**
+     * Invalidates {@code authority} whenever a Uri of it is notified, from now on. Only the first
+     * call for an authority registers an observer, which is kept for the life of the process.
+     */
+    void watch(ContentResolver contentResolver, final String authority) {
+        if (watched.containsKey(authority)) {
+            return;
+        }
+        ContentObserver observer = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                invalidate(authority);
+            }
+        };
+        if (watched.putIfAbsent(authority, observer) == null) {
+            contentResolver.registerContentObserver(new Uri.Builder().scheme(ContentResolver.SCHEME_CONTENT)
+                    .authority(authority).build(), true, observer);
+        }
+    }
+
+    private AtomicLong generationOf(String authority) {
+        String key = authority == null ? "" : authority;
+        AtomicLong generation = generations.get(key);
+        if (generation == null) {
+            AtomicLong created = new AtomicLong();
+            generation = generations.putIfAbsent(key, created);
+            if (generation == null) {
+                generation = created;
+            }
+        }
+        return generation;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Cursor lead(Uri uri, InFlight flight, CancellationSignal cancellationSignal, Query query) {
+        flight.watch(cancellationSignal);
+        Cursor cursor = null;
+        RuntimeException failure = null;
+        try {
+            cursor = query.run(flight.cancellationSignal);
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (Error e) {
+            flight.finish(null, new IllegalStateException("Query failed", e));
+            throw e;
+        } finally {
+            inFlight.remove(uri, flight);
+        }
+        flight.finish(cursor, failure);
+        return flight.result();
+    }
+
+    private static class InFlight {
+        final CancellationSignal cancellationSignal;
+        final long generation;
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private int participants = 1;
+        private int cancelled;
+        private int abandoned;
+        private boolean done;
+        private Cursor cursor;
+        private RuntimeException failure;
+        private SharedCursor sharedCursor;
+
+        InFlight(boolean cancellable, long generation) {
+            this.cancellationSignal = cancellable ? new CancellationSignal() : null;
+            this.generation = generation;
+        }
+
+        synchronized boolean join(CancellationSignal participantSignal) {
+            if (done || (cancellationSignal != null && cancellationSignal.isCanceled())) {
+                return false;
+            }
+            participants++;
+            watch(participantSignal);
+            return true;
+        }
+
+        void watch(CancellationSignal participantSignal) {
+            if (participantSignal == null) {
+                return;
+            }
+            participantSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+                    cancelOne();
+                }
+            });
+        }
+
+        synchronized void finish(Cursor cursor, RuntimeException failure) {
+            this.done = true;
+            this.cursor = cursor;
+            this.failure = failure;
+            int views = participants - abandoned;
+            if (cursor != null && views > 1) {
+                sharedCursor = new SharedCursor(cursor, views);
+            }
+            latch.countDown();
+        }
+
+        Cursor await() {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                abandon();
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            }
+            return result();
+        }
+
+        synchronized Cursor result() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (cursor == null) {
+                return null;
+            }
+            return sharedCursor == null ? cursor : sharedCursor.newView();
+        }
+
+        private synchronized void cancelOne() {
+            cancelled++;
+            if (!done && cancelled == participants && cancellationSignal != null) {
+                cancellationSignal.cancel();
+            }
+        }
+
+        private synchronized void abandon() {
+            if (!done) {
+                abandoned++;
+            } else if (sharedCursor != null) {
+                sharedCursor.release();
+            }
+        }
+    }
+}
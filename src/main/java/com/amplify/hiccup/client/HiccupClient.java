@@ -3,36 +3,508 @@ package com.amplify.hiccup.client;
 import android.content.*;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+
+import com.amplify.hiccup.shared.ChangeFeed;
+import com.amplify.hiccup.shared.ConditionalGet;
+import com.amplify.hiccup.shared.CursorRows;
+import com.amplify.hiccup.shared.StreamedBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HiccupClient {
 
+    private static final int DEFAULT_ASYNC_THREADS = 4;
+    static final GetCoalescer GETS = new GetCoalescer();
+
     private final Context context;
+    private final long streamThreshold;
+    private final Executor executor;
+    private final ResponseAdapter responseAdapter;
+
+    private volatile CachedResponses cachedResponses;
 
     public HiccupClient(Context context) {
+        this(context, StreamedBody.DEFAULT_THRESHOLD_BYTES);
+    }
+
+    /**
+     * @param executor runs the asynchronous requests, eg, {@code getAsync(Uri)}. Defaults to a
+     *     {@link #newBoundedExecutor(int) bounded executor} shared by all clients.
+     */
+    public HiccupClient(Context context, Executor executor) {
+        this(context, StreamedBody.DEFAULT_THRESHOLD_BYTES, executor);
+    }
+
+    /**
+     * @param responseAdapter converts rows to models for {@link #get(Uri, Class)}.
+     */
+    public HiccupClient(Context context, ResponseAdapter responseAdapter) {
+        this(context, StreamedBody.DEFAULT_THRESHOLD_BYTES, DefaultExecutor.INSTANCE, responseAdapter);
+    }
+
+    /**
+     * @param streamThresholdBytes request values estimated to be larger than this are streamed to the
+     *     service through a pipe rather than sent in a single binder transaction. The provider must
+     *     delegate {@link ContentProvider#call(String, String, Bundle)} to
+     *     {@code HiccupService.delegateCall(ContentProvider, String, String, Bundle)} for them.
+     */
+    public HiccupClient(Context context, long streamThresholdBytes) {
+        this(context, streamThresholdBytes, DefaultExecutor.INSTANCE);
+    }
+
+    public HiccupClient(Context context, long streamThresholdBytes, Executor executor) {
+        this(context, streamThresholdBytes, executor, null);
+    }
+
+    public HiccupClient(Context context, long streamThresholdBytes, Executor executor, ResponseAdapter responseAdapter) {
         this.context = context;
+        this.streamThreshold = streamThresholdBytes;
+        this.executor = executor;
+        this.responseAdapter = responseAdapter;
+    }
+
+    /**
+     * Returns an executor of at most {@code threads} daemon threads, which time out when idle.
+     * Requests beyond that are queued rather than each getting a thread.
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new AsyncThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Keeps the rows of up to {@code maxEntries} GETs, least recently used first out, and reuses
+     * them for GETs of the same Uri while the service says the resources were not modified since.
+     * Checking costs a call to the provider, but no rows are transferred when nothing changed.
+     *
+     * <p>The service tells the version of resources through their {@link com.amplify.hiccup.service.VersionedController},
+     * or its change feed, and the provider must delegate {@link ContentProvider#call(String, String, Bundle)}
+     * to it. GETs of resources whose version is not known are not cached, and GETs of providers
+     * that do not handle Hiccup calls are made as usual, without checking again until the cache is
+     * cleared.</p>
+     *
+     * <p>A Uri is only cached once it is requested again, so GETs of Uris requested once, or
+     * evicted since, are made as usual, without checking. Responses with bodies streamed through
+     * pipes, see {@link #get(Uri)}, or without a version are not cached, and their Uris are no
+     * longer checked until the cache is cleared.</p>
+     *
+     * @return {@link HiccupClient} for fluent interface.
+     */
+    public HiccupClient cacheResponses(int maxEntries) {
+        this.cachedResponses = new CachedResponses(maxEntries);
+        return this;
+    }
+
+    /**
+     * Drops the rows of all cached GETs.
+     *
+     * @see #cacheResponses(int)
+     */
+    public void clearCache() {
+        CachedResponses cache = cachedResponses;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
+    /**
+     * Bodies that the service streams rather than put in the cursor window are read through a pipe
+     * when their row is read, so the returned cursor reads the same either way.
+     *
+     * <p>Identical GETs made concurrently, by any client in the process, share a single query while
+     * it is in flight. Each caller then reads its own view of the result, and must close it as usual.
+     * A GET only shares queries that started after the last write made through a client, or change
+     * notified, for the Uri's authority, so it never returns rows read before them.</p>
+     */
     public Cursor get(Uri uri) {
-        return context.getContentResolver().query(uri, null, null, null, null);
+        return query(uri, null);
+    }
+
+    /**
+     * Returns the models of the response, decoded by the client's {@link ResponseAdapter} only as
+     * they are accessed. The list must be closed once done with.
+     *
+     * @throws IllegalStateException if the client was created without a {@link ResponseAdapter}.
+     */
+    public <T> ModelList<T> get(Uri uri, Class<T> modelClass) {
+        if (responseAdapter == null) {
+            throw new IllegalStateException("No response adapter to convert rows to " + modelClass.getName());
+        }
+        return get(uri, modelClass, responseAdapter);
+    }
+
+    /**
+     * @see #get(Uri, Class)
+     */
+    public <T> ModelList<T> get(Uri uri, Class<T> modelClass, ResponseAdapter responseAdapter) {
+        return new ModelList<T>(get(uri), modelClass, responseAdapter);
+    }
+
+    /**
+     * Runs {@link #get(Uri)} on the client's executor. Cancelling the returned future cancels the query,
+     * unless other callers are sharing it.
+     */
+    public HiccupFuture<Cursor> getAsync(Uri uri) {
+        return getAsync(uri, null);
+    }
+
+    /**
+     * @param callback notified on the executor thread once the request completes, fails or is cancelled.
+     *
+     * @see #getAsync(Uri)
+     */
+    public HiccupFuture<Cursor> getAsync(final Uri uri, HiccupFuture.Callback<Cursor> callback) {
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        return submit(new Callable<Cursor>() {
+            @Override
+            public Cursor call() {
+                return query(uri, cancellationSignal);
+            }
+        }, cancellationSignal, callback);
     }
 
     public Uri post(Uri uri, ContentValues contentValues) {
-        return context.getContentResolver().insert(uri, contentValues);
+        try {
+            if (StreamedBody.sizeOfValues(contentValues) > streamThreshold) {
+                String location = callStreamed(StreamedBody.METHOD_POST, uri, contentValues).getString(StreamedBody.EXTRA_URI);
+                return location == null ? null : Uri.parse(location);
+            }
+            return context.getContentResolver().insert(uri, contentValues);
+        } finally {
+            GETS.invalidate(uri.getAuthority());
+        }
     }
 
     public int put(Uri uri, ContentValues contentValues) {
-        return context.getContentResolver().update(uri, contentValues, null, null);
+        try {
+            if (StreamedBody.sizeOfValues(contentValues) > streamThreshold) {
+                return callStreamed(StreamedBody.METHOD_PUT, uri, contentValues).getInt(StreamedBody.EXTRA_COUNT);
+            }
+            return context.getContentResolver().update(uri, contentValues, null, null);
+        } finally {
+            GETS.invalidate(uri.getAuthority());
+        }
     }
 
     public int delete(Uri uri) {
-        return context.getContentResolver().delete(uri, null, null);
+        try {
+            return context.getContentResolver().delete(uri, null, null);
+        } finally {
+            GETS.invalidate(uri.getAuthority());
+        }
     }
 
     public int patch(Uri uri, ContentValues[] contentValues) {
-        return context.getContentResolver().bulkInsert(uri, contentValues);
+        try {
+            if (StreamedBody.sizeOfValues(contentValues) > streamThreshold) {
+                return callStreamed(StreamedBody.METHOD_PATCH, uri, contentValues).getInt(StreamedBody.EXTRA_COUNT);
+            }
+            return context.getContentResolver().bulkInsert(uri, contentValues);
+        } finally {
+            GETS.invalidate(uri.getAuthority());
+        }
+    }
+
+    /**
+     * POSTs several resources to a collection in a single request, letting the controller create
+     * them all at once, eg, in a single transaction. Values too large for a binder transaction are
+     * streamed through a pipe.
+     *
+     * <p>The {@link android.content.ContentProvider} must delegate
+     * {@link android.content.ContentProvider#call(String, String, android.os.Bundle)} to
+     * {@link com.amplify.hiccup.service.HiccupService#delegateCall(android.content.ContentProvider, String, String, android.os.Bundle)}.</p>
+     *
+     * @return the number of resources created.
+     */
+    public int postAll(Uri uri, ContentValues[] contentValues) {
+        try {
+            if (StreamedBody.sizeOfValues(contentValues) > streamThreshold) {
+                return callStreamed(StreamedBody.METHOD_POST_ALL, uri, contentValues).getInt(StreamedBody.EXTRA_COUNT);
+            }
+            Bundle extras = new Bundle();
+            extras.putParcelableArray(StreamedBody.EXTRA_VALUES, contentValues);
+            return call(StreamedBody.METHOD_POST_ALL, uri, extras).getInt(StreamedBody.EXTRA_COUNT);
+        } finally {
+            GETS.invalidate(uri.getAuthority());
+        }
+    }
+
+    public HiccupFuture<Uri> postAsync(Uri uri, ContentValues contentValues) {
+        return postAsync(uri, contentValues, null);
+    }
+
+    public HiccupFuture<Uri> postAsync(final Uri uri, final ContentValues contentValues, HiccupFuture.Callback<Uri> callback) {
+        return submit(new Callable<Uri>() {
+            @Override
+            public Uri call() {
+                return post(uri, contentValues);
+            }
+        }, null, callback);
+    }
+
+    public HiccupFuture<Integer> putAsync(Uri uri, ContentValues contentValues) {
+        return putAsync(uri, contentValues, null);
+    }
+
+    public HiccupFuture<Integer> putAsync(final Uri uri, final ContentValues contentValues, HiccupFuture.Callback<Integer> callback) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return put(uri, contentValues);
+            }
+        }, null, callback);
+    }
+
+    public HiccupFuture<Integer> deleteAsync(Uri uri) {
+        return deleteAsync(uri, null);
+    }
+
+    public HiccupFuture<Integer> deleteAsync(final Uri uri, HiccupFuture.Callback<Integer> callback) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return delete(uri);
+            }
+        }, null, callback);
+    }
+
+    public HiccupFuture<Integer> patchAsync(Uri uri, ContentValues[] contentValues) {
+        return patchAsync(uri, contentValues, null);
+    }
+
+    public HiccupFuture<Integer> patchAsync(final Uri uri, final ContentValues[] contentValues, HiccupFuture.Callback<Integer> callback) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return patch(uri, contentValues);
+            }
+        }, null, callback);
+    }
+
+    public HiccupFuture<Integer> postAllAsync(Uri uri, ContentValues[] contentValues) {
+        return postAllAsync(uri, contentValues, null);
+    }
+
+    public HiccupFuture<Integer> postAllAsync(final Uri uri, final ContentValues[] contentValues, HiccupFuture.Callback<Integer> callback) {
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return postAll(uri, contentValues);
+            }
+        }, null, callback);
+    }
+
+    /**
+     * Returns the current version of the service's change feed, to pass to
+     * {@link #subscribe(Uri, long, ChangeSubscription.Listener)}.
+     *
+     * @throws IllegalStateException if the service does not publish changes.
+     */
+    public long getChangeVersion(Uri uri) {
+        Bundle extras = new Bundle();
+        extras.putLong(ChangeFeed.EXTRA_SINCE, -1);
+        return ChangeFeed.fromBundle(call(ChangeFeed.METHOD_CHANGES, uri, extras)).getVersion();
+    }
+
+    /**
+     * Subscribes to the changes at or below {@code uri} from now on.
+     *
+     * @see #subscribe(Uri, long, ChangeSubscription.Listener)
+     */
+    public ChangeSubscription subscribe(Uri uri, ChangeSubscription.Listener listener) {
+        return subscribe(uri, getChangeVersion(uri), listener);
+    }
+
+    /**
+     * Subscribes to the changes at or below {@code uri} made after {@code sinceVersion}, so lists
+     * can be updated with only what changed instead of fetching them again after every write. To
+     * not miss any change, get the version before fetching the initial list:
+     *
+     * <pre>
+     * long version = hiccupClient.getChangeVersion(postsUri);
+     * ModelList&lt;Post&gt; posts = hiccupClient.get(postsUri, Post.class);
+     * ChangeSubscription subscription = hiccupClient.subscribe(postsUri, version, listener);
+     * </pre>
+     *
+     * <p>The listener is called on the client's executor. The service must enable change
+     * notifications, and the provider delegate {@link ContentProvider#call(String, String, Bundle)}
+     * to it. The subscription must be closed once done with.</p>
+     */
+    public ChangeSubscription subscribe(Uri uri, long sinceVersion, ChangeSubscription.Listener listener) {
+        ChangeSubscription subscription = new ChangeSubscription(context.getContentResolver(), uri,
+                sinceVersion, executor, listener);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Observes the models at {@code uri}, which are queried again whenever the Uri, or a Uri below
+     * it, is notified, and delivered with what changed since the previous list:
+     *
+     * <pre>
+     * Observation&lt;Post&gt; observation = hiccupClient.observe(postsUri, Post.class, observer);
+     * </pre>
+     *
+     * <p>Queries run on the client's executor, and notifications that arrive while one runs are
+     * folded into a single follow-up query. Lists that did not change are not delivered. The
+     * observation must be closed once done with.</p>
+     *
+     * @throws IllegalStateException if the client was created without a {@link ResponseAdapter}.
+     */
+    public <T> Observation<T> observe(Uri uri, Class<T> modelClass, Observation.Observer<T> observer) {
+        if (responseAdapter == null) {
+            throw new IllegalStateException("No response adapter to convert rows to " + modelClass.getName());
+        }
+        return observe(uri, modelClass, responseAdapter, observer);
+    }
+
+    /**
+     * @see #observe(Uri, Class, Observation.Observer)
+     */
+    public <T> Observation<T> observe(final Uri uri, final Class<T> modelClass, final ResponseAdapter responseAdapter,
+                                      Observation.Observer<T> observer) {
+        Observation<T> observation = new Observation<T>(context.getContentResolver(), uri, new Observation.Query<T>() {
+            @Override
+            public ModelList<T> run() {
+                return get(uri, modelClass, responseAdapter);
+            }
+        }, GETS, executor, observer);
+        observation.start();
+        return observation;
     }
 
     public BatchRequest newBatch() {
         return new BatchRequest(context);
     }
+
+    private <T> HiccupFuture<T> submit(Callable<T> callable, CancellationSignal cancellationSignal,
+                                       HiccupFuture.Callback<T> callback) {
+        HiccupFuture<T> future = new HiccupFuture<T>(callable, cancellationSignal, callback);
+        executor.execute(future);
+        return future;
+    }
+
+    private Cursor query(Uri uri, CancellationSignal cancellationSignal) {
+        GETS.watch(context.getContentResolver(), uri.getAuthority());
+        CachedResponses cache = cachedResponses;
+        if (cache == null || !cache.isVersioned(uri.getAuthority())) {
+            return GETS.get(uri, cancellationSignal, newQuery(uri));
+        }
+        String key = uri.toString();
+        CachedResponses.Response cached = cache.get(key);
+        if (cached == null && !cache.requestedBefore(key)) {
+            return GETS.get(uri, cancellationSignal, newQuery(uri));
+        }
+        throwIfCanceled(cancellationSignal);
+        Bundle validation = context.getContentResolver().call(uri, ConditionalGet.METHOD_VALIDATE, key,
+                ConditionalGet.request(cached == null ? null : cached.version));
+        throwIfCanceled(cancellationSignal);
+        if (validation == null) {
+            cache.setUnversioned(uri.getAuthority());
+            return GETS.get(uri, cancellationSignal, newQuery(uri));
+        }
+        if (cached != null && !validation.getBoolean(ConditionalGet.EXTRA_MODIFIED, true)) {
+            return cached.rows.newCursor();
+        }
+        // not shared, since a query in flight may have read the rows before the version
+        Cursor cursor = newQuery(uri).run(cancellationSignal);
+        String version = validation.getString(ConditionalGet.EXTRA_VERSION);
+        if (cursor == null || version == null || StreamedBodyCursor.hasStreamColumn(cursor)) {
+            cache.remove(key);
+            if (cursor != null) {
+                cache.setUncacheable(key);
+            }
+            return cursor;
+        }
+        CursorRows rows;
+        try {
+            rows = CursorRows.copyOf(cursor);
+        } finally {
+            cursor.close();
+        }
+        cache.put(key, new CachedResponses.Response(version, rows));
+        return rows.newCursor();
+    }
+
+    private static void throwIfCanceled(CancellationSignal cancellationSignal) {
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
+    }
+
+    private GetCoalescer.Query newQuery(final Uri uri) {
+        return new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                ContentResolver contentResolver = context.getContentResolver();
+                Cursor cursor = cancellationSignal == null
+                        ? contentResolver.query(uri, null, null, null, null)
+                        : contentResolver.query(uri, null, null, null, null, cancellationSignal);
+                if (cursor != null && StreamedBodyCursor.hasStreamColumn(cursor)) {
+                    return new StreamedBodyCursor(cursor, contentResolver, uri.getAuthority());
+                }
+                return cursor;
+            }
+        };
+    }
+
+    /**
+     * Writes the values into a pipe, in chunks, while the service reads them from the other end.
+     */
+    private Bundle callStreamed(String method, Uri uri, final ContentValues... contentValues) {
+        ParcelFileDescriptor body;
+        try {
+            body = StreamedBody.pipe(new StreamedBody.PipeWriter() {
+                @Override
+                public void write(OutputStream outputStream) throws IOException {
+                    StreamedBody.writeValues(contentValues, outputStream);
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open a pipe for the request body", e);
+        }
+        try {
+            Bundle extras = new Bundle();
+            extras.putParcelable(StreamedBody.EXTRA_BODY, body);
+            return call(method, uri, extras);
+        } finally {
+            StreamedBody.closeQuietly(body);
+        }
+    }
+
+    private Bundle call(String method, Uri uri, Bundle extras) {
+        Bundle result = context.getContentResolver().call(uri, method, uri.toString(), extras);
+        if (result == null) {
+            throw new IllegalStateException("Provider does not handle Hiccup calls (" + uri.getAuthority() + ")");
+        }
+        return result;
+    }
+
+    private static class DefaultExecutor {
+        static final Executor INSTANCE = newBoundedExecutor(DEFAULT_ASYNC_THREADS);
+    }
+
+    private static class AsyncThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "hiccup-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+import android.os.CancellationSignal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Result of an asynchronous {@link HiccupClient} request.
+ *
+ * <p>Cancelling a GET cancels its query through a {@link CancellationSignal}, so a controller that
+ * honours it stops early. Other requests are only prevented from starting. A cursor that arrives
+ * after its request was cancelled is closed rather than leaked.</p>
+ */
+public class HiccupFuture<T> extends FutureTask<T> {
+
+    /**
+     * Receives the outcome of a request on the executor thread it ran on.
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        /**
+         * @param throwable what the request threw, or a {@link CancellationException} if it was cancelled.
+         */
+        void onFailure(Throwable throwable);
+    }
+
+    private final CancellationSignal cancellationSignal;
+    private final Callback<T> callback;
+
+    HiccupFuture(Callable<T> callable, CancellationSignal cancellationSignal, Callback<T> callback) {
+        super(callable);
+        this.cancellationSignal = cancellationSignal;
+        this.callback = callback;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && cancellationSignal != null) {
+            cancellationSignal.cancel();
+        }
+        return cancelled;
+    }
+
+    @Override
+    protected void set(T result) {
+        super.set(result);
+        if (isCancelled() && result instanceof Cursor) {
+            ((Cursor) result).close();
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (callback == null) {
+            return;
+        }
+        T result;
+        try {
+            result = get();
+        } catch (CancellationException e) {
+            callback.onFailure(e);
+            return;
+        } catch (ExecutionException e) {
+            callback.onFailure(e.getCause());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            callback.onFailure(e);
+            return;
+        }
+        callback.onSuccess(result);
+    }
+}
@@ -2,6 +2,7 @@ package com.amplify.hiccup.client;
 
 import android.content.ContentValues;
 
+import com.amplify.hiccup.shared.JsonBuffers;
 import com.amplify.hiccup.shared.JsonConverter;
 
 public class HttpRequestAdapter implements RequestAdapter {
@@ -17,7 +18,7 @@ public class HttpRequestAdapter implements RequestAdapter {
     @Override
     public ContentValues toValues(Object model) {
         ContentValues contentValues = new ContentValues();
-        String body = jsonConverter.toJson(model);
+        String body = JsonBuffers.toJson(jsonConverter, model);
         contentValues.put(BODY, body);
         return contentValues;
     }
@@ -0,0 +1,34 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+import com.amplify.hiccup.shared.BinaryBody;
+import com.amplify.hiccup.shared.JsonBuffers;
+import com.amplify.hiccup.shared.JsonConverter;
+
+/**
+ * {@link ResponseAdapter} that converts the JSON body column of the cursor's current row to a model.
+ * With a {@link com.amplify.hiccup.shared.StreamingJsonConverter} the body is parsed out of a reused
+ * buffer rather than a new String per row.
+ *
+ * <p>Blob bodies, returned by routes using a {@code BinaryContentAdapter}, are decoded as {@link BinaryBody}s.</p>
+ */
+public class HttpResponseAdapter implements ResponseAdapter {
+
+    private static final String BODY = "body";
+
+    private final JsonConverter jsonConverter;
+
+    public HttpResponseAdapter(JsonConverter jsonConverter) {
+        this.jsonConverter = jsonConverter;
+    }
+
+    @Override
+    public <T> T toModel(Cursor cursor, Class<T> modelClass) {
+        int column = cursor.getColumnIndexOrThrow(BODY);
+        if (cursor.getType(column) == Cursor.FIELD_TYPE_BLOB) {
+            return BinaryBody.decode(cursor.getBlob(column), modelClass);
+        }
+        return JsonBuffers.fromJson(jsonConverter, cursor, column, modelClass);
+    }
+}
@@ -0,0 +1,247 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+import android.provider.BaseColumns;
+
+import com.amplify.hiccup.shared.StreamedBody;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Difference between two consecutive lists of an {@link Observation}, by row id, as positions to
+ * hand to list adapters. Rows are compared by their values as read from the cursor, without
+ * decoding them to models.
+ *
+ * <p>When both lists number their rows 1 to n, as {@link com.amplify.hiccup.service.HttpContentAdapter}
+ * does, {@code _id} may be nothing but the row's position, so rows are matched by their values
+ * instead: a row whose values changed is then reported as removed and inserted. Rows that stay in
+ * both lists must keep their order, moves are reported as a reload.</p>
+ */
+public final class ListDiff {
+
+    private static final int[] NONE = new int[0];
+
+    private final boolean reload;
+    private final int[] removed;
+    private final int[] inserted;
+    private final int[] changed;
+
+    private ListDiff(boolean reload, int[] removed, int[] inserted, int[] changed) {
+        this.reload = reload;
+        this.removed = removed;
+        this.inserted = inserted;
+        this.changed = changed;
+    }
+
+    /**
+     * Returns true if rows could not be matched, eg, the response has no {@code _id} column, or
+     * rows moved, in which case the whole list must be considered changed.
+     */
+    public boolean isReload() {
+        return reload;
+    }
+
+    /**
+     * Returns the positions, in the previous list, of rows that are no longer present, ascending.
+     */
+    public int[] getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns the positions, in the new list, of rows that were not present before, ascending.
+     */
+    public int[] getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Returns the positions, in the new list, of rows whose values changed, ascending.
+     */
+    public int[] getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return !reload && removed.length == 0 && inserted.length == 0 && changed.length == 0;
+    }
+
+    static ListDiff between(Snapshot previous, Snapshot next) {
+        if (next.ids == null || (previous != null && previous.ids == null)) {
+            return new ListDiff(true, NONE, NONE, NONE);
+        }
+        if (previous == null) {
+            return new ListDiff(false, NONE, allPositions(next.ids.length), NONE);
+        }
+        boolean byValues = previous.numbersRows() && next.numbersRows();
+        long[] previousKeys = byValues ? previous.valueKeys() : previous.ids;
+        long[] nextKeys = byValues ? next.valueKeys() : next.ids;
+        Map<Long, Integer> previousPositions = previousKeys == null ? null : positionsOf(previousKeys);
+        Map<Long, Integer> nextPositions = nextKeys == null ? null : positionsOf(nextKeys);
+        if (previousPositions == null || nextPositions == null) {
+            return new ListDiff(true, NONE, NONE, NONE);
+        }
+        IntList removed = new IntList();
+        for (int i = 0; i < previousKeys.length; i++) {
+            if (!nextPositions.containsKey(previousKeys[i])) {
+                removed.add(i);
+            }
+        }
+        IntList inserted = new IntList();
+        IntList changed = new IntList();
+        int lastPreviousPosition = -1;
+        for (int i = 0; i < nextKeys.length; i++) {
+            Integer previousPosition = previousPositions.get(nextKeys[i]);
+            if (previousPosition == null) {
+                inserted.add(i);
+                continue;
+            }
+            if (previousPosition < lastPreviousPosition) {
+                return new ListDiff(true, NONE, NONE, NONE);
+            }
+            lastPreviousPosition = previousPosition;
+            if (!byValues && !next.sameValues(i, previous, previousPosition)) {
+                changed.add(i);
+            }
+        }
+        return new ListDiff(false, removed.toArray(), inserted.toArray(), changed.toArray());
+    }
+
+    private static int[] allPositions(int count) {
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = i;
+        }
+        return positions;
+    }
+
+    /**
+     * @return null if ids are not unique.
+     */
+    private static Map<Long, Integer> positionsOf(long[] ids) {
+        Map<Long, Integer> positions = new HashMap<Long, Integer>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            if (positions.put(ids[i], i) != null) {
+                return null;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Ids and hashes of the values of every row of a cursor. Rows whose body was streamed are not
+     * read through the pipe, and always count as changed, or reload lists matched by values.
+     */
+    static class Snapshot {
+        final long[] ids;
+        final long[] hashes;
+        final boolean[] opaque;
+
+        private Snapshot(long[] ids, long[] hashes, boolean[] opaque) {
+            this.ids = ids;
+            this.hashes = hashes;
+            this.opaque = opaque;
+        }
+
+        static Snapshot of(Cursor cursor) {
+            int count = cursor == null ? 0 : cursor.getCount();
+            int idColumn = cursor == null ? -1 : cursor.getColumnIndex(BaseColumns._ID);
+            if (cursor != null && idColumn < 0) {
+                return new Snapshot(null, null, null);
+            }
+            int streamColumn = cursor == null ? -1 : cursor.getColumnIndex(StreamedBody.STREAM_COLUMN);
+            long[] ids = new long[count];
+            long[] hashes = new long[count];
+            boolean[] opaque = new boolean[count];
+            for (int row = 0; row < count && cursor.moveToPosition(row); row++) {
+                ids[row] = cursor.getLong(idColumn);
+                opaque[row] = streamColumn >= 0 && !cursor.isNull(streamColumn);
+                hashes[row] = opaque[row] ? 0 : hashOf(cursor, idColumn, streamColumn);
+            }
+            return new Snapshot(ids, hashes, opaque);
+        }
+
+        boolean sameValues(int position, Snapshot other, int otherPosition) {
+            return !opaque[position] && !other.opaque[otherPosition] && hashes[position] == other.hashes[otherPosition];
+        }
+
+        /**
+         * Returns true if the ids are 1 to n, in order, so they may only be row numbers.
+         */
+        boolean numbersRows() {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != i + 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the hashes of the rows' values, to match rows by, or null if a row was streamed
+         * and its values are not known.
+         */
+        long[] valueKeys() {
+            for (boolean streamed : opaque) {
+                if (streamed) {
+                    return null;
+                }
+            }
+            return hashes;
+        }
+
+        /**
+         * 64-bit FNV-1a over the typed values of the row.
+         */
+        private static long hashOf(Cursor cursor, int idColumn, int streamColumn) {
+            long hash = 0xcbf29ce484222325L;
+            for (int column = 0; column < cursor.getColumnCount(); column++) {
+                if (column == idColumn || column == streamColumn) {
+                    continue;
+                }
+                int type = cursor.getType(column);
+                hash = mix(hash, type);
+                if (type == Cursor.FIELD_TYPE_INTEGER) {
+                    hash = mix(hash, cursor.getLong(column));
+                } else if (type == Cursor.FIELD_TYPE_FLOAT) {
+                    hash = mix(hash, Double.doubleToLongBits(cursor.getDouble(column)));
+                } else if (type == Cursor.FIELD_TYPE_STRING) {
+                    String value = cursor.getString(column);
+                    for (int i = 0; i < value.length(); i++) {
+                        hash = mix(hash, value.charAt(i));
+                    }
+                } else if (type == Cursor.FIELD_TYPE_BLOB) {
+                    for (byte value : cursor.getBlob(column)) {
+                        hash = mix(hash, value);
+                    }
+                }
+            }
+            return hash;
+        }
+
+        private static long mix(long hash, long value) {
+            return (hash ^ value) * 0x100000001b3L;
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            int[] array = new int[size];
+            System.arraycopy(values, 0, array, 0, size);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+import java.io.Closeable;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of the models in a response cursor. A row is decoded by the {@link ResponseAdapter}
+ * only when its element is accessed, and is not kept, so rows that are never read are never decoded.
+ *
+ * <p>The list reads from the open cursor, so it must be closed once done with.</p>
+ */
+public class ModelList<T> extends AbstractList<T> implements RandomAccess, Closeable {
+
+    private final Cursor cursor;
+    private final Class<T> modelClass;
+    private final ResponseAdapter responseAdapter;
+
+    private boolean recycle;
+    private T recycled;
+
+    ModelList(Cursor cursor, Class<T> modelClass, ResponseAdapter responseAdapter) {
+        this.cursor = cursor;
+        this.modelClass = modelClass;
+        this.responseAdapter = responseAdapter;
+    }
+
+    /**
+     * Reads every element into the same model instance instead of a new one, for callers that
+     * only look at one element at a time, eg, while binding views.
+     *
+     * @throws IllegalStateException if the list's {@link ResponseAdapter} is not a
+     *     {@link RecyclingResponseAdapter}.
+     *
+     * @return {@link ModelList} for fluent interface.
+     */
+    public ModelList<T> recycleModels() {
+        if (!(responseAdapter instanceof RecyclingResponseAdapter)) {
+            throw new IllegalStateException("Response adapter cannot recycle models ("
+                    + responseAdapter.getClass().getName() + ")");
+        }
+        this.recycle = true;
+        return this;
+    }
+
+    @Override
+    public T get(int index) {
+        if (cursor == null || !cursor.moveToPosition(index)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (recycle) {
+            recycled = ((RecyclingResponseAdapter) responseAdapter).toModel(cursor, modelClass, recycled);
+            return recycled;
+        }
+        return responseAdapter.toModel(cursor, modelClass);
+    }
+
+    @Override
+    public int size() {
+        return cursor == null ? 0 : cursor.getCount();
+    }
+
+    public Cursor getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public void close() {
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+}
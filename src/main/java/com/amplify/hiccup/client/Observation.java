@@ -0,0 +1,148 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps a list of the models at a Uri up to date, querying it again on the client's executor
+ * whenever the Uri is notified. Queries run one at a time, and notifications that arrive during a
+ * query are folded into a single follow-up query, so under load observers see the latest list
+ * rather than every intermediate one. Queries that follow a notification never share a GET that
+ * was in flight when it arrived, see {@link GetCoalescer}.
+ *
+ * @see HiccupClient#observe(Uri, Class, Observer)
+ */
+public class Observation<T> implements Closeable {
+
+    /**
+     * Called on the executor thread, one call at a time.
+     */
+    public interface Observer<T> {
+        /**
+         * @param models the current list, open until the next call or until the observation is
+         *     closed, so it must not be closed by the observer.
+         * @param diff what changed since the previous list. The first list is reported as inserted.
+         */
+        void onChanged(ModelList<T> models, ListDiff diff);
+
+        void onFailure(Throwable throwable);
+    }
+
+    /**
+     * Queries the list, off the main thread.
+     */
+    interface Query<T> {
+        ModelList<T> run();
+    }
+
+    private final ContentResolver contentResolver;
+    private final Uri uri;
+    private final Query<T> query;
+    private final GetCoalescer gets;
+    private final Observer<T> observer;
+    private final ContentObserver contentObserver;
+    private final CoalescingRunner loader;
+
+    private ModelList<T> current;
+    private ListDiff.Snapshot snapshot;
+
+    /**
+     * @param gets the coalescer of the GETs {@code query} makes, told of notifications before the
+     *     list is queried again.
+     */
+    Observation(ContentResolver contentResolver, final Uri uri, Query<T> query, final GetCoalescer gets, Executor executor,
+                Observer<T> observer) {
+        this.contentResolver = contentResolver;
+        this.uri = uri;
+        this.query = query;
+        this.gets = gets;
+        this.observer = observer;
+        this.contentObserver = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                gets.invalidate(uri.getAuthority());
+                requestLoad();
+            }
+        };
+        this.loader = new CoalescingRunner(executor, new Runnable() {
+            @Override
+            public void run() {
+                loadOnce();
+            }
+        });
+    }
+
+    /**
+     * Registers for notifications, and loads the initial list.
+     */
+    void start() {
+        contentResolver.registerContentObserver(uri, true, contentObserver);
+        requestLoad();
+    }
+
+    /**
+     * Stops observing and closes the current list. A query in progress completes, but its list is
+     * not delivered.
+     */
+    @Override
+    public void close() {
+        if (!loader.close()) {
+            return;
+        }
+        contentResolver.unregisterContentObserver(contentObserver);
+        ModelList<T> models;
+        synchronized (this) {
+            models = current;
+            current = null;
+        }
+        closeQuietly(models);
+    }
+
+    void requestLoad() {
+        loader.request();
+    }
+
+    private void loadOnce() {
+        ModelList<T> models;
+        ListDiff.Snapshot next;
+        try {
+            models = query.run();
+            next = ListDiff.Snapshot.of(models.getCursor());
+        } catch (RuntimeException e) {
+            if (!loader.isClosed()) {
+                observer.onFailure(e);
+            }
+            return;
+        }
+        ListDiff diff = ListDiff.between(snapshot, next);
+        boolean first = snapshot == null;
+        snapshot = next;
+        if (!first && diff.isEmpty()) {
+            closeQuietly(models);
+            return;
+        }
+        ModelList<T> previous;
+        synchronized (this) {
+            if (loader.isClosed()) {
+                previous = models;
+            } else {
+                previous = current;
+                current = models;
+            }
+        }
+        if (previous != models) {
+            observer.onChanged(models, diff);
+        }
+        closeQuietly(previous);
+    }
+
+    private static void closeQuietly(ModelList<?> models) {
+        if (models != null) {
+            models.close();
+        }
+    }
+}
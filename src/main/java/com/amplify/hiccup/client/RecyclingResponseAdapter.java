@@ -0,0 +1,16 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+/**
+ * {@link ResponseAdapter} that can read a row into an existing model rather than a new one.
+ *
+ * @see ModelList#recycleModels()
+ */
+public interface RecyclingResponseAdapter extends ResponseAdapter {
+
+    /**
+     * @param model the instance to read the current row into, or null to create one.
+     */
+    <T> T toModel(Cursor cursor, Class<T> modelClass, T model);
+}
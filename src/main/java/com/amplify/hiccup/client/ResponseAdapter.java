@@ -0,0 +1,7 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+
+public interface ResponseAdapter {
+    <T> T toModel(Cursor cursor, Class<T> modelClass);
+}
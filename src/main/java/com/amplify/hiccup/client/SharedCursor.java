@@ -0,0 +1,195 @@
+package com.amplify.hiccup.client;
+
+import android.database.AbstractCursor;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.os.Bundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reference counted cursor handed to several callers through independent views. Each view keeps
+ * its own position and moves the shared cursor to it for every read, and the shared cursor is
+ * closed when the last view is.
+ */
+class SharedCursor {
+
+    private final Cursor cursor;
+
+    private int references;
+
+    SharedCursor(Cursor cursor, int references) {
+        this.cursor = cursor;
+        this.references = references;
+    }
+
+    Cursor newView() {
+        return new View();
+    }
+
+    synchronized void release() {
+        references--;
+        if (references == 0) {
+            cursor.close();
+        }
+    }
+
+    synchronized int references() {
+        return references;
+    }
+
+    private class View extends AbstractCursor {
+
+        private final List<ContentObserver> contentObservers = new ArrayList<ContentObserver>();
+        private final List<DataSetObserver> dataSetObservers = new ArrayList<DataSetObserver>();
+
+        @Override
+        public int getCount() {
+            synchronized (SharedCursor.this) {
+                return cursor.getCount();
+            }
+        }
+
+        @Override
+        public String[] getColumnNames() {
+            synchronized (SharedCursor.this) {
+                return cursor.getColumnNames();
+            }
+        }
+
+        @Override
+        public int getType(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getType(column);
+            }
+        }
+
+        @Override
+        public String getString(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getString(column);
+            }
+        }
+
+        @Override
+        public byte[] getBlob(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getBlob(column);
+            }
+        }
+
+        @Override
+        public short getShort(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getShort(column);
+            }
+        }
+
+        @Override
+        public int getInt(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getInt(column);
+            }
+        }
+
+        @Override
+        public long getLong(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getLong(column);
+            }
+        }
+
+        @Override
+        public float getFloat(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getFloat(column);
+            }
+        }
+
+        @Override
+        public double getDouble(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().getDouble(column);
+            }
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            synchronized (SharedCursor.this) {
+                return moved().isNull(column);
+            }
+        }
+
+        @Override
+        public Bundle getExtras() {
+            synchronized (SharedCursor.this) {
+                return cursor.getExtras();
+            }
+        }
+
+        /**
+         * Observers are registered with the shared cursor, so views see the provider's notifications.
+         */
+        @Override
+        public void registerContentObserver(ContentObserver observer) {
+            synchronized (SharedCursor.this) {
+                cursor.registerContentObserver(observer);
+                contentObservers.add(observer);
+            }
+        }
+
+        @Override
+        public void unregisterContentObserver(ContentObserver observer) {
+            synchronized (SharedCursor.this) {
+                if (contentObservers.remove(observer)) {
+                    cursor.unregisterContentObserver(observer);
+                }
+            }
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            synchronized (SharedCursor.this) {
+                cursor.registerDataSetObserver(observer);
+                dataSetObservers.add(observer);
+            }
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            synchronized (SharedCursor.this) {
+                if (dataSetObservers.remove(observer)) {
+                    cursor.unregisterDataSetObserver(observer);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (SharedCursor.this) {
+                if (isClosed()) {
+                    return;
+                }
+                super.close();
+                for (ContentObserver observer : contentObservers) {
+                    cursor.unregisterContentObserver(observer);
+                }
+                for (DataSetObserver observer : dataSetObservers) {
+                    cursor.unregisterDataSetObserver(observer);
+                }
+                contentObservers.clear();
+                dataSetObservers.clear();
+                release();
+            }
+        }
+
+        private Cursor moved() {
+            if (cursor.getPosition() != getPosition()) {
+                cursor.moveToPosition(getPosition());
+            }
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.os.ParcelFileDescriptor;
+
+import com.amplify.hiccup.shared.StreamedBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Wraps a response cursor whose large bodies were left out of the window by the service, and reads
+ * them through a pipe when their row is read, so callers see the body column as usual.
+ */
+class StreamedBodyCursor extends CursorWrapper {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ContentResolver contentResolver;
+    private final String authority;
+    private final int bodyColumn;
+    private final int streamColumn;
+
+    private int bodyPosition = -1;
+    private Object body;
+
+    StreamedBodyCursor(Cursor cursor, ContentResolver contentResolver, String authority) {
+        super(cursor);
+        this.contentResolver = contentResolver;
+        this.authority = authority;
+        this.streamColumn = cursor.getColumnIndex(StreamedBody.STREAM_COLUMN);
+        this.bodyColumn = cursor.getColumnIndex("body");
+    }
+
+    /**
+     * Returns true if {@code cursor} may have streamed bodies, without relying on
+     * {@link Cursor#getColumnIndex(String)} of unknown cursors.
+     */
+    static boolean hasStreamColumn(Cursor cursor) {
+        String[] columnNames = cursor.getColumnNames();
+        if (columnNames != null) {
+            for (String columnName : columnNames) {
+                if (StreamedBody.STREAM_COLUMN.equals(columnName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getType(int column) {
+        if (column == bodyColumn && streamToken() != null) {
+            return StreamedBody.isBlobToken(streamToken()) ? Cursor.FIELD_TYPE_BLOB : Cursor.FIELD_TYPE_STRING;
+        }
+        return super.getType(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        if (column == bodyColumn && streamToken() != null) {
+            return false;
+        }
+        return super.isNull(column);
+    }
+
+    @Override
+    public String getString(int column) {
+        if (column == bodyColumn && streamToken() != null) {
+            Object value = streamedBody();
+            return value instanceof byte[] ? new String((byte[]) value, UTF_8) : (String) value;
+        }
+        return super.getString(column);
+    }
+
+    @Override
+    public void copyStringToBuffer(int column, CharArrayBuffer buffer) {
+        if (column == bodyColumn && streamToken() != null) {
+            String value = getString(column);
+            if (buffer.data == null || buffer.data.length < value.length()) {
+                buffer.data = value.toCharArray();
+            } else {
+                value.getChars(0, value.length(), buffer.data, 0);
+            }
+            buffer.sizeCopied = value.length();
+            return;
+        }
+        super.copyStringToBuffer(column, buffer);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        if (column == bodyColumn && streamToken() != null) {
+            Object value = streamedBody();
+            return value instanceof String ? ((String) value).getBytes(UTF_8) : (byte[]) value;
+        }
+        return super.getBlob(column);
+    }
+
+    private String streamToken() {
+        return super.getString(streamColumn);
+    }
+
+    private Object streamedBody() {
+        if (getPosition() != bodyPosition) {
+            body = readStream(streamToken());
+            bodyPosition = getPosition();
+        }
+        return body;
+    }
+
+    private Object readStream(String token) {
+        InputStream inputStream = null;
+        try {
+            ParcelFileDescriptor stream = contentResolver.openFileDescriptor(StreamedBody.streamUri(authority, token), "r");
+            inputStream = new ParcelFileDescriptor.AutoCloseInputStream(stream);
+            return StreamedBody.isBlobToken(token) ? StreamedBody.readBlob(inputStream) : StreamedBody.readText(inputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read streamed body (" + token + ")", e);
+        } finally {
+            StreamedBody.closeQuietly(inputStream);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.amplify.hiccup.service;
+
+import android.database.Cursor;
+
+import com.amplify.hiccup.shared.BinaryBody;
+import com.amplify.hiccup.shared.JsonConverter;
+
+/**
+ * {@link HttpContentAdapter} that responds with compact {@link BinaryBody} blobs in the body column
+ * instead of JSON text. Routes opt in by giving their controller this adapter; clients tell the
+ * encoding apart by the body column's type.
+ *
+ * <p>Request bodies are accepted in either encoding, JSON ones only if a {@link JsonConverter} is given.</p>
+ */
+public class BinaryContentAdapter extends HttpContentAdapter {
+
+    public BinaryContentAdapter() {
+        this(null);
+    }
+
+    public BinaryContentAdapter(JsonConverter jsonConverter) {
+        super(jsonConverter);
+    }
+
+    @Override
+    public Cursor toCursor(Iterable<Object> result) {
+        return new LazyBodyCursor(COLUMNS, result, LazyBodyCursor.binary());
+    }
+}
@@ -0,0 +1,56 @@
+package com.amplify.hiccup.service;
+
+import com.amplify.hiccup.shared.StreamedBody;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Response bodies waiting to be streamed to the client, by token. Only the model and its encoder
+ * are kept, and the body is encoded again each time it is streamed, so it is held only while its
+ * pipe is written. A body can be fetched again while its row is revisited, until the cursor that
+ * registered it is closed and releases it.
+ */
+class BodyStreams {
+
+    private final ConcurrentMap<String, Source> sources = new ConcurrentHashMap<String, Source>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final String prefix = Long.toHexString(new SecureRandom().nextLong());
+
+    /**
+     * @param body the encoded body of {@code model}, which tells the kind of token.
+     */
+    String register(Object model, LazyBodyCursor.BodyEncoder bodyEncoder, Object body) {
+        String token = StreamedBody.newToken(body, prefix + "-" + nextId.incrementAndGet());
+        sources.put(token, new Source(model, bodyEncoder));
+        return token;
+    }
+
+    /**
+     * Returns the body registered with {@code token}, encoded anew, or null if there is none.
+     */
+    Object get(String token) {
+        Source source = sources.get(token);
+        return source == null ? null : source.bodyEncoder.encode(source.model);
+    }
+
+    void release(String token) {
+        sources.remove(token);
+    }
+
+    int size() {
+        return sources.size();
+    }
+
+    private static class Source {
+        final Object model;
+        final LazyBodyCursor.BodyEncoder bodyEncoder;
+
+        Source(Object model, LazyBodyCursor.BodyEncoder bodyEncoder) {
+            this.model = model;
+            this.bodyEncoder = bodyEncoder;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.net.Uri;
+
+/**
+ * A {@link Controller} that creates several resources of a collection at once, eg, in a single
+ * transaction, for bulk POSTs sent by
+ * {@link com.amplify.hiccup.client.HiccupClient#postAll(android.net.Uri, android.content.ContentValues[])}.
+ *
+ * <p>Bulk POSTs to controllers that are not bulk controllers are dispatched as one
+ * {@link Controller#post(android.net.Uri, android.content.ContentValues)} per resource instead.
+ * Interceptors forward bulk POSTs either way, see {@link ForwardingController}.</p>
+ */
+public interface BulkController extends Controller {
+
+    /**
+     * @return the number of resources created.
+     */
+    int postAll(Uri uri, ContentValues[] contentValues);
+}
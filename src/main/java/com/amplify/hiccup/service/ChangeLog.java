@@ -0,0 +1,75 @@
+package com.amplify.hiccup.service;
+
+import android.net.Uri;
+
+import com.amplify.hiccup.shared.Change;
+import com.amplify.hiccup.shared.ChangeFeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded, in-memory log of the most recent changes, read by clients as the change feed. Readers
+ * that fall further behind than the log's capacity get an incomplete page and must start over.
+ *
+ * <p>Versions start from the wall clock in microseconds rather than 0, so they keep increasing
+ * across provider restarts and readers of a previous process see a gap instead of unrelated
+ * changes.</p>
+ */
+class ChangeLog {
+
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final Change[] changes;
+    private final long initialVersion;
+
+    private long version;
+
+    ChangeLog(int capacity) {
+        this(capacity, System.currentTimeMillis() * 1000);
+    }
+
+    ChangeLog(int capacity, long initialVersion) {
+        this.changes = new Change[capacity];
+        this.initialVersion = initialVersion;
+        this.version = initialVersion;
+    }
+
+    synchronized long append(Uri uri, Change.Operation operation) {
+        version++;
+        changes[slotOf(version)] = new Change(uri, operation, version);
+        return version;
+    }
+
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Returns the changes at or below {@code uri}, or to its ancestors, recorded after {@code since},
+     * or only the current version if {@code since} is negative.
+     */
+    synchronized ChangeFeed.Page since(Uri uri, long since) {
+        if (since < 0) {
+            return new ChangeFeed.Page(Collections.<Change>emptyList(), version, true);
+        }
+        long oldest = Math.max(version - changes.length, initialVersion) + 1;
+        if (since > version || since + 1 < oldest) {
+            return new ChangeFeed.Page(Collections.<Change>emptyList(), version, false);
+        }
+        List<Change> page = new ArrayList<Change>();
+        for (long v = since + 1; v <= version; v++) {
+            Change change = changes[slotOf(v)];
+            if (ChangeNotifier.isAncestorOrSelf(uri, change.getUri())
+                    || ChangeNotifier.isAncestorOrSelf(change.getUri(), uri)) {
+                page.add(change);
+            }
+        }
+        return new ChangeFeed.Page(page, version, true);
+    }
+
+    private int slotOf(long version) {
+        return (int) (version % changes.length);
+    }
+}
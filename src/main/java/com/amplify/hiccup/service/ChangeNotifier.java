@@ -0,0 +1,271 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import com.amplify.hiccup.shared.Change;
+import com.amplify.hiccup.shared.ChangeFeed;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifies observers of the Uris controllers report as changed, coalescing them so that many writes
+ * wake each observer once.
+ *
+ * <p>Changes reported while {@link HiccupService} dispatches a request are held until the request
+ * completes, and those reported during a batch until the whole batch completes. They are then
+ * reduced to the minimal set of Uris, ie, without query strings, duplicates, and Uris whose
+ * ancestor also changed, since notifying a Uri also notifies observers of its descendants. With a
+ * time window, changes are further held and merged for up to that long after the first of them.</p>
+ *
+ * <p>Every change is also recorded, uncoalesced, in the change feed that clients read with
+ * {@link com.amplify.hiccup.client.HiccupClient#subscribe(android.net.Uri, com.amplify.hiccup.client.ChangeSubscription.Listener)},
+ * so they can apply what changed instead of fetching whole collections again. Changes are recorded
+ * when their request or batch completes. If it failed, eg, a batch that was rolled back, its changes
+ * are recorded as {@link Change.Operation#INVALIDATE} instead, since what was written, if
+ * anything, is not known. Writes the service dispatches whose controller reports no change at,
+ * above or below their Uri are recorded as invalidations of it too, so that the feed tells of
+ * every write the service dispatched, not only of those controllers reported.</p>
+ *
+ * @see HiccupService#notifyChanges(android.content.ContentResolver, long)
+ */
+public class ChangeNotifier {
+
+    private static final Comparator<Uri> BY_DEPTH = new Comparator<Uri>() {
+        @Override
+        public int compare(Uri a, Uri b) {
+            return a.getPathSegments().size() - b.getPathSegments().size();
+        }
+    };
+
+    private final ContentResolver contentResolver;
+    private final long windowMillis;
+    private final ChangeLog changeLog;
+    private final ThreadLocal<Scope> scope = new ThreadLocal<Scope>();
+    private final Set<Uri> windowed = new LinkedHashSet<Uri>();
+
+    private ScheduledExecutorService scheduler;
+    private boolean flushScheduled;
+    private volatile ChangeListener changeListener;
+
+    ChangeNotifier(ContentResolver contentResolver, long windowMillis) {
+        this(contentResolver, windowMillis, new ChangeLog(ChangeLog.DEFAULT_CAPACITY));
+    }
+
+    ChangeNotifier(ContentResolver contentResolver, long windowMillis, ChangeLog changeLog) {
+        this.contentResolver = contentResolver;
+        this.windowMillis = windowMillis;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Reports that the resources at {@code uri}, and below it, changed, without saying how, so
+     * readers of the change feed must fetch them again. Controllers call this instead of
+     * {@link ContentResolver#notifyChange(android.net.Uri, android.database.ContentObserver)}.
+     *
+     * @see #notifyChange(android.net.Uri, com.amplify.hiccup.shared.Change.Operation)
+     */
+    public void notifyChange(Uri uri) {
+        notifyChange(uri, Change.Operation.INVALIDATE);
+    }
+
+    /**
+     * Reports that the resource at {@code uri} was created, updated or deleted.
+     */
+    public void notifyChange(Uri uri, Change.Operation operation) {
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onChange(uri);
+        }
+        Scope current = scope.get();
+        if (current != null) {
+            current.changes.add(new Change(uri, operation, 0));
+        } else {
+            changeLog.append(uri, operation);
+            emit(Collections.singleton(uri));
+        }
+    }
+
+    /**
+     * Notifies the changes held for the time window now, eg, at the end of a sync.
+     */
+    public void flush() {
+        List<Uri> changes;
+        synchronized (this) {
+            changes = new ArrayList<Uri>(windowed);
+            windowed.clear();
+            flushScheduled = false;
+        }
+        notifyObservers(changes);
+    }
+
+    /**
+     * Starts holding the changes reported on this thread. Scopes nest, eg, the requests dispatched
+     * by a batch, and changes are emitted when the outermost one ends.
+     */
+    void begin() {
+        Scope current = scope.get();
+        if (current == null) {
+            current = new Scope();
+            scope.set(current);
+        }
+        current.starts.add(current.changes.size());
+    }
+
+    /**
+     * Records the write of {@code uri} dispatched in the scope begun last on this thread as an
+     * invalidation of it, unless a change at, above or below it was reported during that scope.
+     */
+    void recordWrite(Uri uri) {
+        Scope current = scope.get();
+        List<Change> reported = current.changes.subList(current.starts.get(current.starts.size() - 1), current.changes.size());
+        for (Change change : reported) {
+            if (isAncestorOrSelf(change.getUri(), uri) || isAncestorOrSelf(uri, change.getUri())) {
+                return;
+            }
+        }
+        current.changes.add(new Change(uri, Change.Operation.INVALIDATE, 0));
+    }
+
+    /**
+     * Ends the scope begun last on this thread.
+     *
+     * @param successful false if the request or batch failed, in which case the changes of the
+     *     outermost scope are all recorded as invalidations.
+     */
+    void end(boolean successful) {
+        Scope current = scope.get();
+        if (!successful) {
+            current.failed = true;
+        }
+        current.starts.remove(current.starts.size() - 1);
+        if (current.starts.isEmpty()) {
+            scope.remove();
+            Set<Uri> uris = new LinkedHashSet<Uri>();
+            for (Change change : current.changes) {
+                if (current.failed) {
+                    changeLog.append(change.getUri(), Change.Operation.INVALIDATE);
+                } else {
+                    changeLog.append(change.getUri(), change.getOperation());
+                }
+                uris.add(change.getUri());
+            }
+            emit(uris);
+        }
+    }
+
+    /**
+     * Sets the listener told of every change as soon as it is reported, before it is held.
+     */
+    void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    ChangeFeed.Page changesSince(Uri uri, long since) {
+        return changeLog.since(uri, since);
+    }
+
+    private void emit(Collection<Uri> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (windowMillis <= 0) {
+            notifyObservers(changes);
+            return;
+        }
+        synchronized (this) {
+            windowed.addAll(changes);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                }, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void notifyObservers(Collection<Uri> changes) {
+        for (Uri uri : minimalSetOf(changes)) {
+            contentResolver.notifyChange(uri, null);
+        }
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "hiccup-notify");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scheduler;
+    }
+
+    static List<Uri> minimalSetOf(Collection<Uri> changes) {
+        List<Uri> candidates = new ArrayList<Uri>(changes.size());
+        for (Uri uri : changes) {
+            candidates.add(new Uri.Builder()
+                    .scheme(uri.getScheme())
+                    .authority(uri.getAuthority())
+                    .path(uri.getPath())
+                    .build());
+        }
+        Collections.sort(candidates, BY_DEPTH);
+        List<Uri> minimal = new ArrayList<Uri>();
+        for (Uri candidate : candidates) {
+            if (!hasAncestorOrSelf(minimal, candidate)) {
+                minimal.add(candidate);
+            }
+        }
+        return minimal;
+    }
+
+    private static boolean hasAncestorOrSelf(List<Uri> uris, Uri uri) {
+        for (Uri ancestor : uris) {
+            if (isAncestorOrSelf(ancestor, uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isAncestorOrSelf(Uri ancestor, Uri uri) {
+        if (!equal(ancestor.getScheme(), uri.getScheme()) || !equal(ancestor.getAuthority(), uri.getAuthority())) {
+            return false;
+        }
+        List<String> ancestorSegments = ancestor.getPathSegments();
+        List<String> segments = uri.getPathSegments();
+        return ancestorSegments.size() <= segments.size()
+                && ancestorSegments.equals(segments.subList(0, ancestorSegments.size()));
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    interface ChangeListener {
+        void onChange(Uri uri);
+    }
+
+    private static class Scope {
+        final List<Change> changes = new ArrayList<Change>();
+        final List<Integer> starts = new ArrayList<Integer>();
+        boolean failed;
+    }
+}
@@ -0,0 +1,50 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.provider.BaseColumns;
+
+import com.amplify.hiccup.shared.ModelCodec;
+
+/**
+ * {@link ContentAdapter} backed by a compile-time generated {@link ModelCodec}. It produces the same
+ * typed columns as {@link ColumnContentAdapter} without reflection or intermediate JSON.
+ *
+ * @see com.amplify.hiccup.shared.GenerateCodec
+ * @see com.amplify.hiccup.shared.Codecs#of(Class)
+ */
+public class CodecContentAdapter<R> implements ContentAdapter<R> {
+
+    private final ModelCodec<R> codec;
+    private final String[] columnNames;
+
+    public CodecContentAdapter(ModelCodec<R> codec) {
+        this.codec = codec;
+        String[] modelColumns = codec.getColumnNames();
+        this.columnNames = new String[modelColumns.length + 1];
+        this.columnNames[0] = BaseColumns._ID;
+        System.arraycopy(modelColumns, 0, columnNames, 1, modelColumns.length);
+    }
+
+    @Override
+    public Cursor toCursor(Iterable<R> result) {
+        MatrixCursor matrixCursor = new MatrixCursor(columnNames);
+        if (result == null) {
+            return matrixCursor;
+        }
+
+        for (R model : result) {
+            Object[] row = new Object[columnNames.length];
+            row[0] = matrixCursor.getCount() + 1;
+            codec.writeRow(model, row, 1);
+            matrixCursor.addRow(row);
+        }
+        return matrixCursor;
+    }
+
+    @Override
+    public R toModel(ContentValues contentValues, Class<? extends R> modelClass) {
+        return codec.fromValues(contentValues);
+    }
+}
@@ -0,0 +1,51 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.provider.BaseColumns;
+
+import com.amplify.hiccup.shared.ColumnPlan;
+
+/**
+ * {@link ContentAdapter} that flattens models into typed cursor columns, one per field, instead of
+ * a single JSON body column, so clients can read individual fields without parsing anything.
+ *
+ * @see ColumnPlan
+ * @see com.amplify.hiccup.client.ColumnResponseAdapter
+ */
+public class ColumnContentAdapter<R> implements ContentAdapter<R> {
+
+    private final ColumnPlan columnPlan;
+    private final String[] columnNames;
+
+    public ColumnContentAdapter(Class<R> modelClass) {
+        this.columnPlan = ColumnPlan.of(modelClass);
+        String[] modelColumns = columnPlan.getColumnNames();
+        this.columnNames = new String[modelColumns.length + 1];
+        this.columnNames[0] = BaseColumns._ID;
+        System.arraycopy(modelColumns, 0, columnNames, 1, modelColumns.length);
+    }
+
+    @Override
+    public Cursor toCursor(Iterable<R> result) {
+        MatrixCursor matrixCursor = new MatrixCursor(columnNames);
+        if (result == null) {
+            return matrixCursor;
+        }
+
+        for (R model : result) {
+            Object[] row = new Object[columnNames.length];
+            row[0] = matrixCursor.getCount() + 1;
+            columnPlan.writeRow(model, row, 1);
+            matrixCursor.addRow(row);
+        }
+        return matrixCursor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R toModel(ContentValues contentValues, Class<? extends R> modelClass) {
+        return (R) ColumnPlan.of(modelClass).fromValues(contentValues);
+    }
+}
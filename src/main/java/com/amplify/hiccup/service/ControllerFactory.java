@@ -0,0 +1,11 @@
+package com.amplify.hiccup.service;
+
+/**
+ * Creates the {@link Controller} for a route on its first request, so that registering routes in
+ * {@link android.content.ContentProvider#onCreate()} doesn't pay for constructing every controller.
+ *
+ * @see HiccupService#newRoute(String, ControllerFactory)
+ */
+public interface ControllerFactory {
+    Controller create();
+}
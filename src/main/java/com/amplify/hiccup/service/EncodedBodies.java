@@ -0,0 +1,104 @@
+package com.amplify.hiccup.service;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the bodies of the most recently encoded model instances, by identity and version, so
+ * the same unchanged instance served again is not encoded again. Models are weakly referenced, and
+ * their bodies dropped once they are collected, so the cache never keeps models alive.
+ */
+class EncodedBodies implements LazyBodyCursor.BodyEncoder {
+
+    private final LazyBodyCursor.BodyEncoder bodyEncoder;
+    private final ModelVersions modelVersions;
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+    private final LinkedHashMap<ModelKey, Body> bodies;
+
+    EncodedBodies(LazyBodyCursor.BodyEncoder bodyEncoder, ModelVersions modelVersions, final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.bodyEncoder = bodyEncoder;
+        this.modelVersions = modelVersions;
+        this.bodies = new LinkedHashMap<ModelKey, Body>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ModelKey, Body> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Object encode(Object model) {
+        Object version = model == null ? null : modelVersions.versionOf(model);
+        if (version == null) {
+            return bodyEncoder.encode(model);
+        }
+        synchronized (this) {
+            removeCollected();
+            Body body = bodies.get(new ModelKey(model, null));
+            if (body != null && body.version.equals(version)) {
+                return body.value;
+            }
+        }
+        Object value = bodyEncoder.encode(model);
+        synchronized (this) {
+            bodies.put(new ModelKey(model, collected), new Body(version, value));
+        }
+        return value;
+    }
+
+    synchronized int size() {
+        removeCollected();
+        return bodies.size();
+    }
+
+    private void removeCollected() {
+        Object key;
+        while ((key = collected.poll()) != null) {
+            bodies.remove(key);
+        }
+    }
+
+    /**
+     * Weak reference to a model, equal to references to the same instance.
+     */
+    private static class ModelKey extends WeakReference<Object> {
+        private final int hash;
+
+        ModelKey(Object model, ReferenceQueue<Object> queue) {
+            super(model, queue);
+            this.hash = System.identityHashCode(model);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ModelKey)) {
+                return false;
+            }
+            Object model = get();
+            return model != null && model == ((ModelKey) other).get();
+        }
+    }
+
+    private static class Body {
+        final Object version;
+        final Object value;
+
+        Body(Object version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * A {@link Controller} that forwards every verb to another controller. Subclasses override only
+ * the verbs they want to intercept.
+ *
+ * <p>Bulk POSTs are forwarded to {@link BulkController}s as such, and to other controllers as one
+ * POST per resource.</p>
+ *
+ * @see Interceptor
+ */
+public class ForwardingController implements BulkController {
+
+    private final Controller delegate;
+
+    public ForwardingController(Controller delegate) {
+        this.delegate = delegate;
+    }
+
+    protected Controller delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Cursor get(Uri uri) {
+        return delegate.get(uri);
+    }
+
+    @Override
+    public Uri post(Uri uri, ContentValues contentValues) {
+        return delegate.post(uri, contentValues);
+    }
+
+    @Override
+    public int put(Uri uri, ContentValues contentValues) {
+        return delegate.put(uri, contentValues);
+    }
+
+    @Override
+    public int delete(Uri uri) {
+        return delegate.delete(uri);
+    }
+
+    @Override
+    public int patch(Uri uri, ContentValues[] contentValues) {
+        return delegate.patch(uri, contentValues);
+    }
+
+    @Override
+    public int postAll(Uri uri, ContentValues[] contentValues) {
+        return postAll(delegate, uri, contentValues);
+    }
+
+    /**
+     * Dispatches a bulk POST to {@code controller} at once if it is a {@link BulkController}, or
+     * else as one POST per resource.
+     *
+     * @return the number of resources created.
+     */
+    static int postAll(Controller controller, Uri uri, ContentValues[] contentValues) {
+        if (controller instanceof BulkController) {
+            return ((BulkController) controller).postAll(uri, contentValues);
+        }
+        int count = 0;
+        for (ContentValues values : contentValues) {
+            if (controller.post(uri, values) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
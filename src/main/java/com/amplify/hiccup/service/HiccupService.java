@@ -1,18 +1,45 @@
 package com.amplify.hiccup.service;
 
+import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
 import android.content.ContentValues;
-import android.content.UriMatcher;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.net.Uri;
-import android.util.SparseArray;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.os.Parcelable;
+
+import com.amplify.hiccup.shared.ChangeFeed;
+import com.amplify.hiccup.shared.ConditionalGet;
+import com.amplify.hiccup.shared.StreamedBody;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class HiccupService {
 
+    private static final String FEED_VERSION_PREFIX = "feed:";
+
     private final String authority;
-    private final UriMatcher uriMatcher;
-    private final SparseArray<ControllerInfo> controllerMap;
+    private final RouteTrie routeTrie;
+    private final List<Interceptor> interceptors;
+    private final List<RouteMetrics> routeMetrics;
+    private final List<ResponseCache> responseCaches;
+    private final BodyStreams bodyStreams;
 
-    private int routeIdCounter;
+    private boolean metricsEnabled;
+    private boolean streamingEnabled;
+    private int streamThreshold;
+    private ChangeNotifier changeNotifier;
+    private ResourceLocks resourceLocks;
 
     /**
      * Creates a new instance of a Hiccup service with the given {@code authority}.
@@ -22,8 +49,127 @@ public class HiccupService {
      */
     public HiccupService(String authority) {
         this.authority = authority;
-        this.uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
-        this.controllerMap = new SparseArray<ControllerInfo>();
+        this.routeTrie = new RouteTrie();
+        this.interceptors = new ArrayList<Interceptor>();
+        this.routeMetrics = new ArrayList<RouteMetrics>();
+        this.responseCaches = new ArrayList<ResponseCache>();
+        this.bodyStreams = new BodyStreams();
+    }
+
+    /**
+     * Adds an {@link Interceptor} around the controllers of all routes registered after this call.
+     * Interceptors added first are outermost, and global interceptors wrap per-route ones.
+     *
+     * @return {@link HiccupService} for fluent interface.
+     *
+     * @see #newRoute(String, Controller, Interceptor...)
+     */
+    public HiccupService addInterceptor(Interceptor interceptor) {
+        interceptors.add(interceptor);
+        return this;
+    }
+
+    /**
+     * Records call counts, error counts and latency histograms per route and {@link Verb} for all
+     * routes registered after this call. Routes registered before it, or while metrics are not
+     * enabled, are dispatched without any instrumentation.
+     *
+     * @return {@link HiccupService} for fluent interface.
+     *
+     * @see #getMetrics()
+     */
+    public HiccupService enableMetrics() {
+        this.metricsEnabled = true;
+        return this;
+    }
+
+    /**
+     * Returns a snapshot of the metrics recorded so far, one per route and {@link Verb}
+     * that has been called at least once.
+     *
+     * @see #enableMetrics()
+     */
+    public List<MetricsSnapshot> getMetrics() {
+        List<MetricsSnapshot> snapshots = new ArrayList<MetricsSnapshot>();
+        for (RouteMetrics metrics : routeMetrics) {
+            snapshots.addAll(metrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Response bodies larger than {@code thresholdBytes}, as returned by {@link HttpContentAdapter},
+     * are streamed to the client through a pipe instead of being put in the cursor window, eg,
+     * above {@link StreamedBody#DEFAULT_THRESHOLD_BYTES}. Responses are not streamed by default.
+     *
+     * <p>Once enabled, responses of {@link HttpContentAdapter} have a {@link StreamedBody#STREAM_COLUMN}
+     * next to {@code _id} and {@code body}, for the tokens of streamed bodies, which
+     * {@link com.amplify.hiccup.client.HiccupClient} resolves. Clients reading the cursor otherwise
+     * see a null body for streamed rows.</p>
+     *
+     * <p>Streaming requires the {@link android.content.ContentProvider} to delegate
+     * {@link android.content.ContentProvider#openFile(android.net.Uri, String)} to
+     * {@link #delegateOpenFile(android.net.Uri, String)}.</p>
+     *
+     * @return {@link HiccupService} for fluent interface.
+     */
+    public HiccupService streamBodiesLargerThan(int thresholdBytes) {
+        this.streamingEnabled = true;
+        this.streamThreshold = thresholdBytes;
+        return this;
+    }
+
+    /**
+     * Dispatches the requests of all routes registered after this call under the given
+     * {@link ResourceLocks}: concurrent GETs, and exclusive writes, of each route or resource. The
+     * locks are innermost, so interceptors run outside of them.
+     *
+     * <p>Routes registered before this call are dispatched without locking, and controllers must
+     * then be thread-safe themselves.</p>
+     *
+     * @return {@link HiccupService} for fluent interface.
+     */
+    public HiccupService lockResources(ResourceLocks resourceLocks) {
+        this.resourceLocks = resourceLocks;
+        return this;
+    }
+
+    /**
+     * Makes the service responsible for change notifications: controllers report the Uris they
+     * change to {@link #getChangeNotifier()}, and observers are notified of the minimal set of them
+     * once the request, or batch, completes, instead of once per write.
+     *
+     * @param windowMillis how long to hold and merge changes after the first of them, in addition
+     *     to holding them for the request or batch, or 0 to notify as soon as it completes.
+     *
+     * @return {@link HiccupService} for fluent interface.
+     */
+    public HiccupService notifyChanges(ContentResolver contentResolver, long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Window must not be negative");
+        }
+        this.changeNotifier = new ChangeNotifier(contentResolver, windowMillis);
+        this.changeNotifier.setChangeListener(new ChangeNotifier.ChangeListener() {
+            @Override
+            public void onChange(Uri uri) {
+                invalidateResponses(uri);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Returns the notifier that controllers report changed Uris to.
+     *
+     * @throws IllegalStateException if change notifications are not enabled.
+     *
+     * @see #notifyChanges(android.content.ContentResolver, long)
+     */
+    public ChangeNotifier getChangeNotifier() {
+        if (changeNotifier == null) {
+            throw new IllegalStateException("Change notifications are not enabled");
+        }
+        return changeNotifier;
     }
 
     /**
@@ -32,20 +178,55 @@ public class HiccupService {
      *
      * <p>Routes would typically be added within {@link android.content.ContentProvider#onCreate()}.</p>
      *
+     * <p>Wild cards may be named, eg, {@code posts/{postId:#}/comments}, to have their values extracted
+     * while matching and handed to the controller through {@link PathParameters#current()}.</p>
+     *
      * @param path the path to match. * may be used as a wild card for any text, and # may
-     *     be used as a wild card for numbers.
+     *     be used as a wild card for numbers. {name:*} (or {name}) and {name:#} are their named forms.
      * @param controller the {@link Controller} that the service will delegate requests
      *     to for the given {@code path}.
      *
      * @return {@link HiccupService} for fluent interface.
      */
     public HiccupService newRoute(String path, Controller controller) {
-        routeIdCounter++;
-        String adjustedPath = removeLeadingSlashForUriMatcherPreJellyBeanMR2(path);
-        uriMatcher.addURI(authority, adjustedPath, routeIdCounter);
-        ControllerInfo controllerInfo = new ControllerInfo(controller);
-        controllerMap.put(routeIdCounter, controllerInfo);
-        return this;
+        return addRoute(new ControllerInfo(path, controller, newInterceptorChain(path)));
+    }
+
+    /**
+     * Registers a {@link Controller} wrapped by the given {@link Interceptor}s to handle requests
+     * for a given path. The first interceptor is outermost.
+     *
+     * @see #newRoute(String, Controller)
+     * @see #addInterceptor(Interceptor)
+     */
+    public HiccupService newRoute(String path, Controller controller, Interceptor... routeInterceptors) {
+        return addRoute(new ControllerInfo(path, controller, newInterceptorChain(path, routeInterceptors)));
+    }
+
+    /**
+     * Registers a {@link ControllerFactory} to lazily create the {@link Controller} that handles
+     * requests for a given path. The factory is called at most once, on the first request
+     * dispatched to the route, even when requests arrive concurrently.
+     *
+     * @param path the path to match, as in {@link #newRoute(String, Controller)}.
+     * @param controllerFactory creates the {@link Controller} that the service will delegate
+     *     requests to for the given {@code path}.
+     *
+     * @return {@link HiccupService} for fluent interface.
+     */
+    public HiccupService newRoute(String path, ControllerFactory controllerFactory) {
+        return addRoute(new ControllerInfo(path, controllerFactory, newInterceptorChain(path)));
+    }
+
+    /**
+     * Registers a {@link ControllerFactory} whose {@link Controller} is wrapped by the given
+     * {@link Interceptor}s once created. The first interceptor is outermost.
+     *
+     * @see #newRoute(String, ControllerFactory)
+     * @see #addInterceptor(Interceptor)
+     */
+    public HiccupService newRoute(String path, ControllerFactory controllerFactory, Interceptor... routeInterceptors) {
+        return addRoute(new ControllerInfo(path, controllerFactory, newInterceptorChain(path, routeInterceptors)));
     }
 
     /**
@@ -67,9 +248,18 @@ public class HiccupService {
      *     that handled the request.
      */
     public Cursor delegateQuery(Uri uri) {
-        ControllerInfo controllerInfo = getControllerInfo(uri);
-        Controller controller = controllerInfo.controller;
-        return controller.get(uri);
+        RouteTrie.Match match = getMatch(uri);
+        PathParameters previous = PathParameters.enter(match.parameters);
+        Cursor cursor;
+        try {
+            cursor = match.controllerInfo.controller().get(uri);
+        } finally {
+            PathParameters.exit(previous);
+        }
+        if (streamingEnabled && cursor instanceof LazyBodyCursor) {
+            ((LazyBodyCursor) cursor).streamBodiesLargerThan(streamThreshold, bodyStreams);
+        }
+        return cursor;
     }
 
     /**
@@ -88,9 +278,20 @@ public class HiccupService {
      *     that handled the request.
      */
     public Uri delegateInsert(Uri uri, ContentValues contentValues) {
-        ControllerInfo controllerInfo = getControllerInfo(uri);
-        Controller controller = controllerInfo.controller;
-        return controller.post(uri, contentValues);
+        RouteTrie.Match match = getMatch(uri);
+        PathParameters previous = PathParameters.enter(match.parameters);
+        beginChanges();
+        boolean successful = false;
+        try {
+            Uri result = match.controllerInfo.controller().post(uri, contentValues);
+            successful = true;
+            return result;
+        } finally {
+            invalidateResponses(uri);
+            recordWrite(uri);
+            endChanges(successful);
+            PathParameters.exit(previous);
+        }
     }
 
     /**
@@ -111,9 +312,20 @@ public class HiccupService {
      *     {@link Controller#post(android.net.Uri, android.content.ContentValues)} that handled the request.
      */
     public int delegateUpdate(Uri uri, ContentValues contentValues) {
-        ControllerInfo controllerInfo = getControllerInfo(uri);
-        Controller controller = controllerInfo.controller;
-        return controller.put(uri, contentValues);
+        RouteTrie.Match match = getMatch(uri);
+        PathParameters previous = PathParameters.enter(match.parameters);
+        beginChanges();
+        boolean successful = false;
+        try {
+            int result = match.controllerInfo.controller().put(uri, contentValues);
+            successful = true;
+            return result;
+        } finally {
+            invalidateResponses(uri);
+            recordWrite(uri);
+            endChanges(successful);
+            PathParameters.exit(previous);
+        }
     }
 
     /**
@@ -135,9 +347,20 @@ public class HiccupService {
      *     {@link Controller#delete(android.net.Uri)} that handled the request.
      */
     public int delegateDelete(Uri uri) {
-        ControllerInfo controllerInfo = getControllerInfo(uri);
-        Controller controller = controllerInfo.controller;
-        return controller.delete(uri);
+        RouteTrie.Match match = getMatch(uri);
+        PathParameters previous = PathParameters.enter(match.parameters);
+        beginChanges();
+        boolean successful = false;
+        try {
+            int result = match.controllerInfo.controller().delete(uri);
+            successful = true;
+            return result;
+        } finally {
+            invalidateResponses(uri);
+            recordWrite(uri);
+            endChanges(successful);
+            PathParameters.exit(previous);
+        }
     }
 
     /**
@@ -158,31 +381,461 @@ public class HiccupService {
      * @see <a href="http://tools.ietf.org/html/rfc6902">http://tools.ietf.org/html/rfc6902</a>
      */
     public int delegatePatch(Uri uri, ContentValues[] contentValues) {
-        ControllerInfo controllerInfo = getControllerInfo(uri);
-        Controller controller = controllerInfo.controller;
-        return controller.patch(uri, contentValues);
+        RouteTrie.Match match = getMatch(uri);
+        PathParameters previous = PathParameters.enter(match.parameters);
+        beginChanges();
+        boolean successful = false;
+        try {
+            int result = match.controllerInfo.controller().patch(uri, contentValues);
+            successful = true;
+            return result;
+        } finally {
+            invalidateResponses(uri);
+            recordWrite(uri);
+            endChanges(successful);
+            PathParameters.exit(previous);
+        }
     }
 
-    ControllerInfo getControllerInfo(Uri uri) {
-        int uriId = uriMatcher.match(uri);
-        if (uriId == -1) {
-            throw new IllegalArgumentException("Path does not match any route (" + uri.getPath() + ")");
+    /**
+     * Delegates to the appropriate {@link BulkController#postAll(android.net.Uri, android.content.ContentValues[])}
+     * for a matching route registered in {@link #newRoute(String, Controller)}, or to its
+     * {@link Controller#post(android.net.Uri, android.content.ContentValues)} once per resource if
+     * the controller is not a {@link BulkController}.
+     *
+     * <p>Bulk POSTs are sent by {@link com.amplify.hiccup.client.HiccupClient#postAll(android.net.Uri, android.content.ContentValues[])}
+     * through {@link android.content.ContentProvider#call(String, String, android.os.Bundle)}, see
+     * {@link #delegateCall(android.content.ContentProvider, String, String, android.os.Bundle)}.</p>
+     *
+     * @param uri the uri of the collection.
+     * @param contentValues the values of each resource to create.
+     *
+     * @throws IllegalArgumentException if no route exists to handle the request.
+     *
+     * @return int the number of resources created.
+     */
+    public int delegatePostAll(Uri uri, ContentValues[] contentValues) {
+        RouteTrie.Match match = getMatch(uri);
+        PathParameters previous = PathParameters.enter(match.parameters);
+        beginChanges();
+        boolean successful = false;
+        try {
+            int result = ForwardingController.postAll(match.controllerInfo.controller(), uri, contentValues);
+            successful = true;
+            return result;
+        } finally {
+            invalidateResponses(uri);
+            recordWrite(uri);
+            endChanges(successful);
+            PathParameters.exit(previous);
+        }
+    }
+
+    /**
+     * Applies a batch of operations, eg, one submitted by {@link com.amplify.hiccup.client.BatchRequest},
+     * with a single transaction per {@link TransactionalController} the operations are routed to
+     * instead of one per operation.
+     *
+     * <p>This method would typically be called from within
+     * {@link android.content.ContentProvider#applyBatch(java.util.ArrayList)}, passing the provider
+     * itself, whose {@code insert}, {@code update} and {@code delete} delegate to this service.</p>
+     *
+     * <p>The routes of all operations are resolved before any is applied, and the operations'
+     * controllers are grouped so each transactional one begins and ends its batch exactly once.
+     * Operations are then applied in order, so back references keep working. Controllers that are
+     * not transactional apply each operation as they would outside of a batch. Before each
+     * operation that allows yielding, every {@link YieldingController} may yield its transaction.
+     * Changes reported to the {@link ChangeNotifier} are notified once the whole batch has been
+     * applied.</p>
+     *
+     * @param provider the provider the operations are applied to.
+     * @param operations the operations to apply, in order.
+     *
+     * @throws IllegalArgumentException if no route exists for one of the operations, in which case
+     *     none is applied.
+     * @throws OperationApplicationException if an operation fails, after every transactional
+     *     controller has ended its batch unsuccessfully.
+     *
+     * @return the results of the operations, in order.
+     */
+    public ContentProviderResult[] delegateApplyBatch(ContentProvider provider, ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        List<TransactionalController> transactions = transactionsOf(operations);
+        int begun = 0;
+        boolean successful = false;
+        beginChanges();
+        try {
+            for (; begun < transactions.size(); begun++) {
+                transactions.get(begun).beginBatch();
+            }
+            ContentProviderResult[] results = new ContentProviderResult[operations.size()];
+            for (int i = 0; i < operations.size(); i++) {
+                if (i > 0 && operations.get(i).isYieldAllowed()) {
+                    yieldBatches(transactions);
+                }
+                results[i] = operations.get(i).apply(provider, results, i);
+            }
+            successful = true;
+            return results;
+        } finally {
+            try {
+                endBatches(transactions, begun, successful);
+            } finally {
+                endChanges(successful);
+            }
+        }
+    }
+
+    /**
+     * Opens the pipe a large response body is streamed through, for the uri a client builds from the
+     * token found in its cursor.
+     *
+     * <p>This method would typically be called from within
+     * {@link android.content.ContentProvider#openFile(android.net.Uri, String)}.</p>
+     *
+     * @throws FileNotFoundException if the uri is not a stream of this service, or the cursor
+     *     its body belongs to was closed.
+     *
+     * @see #streamBodiesLargerThan(int)
+     */
+    public ParcelFileDescriptor delegateOpenFile(Uri uri, String mode) throws FileNotFoundException {
+        String token = authority.equals(uri.getAuthority()) ? StreamedBody.tokenOf(uri) : null;
+        if (token == null || !"r".equals(mode)) {
+            throw new FileNotFoundException("Not a readable body stream (" + uri + ")");
+        }
+        final Object body = bodyStreams.get(token);
+        if (body == null) {
+            throw new FileNotFoundException("Body stream is no longer available (" + uri + ")");
+        }
+        try {
+            return StreamedBody.pipe(new StreamedBody.PipeWriter() {
+                @Override
+                public void write(OutputStream outputStream) throws IOException {
+                    StreamedBody.writeBody(body, outputStream);
+                }
+            });
+        } catch (IOException e) {
+            throw new FileNotFoundException("Could not open body stream (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Dispatches a POST, PUT or PATCH whose values were too large for a binder transaction and were
+     * streamed by {@link com.amplify.hiccup.client.HiccupClient} through a pipe instead, as well as
+     * bulk POSTs, see {@link #delegatePostAll(android.net.Uri, android.content.ContentValues[])},
+     * reads of the change feed, see {@link ChangeNotifier}, and version checks of cached GETs, see
+     * {@link VersionedController}.
+     *
+     * <p>This method would typically be called from within
+     * {@link android.content.ContentProvider#call(String, String, android.os.Bundle)}, passing the
+     * provider itself. Unlike {@code insert}, {@code update} and {@code bulkInsert}, {@code call} is
+     * not checked against the provider's permissions by the platform, so writes are only dispatched
+     * if the caller, or the provider's own process, holds the provider's write permission, when it
+     * has one, and the change feed and versions are only read if it holds its read permission.
+     * Path permissions and Uri grants are not taken into account.</p>
+     *
+     * @param provider the provider whose permissions are enforced.
+     *
+     * @return the result of the request, or null if {@code method} is not a Hiccup method so the
+     *     provider may handle it itself.
+     *
+     * @throws IllegalArgumentException if no route exists to handle the request, or the streamed
+     *     values cannot be read.
+     * @throws SecurityException if the caller does not hold the permission the request needs.
+     */
+    public Bundle delegateCall(ContentProvider provider, String method, String arg, Bundle extras) {
+        if (ChangeFeed.METHOD_CHANGES.equals(method)) {
+            Uri uri = Uri.parse(arg);
+            enforcePermission(provider, provider.getReadPermission(), uri);
+            return readChanges(uri, extras == null ? -1 : extras.getLong(ChangeFeed.EXTRA_SINCE, -1));
+        }
+        if (ConditionalGet.METHOD_VALIDATE.equals(method)) {
+            Uri uri = Uri.parse(arg);
+            enforcePermission(provider, provider.getReadPermission(), uri);
+            return validate(uri, extras == null ? null : extras.getString(ConditionalGet.EXTRA_VERSION));
+        }
+        boolean post = StreamedBody.METHOD_POST.equals(method);
+        boolean put = StreamedBody.METHOD_PUT.equals(method);
+        boolean postAll = StreamedBody.METHOD_POST_ALL.equals(method);
+        if (!post && !put && !postAll && !StreamedBody.METHOD_PATCH.equals(method)) {
+            return null;
+        }
+        Uri uri = Uri.parse(arg);
+        enforcePermission(provider, provider.getWritePermission(), uri);
+        ContentValues[] contentValues = readStreamedValues(extras);
+        Bundle result = new Bundle();
+        if (post) {
+            Uri location = delegateInsert(uri, single(contentValues));
+            result.putString(StreamedBody.EXTRA_URI, location == null ? null : location.toString());
+        } else if (put) {
+            result.putInt(StreamedBody.EXTRA_COUNT, delegateUpdate(uri, single(contentValues)));
+        } else if (postAll) {
+            result.putInt(StreamedBody.EXTRA_COUNT, delegatePostAll(uri, contentValues));
+        } else {
+            result.putInt(StreamedBody.EXTRA_COUNT, delegatePatch(uri, contentValues));
+        }
+        return result;
+    }
+
+    private static void enforcePermission(ContentProvider provider, String permission, Uri uri) {
+        if (permission != null) {
+            provider.getContext().enforceCallingOrSelfPermission(permission,
+                    "Permission " + permission + " is required for " + uri);
+        }
+    }
+
+    private Bundle readChanges(Uri uri, long since) {
+        if (!authority.equals(uri.getAuthority())) {
+            throw new IllegalArgumentException("Changes are not for this authority (" + uri + ")");
+        }
+        return ChangeFeed.toBundle(getChangeNotifier().changesSince(uri, since));
+    }
+
+    /**
+     * Compares the version a client has of the resources at {@code uri} with the one its
+     * {@link VersionedController} tells, or, if it does not know it, with the change feed: the
+     * resources are then unmodified while no change at, above or below the Uri was reported, nor
+     * any write dispatched by the service, since the feed's version the client has. Writes made
+     * outside of the service, eg, straight to the database, go unnoticed unless reported.
+     */
+    private Bundle validate(Uri uri, String knownVersion) {
+        RouteTrie.Match match = getMatch(uri);
+        Controller target = match.controllerInfo.target();
+        String version = null;
+        if (target instanceof VersionedController) {
+            PathParameters previous = PathParameters.enter(match.parameters);
+            try {
+                version = ((VersionedController) target).versionOf(uri);
+            } finally {
+                PathParameters.exit(previous);
+            }
+        }
+        if (version != null) {
+            return ConditionalGet.response(!version.equals(knownVersion), version);
+        }
+        if (changeNotifier == null) {
+            return ConditionalGet.response(true, null);
+        }
+        long since = feedVersionOf(knownVersion);
+        ChangeFeed.Page page = changeNotifier.changesSince(uri, since);
+        if (since >= 0 && page.isComplete() && page.getChanges().isEmpty()) {
+            return ConditionalGet.response(false, knownVersion);
+        }
+        return ConditionalGet.response(true, FEED_VERSION_PREFIX + page.getVersion());
+    }
+
+    /**
+     * @return the version of the change feed in {@code version}, or -1 if it is not one.
+     */
+    private static long feedVersionOf(String version) {
+        if (version == null || !version.startsWith(FEED_VERSION_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(version.substring(FEED_VERSION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static ContentValues[] readStreamedValues(Bundle extras) {
+        Parcelable[] inline = extras == null ? null : extras.getParcelableArray(StreamedBody.EXTRA_VALUES);
+        if (inline != null) {
+            ContentValues[] contentValues = new ContentValues[inline.length];
+            for (int i = 0; i < inline.length; i++) {
+                contentValues[i] = (ContentValues) inline[i];
+            }
+            return contentValues;
+        }
+        ParcelFileDescriptor body = extras == null ? null : (ParcelFileDescriptor) extras.getParcelable(StreamedBody.EXTRA_BODY);
+        if (body == null) {
+            throw new IllegalArgumentException("Streamed request has no body");
+        }
+        InputStream inputStream = new ParcelFileDescriptor.AutoCloseInputStream(body);
+        try {
+            return StreamedBody.readValues(inputStream);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read streamed body", e);
+        } finally {
+            StreamedBody.closeQuietly(inputStream);
         }
-        return controllerMap.get(uriId);
     }
 
-    private String removeLeadingSlashForUriMatcherPreJellyBeanMR2(String path) {
-        if (path.startsWith("/")) {
-            return path.substring(1);
+    private static ContentValues single(ContentValues[] contentValues) {
+        if (contentValues.length != 1) {
+            throw new IllegalArgumentException("Expected a single streamed body, got " + contentValues.length);
         }
-        return path;
+        return contentValues[0];
+    }
+
+    private void invalidateResponses(Uri uri) {
+        for (ResponseCache responseCache : responseCaches) {
+            responseCache.invalidate(uri);
+        }
+    }
+
+    private void beginChanges() {
+        if (changeNotifier != null) {
+            changeNotifier.begin();
+        }
+    }
+
+    private void recordWrite(Uri uri) {
+        if (changeNotifier != null) {
+            changeNotifier.recordWrite(uri);
+        }
+    }
+
+    private void endChanges(boolean successful) {
+        if (changeNotifier != null) {
+            changeNotifier.end(successful);
+        }
+    }
+
+    private List<TransactionalController> transactionsOf(List<ContentProviderOperation> operations) {
+        List<TransactionalController> transactions = new ArrayList<TransactionalController>();
+        for (ContentProviderOperation operation : operations) {
+            Controller target = getMatch(operation.getUri()).controllerInfo.target();
+            if (target instanceof TransactionalController && !transactions.contains(target)) {
+                transactions.add((TransactionalController) target);
+            }
+        }
+        return transactions;
+    }
+
+    private static void yieldBatches(List<TransactionalController> transactions) {
+        for (TransactionalController transaction : transactions) {
+            if (transaction instanceof YieldingController) {
+                ((YieldingController) transaction).yieldBatch();
+            }
+        }
+    }
+
+    /**
+     * Ends the batches that were begun, last first. Once one fails to end, the remaining ones are
+     * ended unsuccessfully.
+     */
+    private static void endBatches(List<TransactionalController> transactions, int begun, boolean successful) {
+        RuntimeException failure = null;
+        for (int i = begun - 1; i >= 0; i--) {
+            try {
+                transactions.get(i).endBatch(successful && failure == null);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null && successful) {
+            throw failure;
+        }
+    }
+
+    private HiccupService addRoute(ControllerInfo controllerInfo) {
+        routeTrie.add(controllerInfo.path, controllerInfo);
+        return this;
+    }
+
+    private Interceptor[] newInterceptorChain(String path, Interceptor... routeInterceptors) {
+        List<Interceptor> chain = new ArrayList<Interceptor>();
+        if (metricsEnabled) {
+            RouteMetrics metrics = new RouteMetrics(path);
+            routeMetrics.add(metrics);
+            chain.add(metrics);
+        }
+        chain.addAll(interceptors);
+        Collections.addAll(chain, routeInterceptors);
+        for (Interceptor interceptor : chain) {
+            if (interceptor instanceof ResponseCache && !responseCaches.contains(interceptor)) {
+                responseCaches.add((ResponseCache) interceptor);
+            }
+        }
+        if (resourceLocks != null) {
+            chain.add(resourceLocks);
+        }
+        return chain.toArray(new Interceptor[chain.size()]);
+    }
+
+    ControllerInfo getControllerInfo(Uri uri) {
+        return getMatch(uri).controllerInfo;
+    }
+
+    RouteTrie.Match getMatch(Uri uri) {
+        RouteTrie.Match match = authority.equals(uri.getAuthority()) ? routeTrie.match(uri) : null;
+        if (match == null) {
+            throw new IllegalArgumentException("Path does not match any route (" + uri.getPath() + ")");
+        }
+        return match;
     }
 
     static class ControllerInfo {
-        final Controller controller;
+        final String path;
+        final String[] parameterNames;
+        final boolean hasParameters;
+
+        private final Interceptor[] interceptors;
+
+        private ControllerFactory controllerFactory;
+        private Controller target;
+        private volatile Controller controller;
+
+        public ControllerInfo(String path, Controller controller, Interceptor[] interceptors) {
+            this(path, (ControllerFactory) null, interceptors);
+            this.target = controller;
+            this.controller = intercept(controller);
+        }
+
+        public ControllerInfo(String path, ControllerFactory controllerFactory, Interceptor[] interceptors) {
+            this.path = path;
+            this.controllerFactory = controllerFactory;
+            this.interceptors = interceptors;
+            this.parameterNames = RouteTrie.parameterNamesOf(path);
+            this.hasParameters = hasAny(parameterNames);
+        }
+
+        Controller controller() {
+            Controller result = controller;
+            if (result == null) {
+                synchronized (this) {
+                    result = controller;
+                    if (result == null) {
+                        result = controllerFactory.create();
+                        if (result == null) {
+                            throw new IllegalStateException("Controller factory returned null (" + path + ")");
+                        }
+                        target = result;
+                        result = intercept(result);
+                        controller = result;
+                        controllerFactory = null;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the controller registered for the route, without its interceptors.
+         */
+        Controller target() {
+            controller();
+            return target;
+        }
+
+        private Controller intercept(Controller controller) {
+            Controller intercepted = controller;
+            for (int i = interceptors.length - 1; i >= 0; i--) {
+                intercepted = interceptors[i].intercept(path, intercepted);
+            }
+            return intercepted;
+        }
 
-        public ControllerInfo(Controller controller) {
-            this.controller = controller;
+        private static boolean hasAny(String[] names) {
+            for (String name : names) {
+                if (name != null) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 }
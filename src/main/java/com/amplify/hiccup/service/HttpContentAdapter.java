@@ -2,48 +2,57 @@ package com.amplify.hiccup.service;
 
 import android.content.ContentValues;
 import android.database.Cursor;
-import android.database.MatrixCursor;
 import android.provider.BaseColumns;
 
+import com.amplify.hiccup.shared.BinaryBody;
 import com.amplify.hiccup.shared.JsonConverter;
 
-import java.util.Collections;
-
 public class HttpContentAdapter implements ContentAdapter<Object> {
 
-    private static final String BODY_COLUMN = "body";
+    static final String BODY_COLUMN = "body";
+    static final String[] COLUMNS = new String[]{BaseColumns._ID, BODY_COLUMN};
 
     private final JsonConverter jsonConverter;
+    private final LazyBodyCursor.BodyEncoder bodyEncoder;
 
     public HttpContentAdapter(JsonConverter jsonConverter) {
         this.jsonConverter = jsonConverter;
+        this.bodyEncoder = LazyBodyCursor.json(jsonConverter);
+    }
+
+    /**
+     * Reuses the JSON of the {@code maxEntries} most recently encoded model instances while their
+     * version is unchanged, for models that are served over and over, eg, reference data kept in
+     * memory. Instances are told apart by identity, not equality, and are not kept alive by the cache.
+     */
+    public HttpContentAdapter(JsonConverter jsonConverter, ModelVersions modelVersions, int maxEntries) {
+        this.jsonConverter = jsonConverter;
+        this.bodyEncoder = new EncodedBodies(LazyBodyCursor.json(jsonConverter), modelVersions, maxEntries);
     }
 
+    /**
+     * Models are serialized to JSON only as the client reads their rows, so large results that are
+     * only partially read are never fully serialized. When the service streams bodies, those too
+     * large for a cursor window are streamed to {@link com.amplify.hiccup.client.HiccupClient}
+     * instead, in an extra column, see {@link HiccupService#streamBodiesLargerThan(int)}.
+     */
     @Override
     public Cursor toCursor(Iterable<Object> result) {
-        MatrixCursor matrixCursor = new MatrixCursor(new String[]{BaseColumns._ID, BODY_COLUMN});
-        Iterable<Object> items = result;
-        if (items == null) {
-            items = Collections.emptyList();
-        }
-
-        for (Object item : items) {
-            addRowToCursor(matrixCursor, item);
-        }
-        return matrixCursor;
+        return new LazyBodyCursor(COLUMNS, result, bodyEncoder);
     }
 
+    /**
+     * Accepts both JSON bodies and {@link BinaryBody} blobs, so clients may choose either encoding.
+     */
     @Override
     public Object toModel(ContentValues contentValues, Class<?> modelClass) {
-        String body = contentValues.getAsString(BODY_COLUMN);
-        return jsonConverter.fromJson(body, modelClass);
-    }
-
-    private void addRowToCursor(MatrixCursor matrixCursor, Object model) {
-        int currentSize = matrixCursor.getCount();
-        matrixCursor.addRow(new Object[]{
-                currentSize + 1,
-                jsonConverter.toJson(model)
-        });
+        Object body = contentValues.get(BODY_COLUMN);
+        if (body instanceof byte[]) {
+            return BinaryBody.decode((byte[]) body, modelClass);
+        }
+        if (jsonConverter == null) {
+            throw new IllegalArgumentException("JSON bodies are not supported");
+        }
+        return jsonConverter.fromJson(contentValues.getAsString(BODY_COLUMN), modelClass);
     }
 }
@@ -0,0 +1,99 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * Records {@link RouteMetrics} around every call to the wrapped {@link Controller}, including the
+ * interceptors behind it. Only routes registered while metrics are enabled are wrapped, so disabled
+ * metrics cost nothing.
+ */
+class InstrumentedController implements BulkController {
+
+    private final Controller controller;
+    private final RouteMetrics metrics;
+
+    InstrumentedController(Controller controller, RouteMetrics metrics) {
+        this.controller = controller;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Cursor get(Uri uri) {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            Cursor cursor = controller.get(uri);
+            failed = false;
+            return cursor;
+        } finally {
+            metrics.record(Verb.GET, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    @Override
+    public Uri post(Uri uri, ContentValues contentValues) {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            Uri result = controller.post(uri, contentValues);
+            failed = false;
+            return result;
+        } finally {
+            metrics.record(Verb.POST, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    @Override
+    public int put(Uri uri, ContentValues contentValues) {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            int count = controller.put(uri, contentValues);
+            failed = false;
+            return count;
+        } finally {
+            metrics.record(Verb.PUT, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    @Override
+    public int delete(Uri uri) {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            int count = controller.delete(uri);
+            failed = false;
+            return count;
+        } finally {
+            metrics.record(Verb.DELETE, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    @Override
+    public int patch(Uri uri, ContentValues[] contentValues) {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            int count = controller.patch(uri, contentValues);
+            failed = false;
+            return count;
+        } finally {
+            metrics.record(Verb.PATCH, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    @Override
+    public int postAll(Uri uri, ContentValues[] contentValues) {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            int count = ForwardingController.postAll(controller, uri, contentValues);
+            failed = false;
+            return count;
+        } finally {
+            metrics.record(Verb.POST_ALL, System.nanoTime() - startNanos, failed);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.amplify.hiccup.service;
+
+/**
+ * Wraps the {@link Controller} of a route to add cross-cutting behaviour (timing, auth checks,
+ * caching, logging, etc.) around every verb.
+ *
+ * <p>Interceptors are applied once, when the route's controller is first resolved, so dispatching
+ * a request only goes through the pre-composed chain of wrapped controllers.
+ * {@link ForwardingController} is a convenient base class for the returned wrapper.</p>
+ *
+ * @see HiccupService#addInterceptor(Interceptor)
+ * @see HiccupService#newRoute(String, Controller, Interceptor...)
+ */
+public interface Interceptor {
+
+    /**
+     * @param path the route path as registered in {@link HiccupService}.
+     * @param next the controller to delegate to, which may itself be wrapped by later interceptors.
+     *
+     * @return the controller to dispatch requests for the route to.
+     */
+    Controller intercept(String path, Controller next);
+}
@@ -0,0 +1,285 @@
+package com.amplify.hiccup.service;
+
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.database.CursorWindow;
+
+import com.amplify.hiccup.shared.BinaryBody;
+import com.amplify.hiccup.shared.JsonBuffers;
+import com.amplify.hiccup.shared.JsonConverter;
+import com.amplify.hiccup.shared.StreamedBody;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Cursor of {@code _id} and body rows that encodes each model only when a row is read,
+ * either by moving onto it in-process or by {@link #fillWindow(int, CursorWindow)} filling the
+ * window handed across processes. Only the body of the current row is kept.
+ *
+ * <p>Bodies are JSON text or {@link BinaryBody} blobs, depending on the {@link BodyEncoder}. When
+ * streaming is enabled, the cursor gets a {@link StreamedBody#STREAM_COLUMN}, and bodies too large
+ * for the window are left out of it and registered for streaming instead, with their token in that
+ * column. In-process reads always return the body itself.</p>
+ */
+class LazyBodyCursor extends AbstractCursor {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int ID_COLUMN = 0;
+    private static final int BODY_COLUMN = 1;
+    private static final int STREAM_COLUMN = 2;
+
+    private String[] columnNames;
+    private final List<?> models;
+    private final BodyEncoder bodyEncoder;
+
+    private int bodyPosition = -1;
+    private Object body;
+
+    private BodyStreams bodyStreams;
+    private long streamThreshold;
+    private Map<Integer, String> streamTokens;
+
+    LazyBodyCursor(String[] columnNames, Iterable<?> models, BodyEncoder bodyEncoder) {
+        this.columnNames = columnNames;
+        this.models = toRandomAccessList(models);
+        this.bodyEncoder = bodyEncoder;
+    }
+
+    static BodyEncoder json(final JsonConverter jsonConverter) {
+        return new BodyEncoder() {
+            @Override
+            public Object encode(Object model) {
+                return JsonBuffers.toJson(jsonConverter, model);
+            }
+        };
+    }
+
+    static BodyEncoder binary() {
+        return new BodyEncoder() {
+            @Override
+            public Object encode(Object model) {
+                return BinaryBody.encode(model);
+            }
+        };
+    }
+
+    /**
+     * Returns an encoder of "models" that are bodies already, eg, as cached by {@link ResponseCache}.
+     */
+    static BodyEncoder encoded() {
+        return new BodyEncoder() {
+            @Override
+            public Object encode(Object body) {
+                return body;
+            }
+        };
+    }
+
+    /**
+     * Streams bodies larger than {@code thresholdBytes} through {@code bodyStreams} when filling
+     * windows, adding the {@link StreamedBody#STREAM_COLUMN} to the columns unless they have it
+     * already. Must be called before the cursor is read.
+     */
+    void streamBodiesLargerThan(long thresholdBytes, BodyStreams bodyStreams) {
+        if (columnNames.length == STREAM_COLUMN) {
+            String[] withStreamColumn = new String[STREAM_COLUMN + 1];
+            System.arraycopy(columnNames, 0, withStreamColumn, 0, STREAM_COLUMN);
+            withStreamColumn[STREAM_COLUMN] = StreamedBody.STREAM_COLUMN;
+            columnNames = withStreamColumn;
+        }
+        if (StreamedBody.STREAM_COLUMN.equals(columnNames[STREAM_COLUMN])) {
+            this.streamThreshold = thresholdBytes;
+            this.bodyStreams = bodyStreams;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return models.size();
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int getType(int column) {
+        if (column == ID_COLUMN) {
+            return Cursor.FIELD_TYPE_INTEGER;
+        } else if (column == STREAM_COLUMN) {
+            return Cursor.FIELD_TYPE_NULL;
+        }
+        Object value = bodyAt(getPosition());
+        if (value == null) {
+            return Cursor.FIELD_TYPE_NULL;
+        }
+        return value instanceof byte[] ? Cursor.FIELD_TYPE_BLOB : Cursor.FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public String getString(int column) {
+        if (column == ID_COLUMN) {
+            return String.valueOf(getLong(column));
+        } else if (column == STREAM_COLUMN) {
+            return null;
+        }
+        Object value = bodyAt(getPosition());
+        if (value instanceof byte[]) {
+            throw new IllegalStateException("Body is a blob");
+        }
+        return (String) value;
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        if (column == ID_COLUMN) {
+            throw new IllegalStateException("Id is not a blob");
+        } else if (column == STREAM_COLUMN) {
+            return null;
+        }
+        Object value = bodyAt(getPosition());
+        if (value instanceof String) {
+            return ((String) value).getBytes(UTF_8);
+        }
+        return (byte[]) value;
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        if (column == ID_COLUMN) {
+            return idAt(getPosition());
+        }
+        return Long.parseLong(getString(column));
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        if (column == ID_COLUMN) {
+            return getLong(column);
+        }
+        return Double.parseDouble(getString(column));
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return getType(column) == Cursor.FIELD_TYPE_NULL;
+    }
+
+    /**
+     * Serializes rows straight into the window, starting at {@code position}, until it is full.
+     */
+    @Override
+    public void fillWindow(int position, CursorWindow window) {
+        if (position < 0 || position >= getCount()) {
+            return;
+        }
+        window.clear();
+        window.setStartPosition(position);
+        window.setNumColumns(columnNames.length);
+        for (int row = position; row < getCount(); row++) {
+            if (!window.allocRow()) {
+                break;
+            }
+            boolean added = window.putLong(idAt(row), row, ID_COLUMN) && putBody(window, bodyAt(row), row);
+            if (!added) {
+                window.freeLastRow();
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (streamTokens != null) {
+            for (String token : streamTokens.values()) {
+                bodyStreams.release(token);
+            }
+            streamTokens = null;
+        }
+    }
+
+    private boolean putBody(CursorWindow window, Object value, int row) {
+        if (columnNames.length <= STREAM_COLUMN) {
+            return putValue(window, value, row);
+        }
+        if (bodyStreams != null && StreamedBody.sizeOfBody(value) > streamThreshold) {
+            return window.putNull(row, BODY_COLUMN) && window.putString(streamTokenOf(row, value), row, STREAM_COLUMN);
+        }
+        return putValue(window, value, row) && window.putNull(row, STREAM_COLUMN);
+    }
+
+    private String streamTokenOf(int row, Object value) {
+        if (streamTokens == null) {
+            streamTokens = new HashMap<Integer, String>();
+        }
+        String token = streamTokens.get(row);
+        if (token == null) {
+            token = bodyStreams.register(models.get(row), bodyEncoder, value);
+            streamTokens.put(row, token);
+        }
+        return token;
+    }
+
+    private static boolean putValue(CursorWindow window, Object value, int row) {
+        if (value == null) {
+            return window.putNull(row, BODY_COLUMN);
+        } else if (value instanceof byte[]) {
+            return window.putBlob((byte[]) value, row, BODY_COLUMN);
+        }
+        return window.putString((String) value, row, BODY_COLUMN);
+    }
+
+    private long idAt(int position) {
+        return position + 1;
+    }
+
+    private Object bodyAt(int position) {
+        if (position != bodyPosition) {
+            body = bodyEncoder.encode(models.get(position));
+            bodyPosition = position;
+        }
+        return body;
+    }
+
+    private static List<?> toRandomAccessList(Iterable<?> models) {
+        if (models instanceof List && models instanceof RandomAccess) {
+            return (List<?>) models;
+        }
+        List<Object> list = new ArrayList<Object>();
+        if (models != null) {
+            for (Object model : models) {
+                list.add(model);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Encodes a model into a String or byte[] body.
+     */
+    interface BodyEncoder {
+        Object encode(Object model);
+    }
+}
@@ -0,0 +1,102 @@
+package com.amplify.hiccup.service;
+
+/**
+ * Point in time copy of the metrics recorded for one route and {@link Verb}.
+ *
+ * @see HiccupService#enableMetrics()
+ * @see HiccupService#getMetrics()
+ */
+public final class MetricsSnapshot {
+
+    private final String path;
+    private final Verb verb;
+    private final long callCount;
+    private final long errorCount;
+    private final long totalLatencyNanos;
+    private final long[] bucketCounts;
+
+    MetricsSnapshot(String path, Verb verb, long callCount, long errorCount, long totalLatencyNanos,
+                    long[] bucketCounts) {
+        this.path = path;
+        this.verb = verb;
+        this.callCount = callCount;
+        this.errorCount = errorCount;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * The upper bounds (exclusive) of the latency histogram buckets. The histogram has one
+     * more bucket than there are bounds, counting everything slower than the last bound.
+     */
+    public static long[] getBucketUpperBoundsNanos() {
+        return RouteMetrics.BUCKET_UPPER_BOUNDS_NANOS.clone();
+    }
+
+    /**
+     * The route path as it was registered in {@link HiccupService#newRoute(String, Controller)}.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public Verb getVerb() {
+        return verb;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * The number of calls that ended by throwing an exception.
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getTotalLatencyNanos() {
+        return totalLatencyNanos;
+    }
+
+    public long getMeanLatencyNanos() {
+        return callCount == 0 ? 0 : totalLatencyNanos / callCount;
+    }
+
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    /**
+     * Estimates a latency percentile as the upper bound of the bucket it falls in, or
+     * {@link Long#MAX_VALUE} if it falls in the last, unbounded bucket.
+     *
+     * @param percentile between 0 and 100, eg, 99 for the 99th percentile.
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        long threshold = (long) Math.ceil(callCount * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= threshold && seen > 0) {
+                return i < RouteMetrics.BUCKET_UPPER_BOUNDS_NANOS.length
+                        ? RouteMetrics.BUCKET_UPPER_BOUNDS_NANOS[i]
+                        : Long.MAX_VALUE;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return verb + " " + path
+                + " calls=" + callCount
+                + " errors=" + errorCount
+                + " meanMicros=" + getMeanLatencyNanos() / 1000
+                + " p99Micros<" + toMicros(getLatencyPercentileNanos(99));
+    }
+
+    private static String toMicros(long nanos) {
+        return nanos == Long.MAX_VALUE ? "inf" : String.valueOf(nanos / 1000);
+    }
+}
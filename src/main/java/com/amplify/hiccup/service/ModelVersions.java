@@ -0,0 +1,16 @@
+package com.amplify.hiccup.service;
+
+/**
+ * Tells the version of models, eg, their revision counter or last-modified time, so that
+ * {@link HttpContentAdapter} can reuse the JSON of a model instance it already encoded at that version.
+ *
+ * @see HttpContentAdapter#HttpContentAdapter(com.amplify.hiccup.shared.JsonConverter, ModelVersions, int)
+ */
+public interface ModelVersions {
+
+    /**
+     * @return the version of {@code model}, which must change whenever its JSON would, or null to
+     *     encode it every time.
+     */
+    Object versionOf(Object model);
+}
@@ -0,0 +1,99 @@
+package com.amplify.hiccup.service;
+
+/**
+ * Typed path parameters extracted from the request {@link android.net.Uri} while it was
+ * matched against a route, eg, {@code posts/{postId:#}/comments}.
+ *
+ * <p>{@link HiccupService} exposes the parameters of the request being dispatched through
+ * {@link #current()}, so controllers don't have to re-parse {@code uri.getPathSegments()}.</p>
+ */
+public final class PathParameters {
+
+    static final PathParameters EMPTY = new PathParameters(new String[0], new String[0], new boolean[0]);
+
+    private static final ThreadLocal<PathParameters> CURRENT = new ThreadLocal<PathParameters>();
+
+    private final String[] names;
+    private final String[] values;
+    private final boolean[] numeric;
+
+    /**
+     * @param values the decoded path segments, as returned by {@link android.net.Uri#getPathSegments()}.
+     * @param numeric whether each segment was matched by a {@code #} wild card.
+     */
+    PathParameters(String[] names, String[] values, boolean[] numeric) {
+        this.names = names;
+        this.values = values;
+        this.numeric = numeric;
+    }
+
+    /**
+     * Returns the parameters of the request currently being dispatched on this thread
+     * by {@link HiccupService}, or empty parameters outside of a dispatch.
+     */
+    public static PathParameters current() {
+        PathParameters parameters = CURRENT.get();
+        return parameters == null ? EMPTY : parameters;
+    }
+
+    static PathParameters enter(PathParameters parameters) {
+        PathParameters previous = CURRENT.get();
+        CURRENT.set(parameters);
+        return previous;
+    }
+
+    static void exit(PathParameters previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public boolean has(String name) {
+        return indexOf(name) != -1;
+    }
+
+    /**
+     * Returns the decoded path segment, as returned by {@link android.net.Uri#getPathSegments()},
+     * eg, with the leading zeros of numbers, and {@code %2F} decoded to {@code /}.
+     *
+     * @throws IllegalArgumentException if the route does not declare a parameter with the given {@code name}.
+     */
+    public String getString(String name) {
+        return values[indexOfOrThrow(name)];
+    }
+
+    /**
+     * @throws IllegalArgumentException if the route does not declare a numeric ({@code {name:#}})
+     *     parameter with the given {@code name}, or its value does not fit in a long.
+     */
+    public long getLong(String name) {
+        int index = indexOfOrThrow(name);
+        if (!numeric[index]) {
+            throw new IllegalArgumentException("Path parameter is not numeric (" + name + ")");
+        }
+        try {
+            return Long.parseLong(values[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Path parameter does not fit in a long (" + name + ")", e);
+        }
+    }
+
+    private int indexOfOrThrow(String name) {
+        int index = indexOf(name);
+        if (index == -1) {
+            throw new IllegalArgumentException("No such path parameter (" + name + ")");
+        }
+        return index;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length && i < values.length; i++) {
+            if (name.equals(names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -4,14 +4,35 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.net.Uri;
 
-public abstract class ResourceController<R> implements Controller {
+import com.amplify.hiccup.shared.JsonBuffers;
+import com.amplify.hiccup.shared.JsonConverter;
+import com.amplify.hiccup.shared.JsonPatch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public abstract class ResourceController<R> implements VersionedController, BulkController {
 
     private final ContentAdapter contentAdapter;
     private final Class<R> modelClass;
+    private final JsonConverter jsonConverter;
 
     public ResourceController(ContentAdapter contentAdapter, Class<R> modelClass) {
+        this(contentAdapter, modelClass, null);
+    }
+
+    /**
+     * @param jsonConverter converts models to and from the JSON documents that PATCH requests are
+     *     applied to. It is the only way to support PATCH, and its JSON layout, not the one of
+     *     {@code contentAdapter}, defines the paths of the operations.
+     *
+     * @see #patch(android.net.Uri, android.content.ContentValues[])
+     */
+    public ResourceController(ContentAdapter contentAdapter, Class<R> modelClass, JsonConverter jsonConverter) {
         this.contentAdapter = contentAdapter;
         this.modelClass = modelClass;
+        this.jsonConverter = jsonConverter;
     }
 
     @Override
@@ -32,13 +53,113 @@ public abstract class ResourceController<R> implements Controller {
         return handlePut(uri, model);
     }
 
+    /**
+     * Converts all the values to models up front and hands them to
+     * {@link #handlePostAll(android.net.Uri, java.util.List)} at once.
+     */
+    @Override
+    public final int postAll(Uri uri, ContentValues[] contentValues) {
+        List<R> models = new ArrayList<R>(contentValues.length);
+        for (ContentValues values : contentValues) {
+            models.add((R) contentAdapter.toModel(values, modelClass));
+        }
+        return handlePostAll(uri, models);
+    }
+
     @Override
     public final int delete(Uri uri) {
         return handleDelete(uri);
     }
 
+    /**
+     * Applies the RFC 6902 operations, as built by {@link JsonPatch.Builder}, to the resource
+     * returned by {@link #handleGet(android.net.Uri)} and hands the patched model to
+     * {@link #handlePatch(android.net.Uri, Object)}. The operations are parsed once and applied in
+     * memory, so only the changes cross the process boundary instead of the whole document.
+     *
+     * <p>The model is patched as the JSON document of the controller's {@link JsonConverter},
+     * whatever the {@link ContentAdapter}, so the paths of the operations name the fields as that
+     * converter writes them, eg, {@code /title}, even for routes that respond with columns or
+     * binary bodies.</p>
+     *
+     * @throws IllegalStateException if the controller was created without a {@link JsonConverter}.
+     * @throws IllegalArgumentException if the patch is malformed, cannot be applied, eg, a
+     *     {@code test} operation failed, or {@code uri} is not a single resource.
+     *
+     * @return the number of affected rows, 0 if the resource does not exist.
+     */
+    @Override
+    public int patch(Uri uri, ContentValues[] contentValues) {
+        if (jsonConverter == null) {
+            throw new IllegalStateException("PATCH requires a JsonConverter, passed to the ResourceController"
+                    + " constructor (" + modelClass.getName() + ")");
+        }
+        JsonPatch jsonPatch = JsonPatch.parse(contentValues);
+        R model = singleResource(uri);
+        if (model == null) {
+            return 0;
+        }
+        String patched = jsonPatch.apply(JsonBuffers.toJson(jsonConverter, model));
+        return handlePatch(uri, jsonConverter.fromJson(patched, modelClass));
+    }
+
+    /**
+     * Answers version checks of clients that cache GETs, see {@link #handleVersion(android.net.Uri)}.
+     */
+    @Override
+    public final String versionOf(Uri uri) {
+        return handleVersion(uri);
+    }
+
     protected abstract Iterable<R> handleGet(Uri uri);
     protected abstract Uri handlePost(Uri uri, R model);
     protected abstract int handlePut(Uri uri, R model);
     protected abstract int handleDelete(Uri uri);
-}
\ No newline at end of file
+
+    /**
+     * Returns the version of the resources at {@code uri}, eg, their latest modification time, which
+     * must be cheaper to get than the resources themselves. Defaults to null, in which case the
+     * service falls back to its change feed, if enabled, see
+     * {@link HiccupService#notifyChanges(android.content.ContentResolver, long)}.
+     */
+    protected String handleVersion(Uri uri) {
+        return null;
+    }
+
+    /**
+     * Stores a patched model. Defaults to {@link #handlePut(android.net.Uri, Object)}; override it
+     * to write only what changed.
+     */
+    protected int handlePatch(Uri uri, R model) {
+        return handlePut(uri, model);
+    }
+
+    /**
+     * Stores several new models, eg, in a single transaction. Defaults to calling
+     * {@link #handlePost(android.net.Uri, Object)} for each model.
+     *
+     * @return the number of models created.
+     */
+    protected int handlePostAll(Uri uri, List<R> models) {
+        int count = 0;
+        for (R model : models) {
+            if (handlePost(uri, model) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private R singleResource(Uri uri) {
+        Iterable<R> models = handleGet(uri);
+        Iterator<R> iterator = models == null ? null : models.iterator();
+        if (iterator == null || !iterator.hasNext()) {
+            return null;
+        }
+        R model = iterator.next();
+        if (iterator.hasNext()) {
+            throw new IllegalArgumentException("PATCH must target a single resource (" + uri + ")");
+        }
+        return model;
+    }
+}
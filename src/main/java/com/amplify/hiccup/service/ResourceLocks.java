@@ -0,0 +1,218 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read/write locks around the controllers of routes, so controllers need not synchronize their
+ * dispatch themselves while the provider's binder threads dispatch requests in parallel: GETs of a
+ * key run concurrently, and any other verb runs alone on its key. There is no global lock, every
+ * key gets its own lock while it is in use, found in one of a fixed number of tables its key is
+ * hashed to, and requests for different keys never wait on each other.
+ *
+ * <p>Keys are either the route, so that all resources of a route are locked together, or the path
+ * of the requested resource, without its query, so that, eg, {@code PUT posts/1} and
+ * {@code GET posts/2} run concurrently. Note that with resource keys a collection and its members
+ * are different keys.</p>
+ *
+ * <p>Locks are reentrant, but a GET cannot write its own key while it holds its read lock, eg, by
+ * dispatching a write of the same resource to the service from within
+ * {@link Controller#get(android.net.Uri)}, which fails instead of deadlocking. Writes of other keys
+ * are dispatched as usual.</p>
+ *
+ * <p>Only the dispatch itself is locked: a cursor returned by a GET is read after the lock is
+ * released, and the cursors of {@link HttpContentAdapter} and {@link BinaryContentAdapter} encode
+ * their models only then, while later writes may run. Controllers whose writes change the models
+ * they returned, rather than replace them, must return copies.</p>
+ *
+ * @see HiccupService#lockResources(ResourceLocks)
+ */
+public class ResourceLocks implements Interceptor {
+
+    public enum Granularity {
+        ROUTE,
+        RESOURCE
+    }
+
+    public static final int DEFAULT_STRIPES = 32;
+
+    private final Granularity granularity;
+    private final LockTable[] stripes;
+
+    public ResourceLocks(Granularity granularity) {
+        this(granularity, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes the number of tables the locks of keys are kept in, rounded up to a power of
+     *     two. More stripes make it less likely for requests of unrelated keys to look up their
+     *     locks at the same time.
+     */
+    public ResourceLocks(Granularity granularity, int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes must be positive");
+        }
+        this.granularity = granularity;
+        this.stripes = new LockTable[powerOfTwoAtLeast(stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new LockTable();
+        }
+    }
+
+    @Override
+    public Controller intercept(String path, Controller next) {
+        return new LockingController(next, path);
+    }
+
+    /**
+     * Returns the lock of the uri's key, which is kept for the key until every caller released it.
+     */
+    KeyLock acquire(String routePath, Uri uri) {
+        Object key = granularity == Granularity.ROUTE ? routePath : uri.getPathSegments();
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)].acquire(key);
+    }
+
+    private static int powerOfTwoAtLeast(int value) {
+        int power = 1;
+        while (power < value) {
+            power <<= 1;
+        }
+        return power;
+    }
+
+    private static class LockTable {
+
+        private final Map<Object, KeyLock> locks = new HashMap<Object, KeyLock>();
+
+        synchronized KeyLock acquire(Object key) {
+            KeyLock lock = locks.get(key);
+            if (lock == null) {
+                lock = new KeyLock(this, key);
+                locks.put(key, lock);
+            }
+            lock.users++;
+            return lock;
+        }
+
+        synchronized void release(KeyLock lock) {
+            if (--lock.users == 0) {
+                locks.remove(lock.key);
+            }
+        }
+    }
+
+    static class KeyLock extends ReentrantReadWriteLock {
+
+        private final LockTable table;
+        private final Object key;
+        private int users;
+
+        private KeyLock(LockTable table, Object key) {
+            this.table = table;
+            this.key = key;
+        }
+
+        void release() {
+            table.release(this);
+        }
+    }
+
+    private class LockingController extends ForwardingController {
+
+        private final String path;
+
+        LockingController(Controller delegate, String path) {
+            super(delegate);
+            this.path = path;
+        }
+
+        @Override
+        public Cursor get(Uri uri) {
+            KeyLock lock = acquire(path, uri);
+            lock.readLock().lock();
+            try {
+                return super.get(uri);
+            } finally {
+                lock.readLock().unlock();
+                lock.release();
+            }
+        }
+
+        @Override
+        public Uri post(Uri uri, ContentValues contentValues) {
+            KeyLock lock = lockForWriting(uri);
+            try {
+                return super.post(uri, contentValues);
+            } finally {
+                unlockWriting(lock);
+            }
+        }
+
+        @Override
+        public int put(Uri uri, ContentValues contentValues) {
+            KeyLock lock = lockForWriting(uri);
+            try {
+                return super.put(uri, contentValues);
+            } finally {
+                unlockWriting(lock);
+            }
+        }
+
+        @Override
+        public int delete(Uri uri) {
+            KeyLock lock = lockForWriting(uri);
+            try {
+                return super.delete(uri);
+            } finally {
+                unlockWriting(lock);
+            }
+        }
+
+        @Override
+        public int patch(Uri uri, ContentValues[] contentValues) {
+            KeyLock lock = lockForWriting(uri);
+            try {
+                return super.patch(uri, contentValues);
+            } finally {
+                unlockWriting(lock);
+            }
+        }
+
+        @Override
+        public int postAll(Uri uri, ContentValues[] contentValues) {
+            KeyLock lock = lockForWriting(uri);
+            try {
+                return super.postAll(uri, contentValues);
+            } finally {
+                unlockWriting(lock);
+            }
+        }
+
+        /**
+         * Returns the locked lock of the uri's key.
+         *
+         * @throws IllegalStateException if the current thread holds the read lock of the key.
+         */
+        private KeyLock lockForWriting(Uri uri) {
+            KeyLock lock = acquire(path, uri);
+            if (lock.getReadHoldCount() > 0) {
+                lock.release();
+                throw new IllegalStateException("Cannot write while reading the same resource (" + uri.getPath() + ")");
+            }
+            lock.writeLock().lock();
+            return lock;
+        }
+
+        private void unlockWriting(KeyLock lock) {
+            lock.writeLock().unlock();
+            lock.release();
+        }
+    }
+}
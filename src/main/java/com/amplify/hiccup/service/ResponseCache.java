@@ -0,0 +1,185 @@
+package com.amplify.hiccup.service;
+
+import android.database.Cursor;
+import android.net.Uri;
+
+import com.amplify.hiccup.shared.CursorRows;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the rows of GET responses, so hot resources that rarely change are served without calling
+ * their controller, nor encoding their models, again. Responses are kept per Uri, including its
+ * query, for up to a time to live, and the least recently used ones are evicted beyond a maximum
+ * number of entries.
+ *
+ * <p>Passed as a route {@link Interceptor}, eg,
+ * {@code newRoute("categories", controller, new ResponseCache(64, 60000))}, it is registered with
+ * the {@link HiccupService}, which invalidates its responses at, above or below the Uri of every
+ * POST, PUT, DELETE and PATCH it dispatches, and of every change reported to its
+ * {@link ChangeNotifier}. The time to live bounds how long changes made outside of the service,
+ * eg, written straight to the database, go unnoticed.</p>
+ *
+ * <p>Responses are read in full when cached, so models that clients never read are encoded
+ * anyway. Interceptors passed before it still run on every request, and those after it only on
+ * misses.</p>
+ */
+public class ResponseCache implements Interceptor {
+
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Response> responses;
+
+    private long generation;
+
+    /**
+     * @param maxEntries the number of responses to keep, at most.
+     * @param ttlMillis how long to keep responses, or 0 to keep them until they are invalidated or evicted.
+     */
+    public ResponseCache(final int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Time to live must not be negative");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.responses = new LinkedHashMap<String, Response>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Controller intercept(String path, Controller next) {
+        return new CachingController(next);
+    }
+
+    /**
+     * Drops the responses at, above or below {@code uri}, and keeps responses of GETs in progress
+     * from being cached, since they may have read the resources before they changed.
+     */
+    public synchronized void invalidate(Uri uri) {
+        generation++;
+        Iterator<Response> iterator = responses.values().iterator();
+        while (iterator.hasNext()) {
+            Uri cached = iterator.next().uri;
+            if (ChangeNotifier.isAncestorOrSelf(uri, cached) || ChangeNotifier.isAncestorOrSelf(cached, uri)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        responses.clear();
+    }
+
+    synchronized int size() {
+        return responses.size();
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @return a new cursor over the cached rows, or null if none are cached or they expired.
+     */
+    private synchronized Cursor lookup(Uri uri) {
+        String key = uri.toString();
+        Response response = responses.get(key);
+        if (response == null) {
+            return null;
+        }
+        if (ttlNanos > 0 && nanoTime() - response.createdNanos >= ttlNanos) {
+            responses.remove(key);
+            return null;
+        }
+        return response.newCursor();
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches the rows of {@code cursor} unless the cache was invalidated since {@code generation}.
+     *
+     * @return a cursor over the same rows, which is {@code cursor} itself if it was not cached.
+     */
+    private Cursor store(Uri uri, Cursor cursor, long generation) {
+        if (cursor == null || generation() != generation) {
+            return cursor;
+        }
+        Response response;
+        try {
+            response = Response.of(uri, cursor, nanoTime());
+        } finally {
+            cursor.close();
+        }
+        synchronized (this) {
+            if (this.generation == generation) {
+                responses.put(uri.toString(), response);
+            }
+        }
+        return response.newCursor();
+    }
+
+    private class CachingController extends ForwardingController {
+
+        CachingController(Controller delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Cursor get(Uri uri) {
+            Cursor cursor = lookup(uri);
+            if (cursor != null) {
+                return cursor;
+            }
+            long generation = generation();
+            return store(uri, super.get(uri), generation);
+        }
+    }
+
+    /**
+     * Rows of a response. Responses of {@link HttpContentAdapter} and {@link BinaryContentAdapter}
+     * keep their encoded bodies, and are served by a {@link LazyBodyCursor} again, so large bodies
+     * are still streamed.
+     */
+    private static class Response {
+        final Uri uri;
+        final CursorRows rows;
+        final boolean bodies;
+        final long createdNanos;
+
+        private Response(Uri uri, CursorRows rows, boolean bodies, long createdNanos) {
+            this.uri = uri;
+            this.rows = rows;
+            this.bodies = bodies;
+            this.createdNanos = createdNanos;
+        }
+
+        static Response of(Uri uri, Cursor cursor, long createdNanos) {
+            return new Response(uri, CursorRows.copyOf(cursor), cursor instanceof LazyBodyCursor, createdNanos);
+        }
+
+        Cursor newCursor() {
+            if (!bodies) {
+                return rows.newCursor();
+            }
+            List<Object> encoded = new ArrayList<Object>(rows.getCount());
+            for (int row = 0; row < rows.getCount(); row++) {
+                encoded.add(rows.get(row, 1));
+            }
+            return new LazyBodyCursor(rows.getColumnNames(), encoded, LazyBodyCursor.encoded());
+        }
+    }
+}
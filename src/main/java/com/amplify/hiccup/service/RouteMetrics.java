@@ -0,0 +1,81 @@
+package com.amplify.hiccup.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free call, error and latency counters for a single route, one set per {@link Verb}.
+ * Latencies are counted into fixed buckets so recording never allocates.
+ *
+ * <p>As an {@link Interceptor} it wraps the route's controller chain in an {@link InstrumentedController}.</p>
+ */
+class RouteMetrics implements Interceptor {
+
+    static final long[] BUCKET_UPPER_BOUNDS_NANOS = {
+            50000L, 100000L, 250000L, 500000L,
+            1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 50000000L,
+            100000000L, 250000000L, 500000000L, 1000000000L
+    };
+
+    private static final int CALLS = 0;
+    private static final int ERRORS = 1;
+    private static final int TOTAL_NANOS = 2;
+    private static final int FIRST_BUCKET = 3;
+    private static final int BUCKET_COUNT = BUCKET_UPPER_BOUNDS_NANOS.length + 1;
+    private static final int SLOTS_PER_VERB = FIRST_BUCKET + BUCKET_COUNT;
+
+    private final String path;
+    private final AtomicLongArray counters;
+
+    RouteMetrics(String path) {
+        this.path = path;
+        this.counters = new AtomicLongArray(Verb.values().length * SLOTS_PER_VERB);
+    }
+
+    @Override
+    public Controller intercept(String path, Controller next) {
+        return new InstrumentedController(next, this);
+    }
+
+    void record(Verb verb, long elapsedNanos, boolean failed) {
+        int offset = verb.ordinal() * SLOTS_PER_VERB;
+        counters.incrementAndGet(offset + CALLS);
+        if (failed) {
+            counters.incrementAndGet(offset + ERRORS);
+        }
+        counters.addAndGet(offset + TOTAL_NANOS, elapsedNanos);
+        counters.incrementAndGet(offset + FIRST_BUCKET + bucketOf(elapsedNanos));
+    }
+
+    /**
+     * Counters are read one at a time, so a snapshot taken while requests are in flight
+     * may be off by the requests that completed while it was being taken.
+     */
+    List<MetricsSnapshot> snapshot() {
+        List<MetricsSnapshot> snapshots = new ArrayList<MetricsSnapshot>();
+        for (Verb verb : Verb.values()) {
+            int offset = verb.ordinal() * SLOTS_PER_VERB;
+            long calls = counters.get(offset + CALLS);
+            if (calls == 0) {
+                continue;
+            }
+            long[] buckets = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = counters.get(offset + FIRST_BUCKET + i);
+            }
+            snapshots.add(new MetricsSnapshot(path, verb, calls, counters.get(offset + ERRORS),
+                    counters.get(offset + TOTAL_NANOS), buckets));
+        }
+        return snapshots;
+    }
+
+    private static int bucketOf(long elapsedNanos) {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+            if (elapsedNanos < BUCKET_UPPER_BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_NANOS.length;
+    }
+}
@@ -0,0 +1,184 @@
+package com.amplify.hiccup.service;
+
+import android.net.Uri;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled form of the routes registered in {@link HiccupService}. Each path segment is a node, so
+ * a request is matched with a single walk over its segments regardless of how many routes exist.
+ *
+ * <p>Supported segments are literals, {@code #} (numbers), {@code *} (any text) and their named forms
+ * {@code {name:#}}, {@code {name:*}} or {@code {name}}. Literals take precedence over numbers, which take
+ * precedence over text, and the walk backtracks when a more specific branch leads nowhere.</p>
+ */
+class RouteTrie {
+
+    private static final String NUMBER = "#";
+    private static final String TEXT = "*";
+
+    private final Node root = new Node();
+
+    void add(String pattern, HiccupService.ControllerInfo controllerInfo) {
+        Node node = root;
+        for (String segment : splitPattern(pattern)) {
+            node = node.child(wildcardOf(segment), literalOf(segment));
+        }
+        node.controllerInfo = controllerInfo;
+    }
+
+    static String[] parameterNamesOf(String pattern) {
+        String[] segments = splitPattern(pattern);
+        String[] names = new String[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            names[i] = nameOf(segments[i]);
+        }
+        return names;
+    }
+
+    Match match(Uri uri) {
+        List<String> segments = uri.getPathSegments();
+        String[] values = new String[segments.size()];
+        boolean[] numeric = new boolean[segments.size()];
+        HiccupService.ControllerInfo controllerInfo = match(root, segments, 0, values, numeric);
+        if (controllerInfo == null) {
+            return null;
+        }
+        PathParameters parameters = controllerInfo.hasParameters
+                ? new PathParameters(controllerInfo.parameterNames, values, numeric)
+                : PathParameters.EMPTY;
+        return new Match(controllerInfo, parameters);
+    }
+
+    private HiccupService.ControllerInfo match(Node node, List<String> segments, int index,
+                                               String[] values, boolean[] numeric) {
+        if (index == segments.size()) {
+            return node.controllerInfo;
+        }
+
+        String segment = segments.get(index);
+        HiccupService.ControllerInfo controllerInfo;
+        if (node.literals != null) {
+            Node literal = node.literals.get(segment);
+            if (literal != null) {
+                controllerInfo = match(literal, segments, index + 1, values, numeric);
+                if (controllerInfo != null) {
+                    values[index] = segment;
+                    return controllerInfo;
+                }
+            }
+        }
+        if (node.number != null && isNumber(segment)) {
+            controllerInfo = match(node.number, segments, index + 1, values, numeric);
+            if (controllerInfo != null) {
+                values[index] = segment;
+                numeric[index] = true;
+                return controllerInfo;
+            }
+        }
+        if (node.text != null) {
+            controllerInfo = match(node.text, segments, index + 1, values, numeric);
+            if (controllerInfo != null) {
+                values[index] = segment;
+                return controllerInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the segment is made of digits only, as {@link android.content.UriMatcher}'s
+     * {@code #} matches, however many there are.
+     */
+    private static boolean isNumber(String segment) {
+        int length = segment.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] splitPattern(String pattern) {
+        String path = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+        if (path.length() == 0) {
+            return new String[0];
+        }
+        return path.split("/");
+    }
+
+    private static String wildcardOf(String segment) {
+        if (segment.equals(NUMBER) || segment.equals(TEXT)) {
+            return segment;
+        }
+        if (isParameter(segment)) {
+            return segment.endsWith(":" + NUMBER + "}") ? NUMBER : TEXT;
+        }
+        return null;
+    }
+
+    private static String literalOf(String segment) {
+        return wildcardOf(segment) == null ? segment : null;
+    }
+
+    private static String nameOf(String segment) {
+        if (!isParameter(segment)) {
+            return null;
+        }
+        int separator = segment.indexOf(':');
+        int end = separator == -1 ? segment.length() - 1 : separator;
+        return segment.substring(1, end);
+    }
+
+    private static boolean isParameter(String segment) {
+        return segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    static class Match {
+        final HiccupService.ControllerInfo controllerInfo;
+        final PathParameters parameters;
+
+        Match(HiccupService.ControllerInfo controllerInfo, PathParameters parameters) {
+            this.controllerInfo = controllerInfo;
+            this.parameters = parameters;
+        }
+    }
+
+    private static class Node {
+        Map<String, Node> literals;
+        Node number;
+        Node text;
+        HiccupService.ControllerInfo controllerInfo;
+
+        Node child(String wildcard, String literal) {
+            if (NUMBER.equals(wildcard)) {
+                if (number == null) {
+                    number = new Node();
+                }
+                return number;
+            }
+            if (TEXT.equals(wildcard)) {
+                if (text == null) {
+                    text = new Node();
+                }
+                return text;
+            }
+            if (literals == null) {
+                literals = new HashMap<String, Node>();
+            }
+            Node node = literals.get(literal);
+            if (node == null) {
+                node = new Node();
+                literals.put(literal, node);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.amplify.hiccup.service;
+
+/**
+ * A {@link Controller} that can apply all of its operations of a batch in a single transaction,
+ * eg, in one SQLite transaction, instead of one transaction per operation.
+ *
+ * <p>{@link HiccupService#delegateApplyBatch(android.content.ContentProvider, java.util.ArrayList)}
+ * begins a batch on every transactional controller the batch's operations are routed to before
+ * applying the first operation, and ends them all once the last is applied. Controllers would
+ * typically defer their change notifications until the end of the batch too.</p>
+ *
+ * <p>The hook is found on the controller registered for a route, so it also applies when the
+ * route's controller is wrapped by {@link Interceptor}s.</p>
+ *
+ * @see YieldingController
+ */
+public interface TransactionalController extends Controller {
+
+    /**
+     * Called before any operation of the batch is dispatched to the controller.
+     */
+    void beginBatch();
+
+    /**
+     * Called once every operation of the batch has been dispatched, or as soon as one failed.
+     *
+     * @param successful false if the batch failed and its changes should be rolled back.
+     */
+    void endBatch(boolean successful);
+}
@@ -0,0 +1,16 @@
+package com.amplify.hiccup.service;
+
+/**
+ * The HTTP verbs a {@link Controller} responds to.
+ */
+public enum Verb {
+    GET,
+    POST,
+    PUT,
+    DELETE,
+    PATCH,
+    /**
+     * Bulk POST of several resources to a collection in a single request.
+     */
+    POST_ALL
+}
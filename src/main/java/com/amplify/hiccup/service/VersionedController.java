@@ -0,0 +1,21 @@
+package com.amplify.hiccup.service;
+
+import android.net.Uri;
+
+/**
+ * A {@link Controller} that can tell the current version of its resources cheaply, eg, from a
+ * last-modified column or a revision counter, without reading them. Clients that cache GETs, see
+ * {@link com.amplify.hiccup.client.HiccupClient#cacheResponses(int)}, then reuse the rows they
+ * have while the version is unchanged instead of transferring them again.
+ *
+ * <p>The hook is found on the controller registered for a route, so it is called without the
+ * route's {@link Interceptor}s, and must be thread-safe.</p>
+ */
+public interface VersionedController extends Controller {
+
+    /**
+     * @return the version of the resources at {@code uri}, which must change whenever a GET of the
+     *     Uri would return different rows, or null if it is not known.
+     */
+    String versionOf(Uri uri);
+}
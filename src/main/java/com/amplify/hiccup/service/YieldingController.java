@@ -0,0 +1,21 @@
+package com.amplify.hiccup.service;
+
+/**
+ * A {@link TransactionalController} that can yield its batch's transaction to other threads, eg,
+ * with {@link android.database.sqlite.SQLiteDatabase#yieldIfContendedSafely()}, so that long
+ * batches do not lock out readers for their whole duration.
+ *
+ * <p>{@link HiccupService#delegateApplyBatch(android.content.ContentProvider, java.util.ArrayList)}
+ * calls {@link #yieldBatch()} on every such controller that has begun the batch before each
+ * operation, but the first, that allows yielding, see
+ * {@link android.content.ContentProviderOperation#isYieldAllowed()}, eg, as requested by
+ * {@link com.amplify.hiccup.client.BatchRequest#allowYieldEvery(int)}.</p>
+ */
+public interface YieldingController extends TransactionalController {
+
+    /**
+     * Called between operations of the batch where the client allows the transaction to be
+     * yielded. Operations applied before a yield may stay applied if a later one fails.
+     */
+    void yieldBatch();
+}
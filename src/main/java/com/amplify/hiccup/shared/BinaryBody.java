@@ -0,0 +1,212 @@
+package com.amplify.hiccup.shared;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Compact binary alternative to a JSON body, for flat models described by a {@link ColumnPlan}.
+ *
+ * <p>A body starts with a magic byte, a format version and the plan's schema id, followed by the
+ * column count and one tagged value per column: integers as zig-zag varints, reals as 8 bytes, and
+ * strings and blobs as a varint length and their (UTF-8) bytes. Decoding a body into a model whose
+ * schema id differs fails instead of silently mixing up fields.</p>
+ */
+public final class BinaryBody {
+
+    static final byte MAGIC = 'H';
+    static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+    private static final byte TEXT = 3;
+    private static final byte BLOB = 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private BinaryBody() {
+    }
+
+    public static byte[] encode(Object model) {
+        ColumnPlan plan = ColumnPlan.of(model.getClass());
+        Object[] row = new Object[plan.size()];
+        plan.writeRow(model, row, 0);
+
+        Output output = new Output(16 + row.length * 4);
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        output.writeInt(plan.getSchemaId());
+        output.writeVarLong(row.length);
+        for (Object value : row) {
+            if (value == null) {
+                output.writeByte(NULL);
+            } else if (value instanceof Long) {
+                output.writeByte(INTEGER);
+                output.writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Double) {
+                output.writeByte(REAL);
+                output.writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof String) {
+                output.writeByte(TEXT);
+                output.writeBytes(((String) value).getBytes(UTF_8));
+            } else {
+                output.writeByte(BLOB);
+                output.writeBytes((byte[]) value);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the body is not a binary body, or was encoded from a
+     *     model with different columns.
+     */
+    public static <T> T decode(byte[] body, Class<T> modelClass) {
+        ColumnPlan plan = ColumnPlan.of(modelClass);
+        Input input = new Input(body);
+        if (body.length < 6 || input.readByte() != MAGIC || input.readByte() != VERSION) {
+            throw new IllegalArgumentException("Not a binary body");
+        }
+        if (input.readInt() != plan.getSchemaId() || input.readVarLong() != plan.size()) {
+            throw new IllegalArgumentException("Binary body does not match the schema of " + modelClass.getName());
+        }
+
+        Object[] row = new Object[plan.size()];
+        for (int i = 0; i < row.length; i++) {
+            byte tag = input.readByte();
+            switch (tag) {
+                case NULL:
+                    break;
+                case INTEGER:
+                    row[i] = unZigZag(input.readVarLong());
+                    break;
+                case REAL:
+                    row[i] = Double.longBitsToDouble(input.readLong());
+                    break;
+                case TEXT:
+                    row[i] = new String(input.readBytes(), UTF_8);
+                    break;
+                case BLOB:
+                    row[i] = input.readBytes();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown value tag in binary body (" + tag + ")");
+            }
+        }
+        return modelClass.cast(plan.fromRow(row, 0));
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output {
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        void writeVarLong(long value) {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                writeByte((int) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            writeByte((int) remaining);
+        }
+
+        void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int count) {
+            if (size + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+            }
+        }
+    }
+
+    private static class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated binary body");
+            }
+            return bytes[position++];
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary body");
+        }
+
+        byte[] readBytes() {
+            long length = readVarLong();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated binary body");
+            }
+            byte[] value = Arrays.copyOfRange(bytes, position, position + (int) length);
+            position += (int) length;
+            return value;
+        }
+    }
+}
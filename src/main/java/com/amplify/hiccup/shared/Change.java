@@ -0,0 +1,65 @@
+package com.amplify.hiccup.shared;
+
+import android.net.Uri;
+
+/**
+ * A change to a resource as published in the change feed of a
+ * {@link com.amplify.hiccup.service.HiccupService}. Versions increase with every change the
+ * service records, so they order the changes across all of its resources.
+ */
+public final class Change {
+
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE,
+        /**
+         * Something at or below the Uri changed, without saying what, so it must be fetched again.
+         */
+        INVALIDATE
+    }
+
+    private final Uri uri;
+    private final Operation operation;
+    private final long version;
+
+    public Change(Uri uri, Operation operation, long version) {
+        this.uri = uri;
+        this.operation = operation;
+        this.version = version;
+    }
+
+    public Uri getUri() {
+        return uri;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Change)) {
+            return false;
+        }
+        Change change = (Change) o;
+        return version == change.version && operation == change.operation && uri.equals(change.uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * uri.hashCode() + operation.hashCode()) + (int) (version ^ (version >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + uri + " @" + version;
+    }
+}
@@ -0,0 +1,104 @@
+package com.amplify.hiccup.shared;
+
+import android.net.Uri;
+import android.os.Bundle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wire format of the change feed, which clients read through
+ * {@link android.content.ContentResolver#call(Uri, String, String, Bundle)} with
+ * {@link #METHOD_CHANGES}, the Uri to read changes at or below as argument, and the last version
+ * they have seen in {@link #EXTRA_SINCE}.
+ */
+public final class ChangeFeed {
+
+    public static final String METHOD_CHANGES = "hiccup:changes";
+
+    public static final String EXTRA_SINCE = "hiccup:since";
+    public static final String EXTRA_VERSION = "hiccup:version";
+    public static final String EXTRA_COMPLETE = "hiccup:complete";
+    public static final String EXTRA_URIS = "hiccup:uris";
+    public static final String EXTRA_OPERATIONS = "hiccup:operations";
+    public static final String EXTRA_VERSIONS = "hiccup:versions";
+
+    private ChangeFeed() {
+    }
+
+    public static Bundle toBundle(Page page) {
+        List<Change> changes = page.getChanges();
+        String[] uris = new String[changes.size()];
+        String[] operations = new String[changes.size()];
+        long[] versions = new long[changes.size()];
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = changes.get(i);
+            uris[i] = change.getUri().toString();
+            operations[i] = change.getOperation().name();
+            versions[i] = change.getVersion();
+        }
+        Bundle bundle = new Bundle();
+        bundle.putLong(EXTRA_VERSION, page.getVersion());
+        bundle.putBoolean(EXTRA_COMPLETE, page.isComplete());
+        bundle.putStringArray(EXTRA_URIS, uris);
+        bundle.putStringArray(EXTRA_OPERATIONS, operations);
+        bundle.putLongArray(EXTRA_VERSIONS, versions);
+        return bundle;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bundle is not a page of the change feed.
+     */
+    public static Page fromBundle(Bundle bundle) {
+        String[] uris = bundle.getStringArray(EXTRA_URIS);
+        String[] operations = bundle.getStringArray(EXTRA_OPERATIONS);
+        long[] versions = bundle.getLongArray(EXTRA_VERSIONS);
+        if (uris == null || operations == null || versions == null
+                || uris.length != operations.length || uris.length != versions.length) {
+            throw new IllegalArgumentException("Not a change feed page");
+        }
+        List<Change> changes = new ArrayList<Change>(uris.length);
+        for (int i = 0; i < uris.length; i++) {
+            changes.add(new Change(Uri.parse(uris[i]), Change.Operation.valueOf(operations[i]), versions[i]));
+        }
+        return new Page(changes, bundle.getLong(EXTRA_VERSION), bundle.getBoolean(EXTRA_COMPLETE));
+    }
+
+    /**
+     * The changes recorded after a given version.
+     */
+    public static final class Page {
+        private final List<Change> changes;
+        private final long version;
+        private final boolean complete;
+
+        public Page(List<Change> changes, long version, boolean complete) {
+            this.changes = Collections.unmodifiableList(changes);
+            this.version = version;
+            this.complete = complete;
+        }
+
+        /**
+         * Returns the changes in the order they were recorded.
+         */
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        /**
+         * Returns the latest version of the feed, to read the next page from.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns false if changes after the requested version were already dropped from the feed,
+         * in which case the page has no changes and the reader must fetch its resources again.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
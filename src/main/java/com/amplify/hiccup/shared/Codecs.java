@@ -0,0 +1,74 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the {@link ModelCodec} generated for a {@link GenerateCodec} model, and holds the helpers
+ * generated codecs share.
+ */
+public final class Codecs {
+
+    public static final String SUFFIX = "_HiccupCodec";
+
+    private static final ConcurrentMap<Class<?>, ModelCodec<?>> CODECS = new ConcurrentHashMap<Class<?>, ModelCodec<?>>();
+
+    private Codecs() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if no codec was generated for {@code modelClass}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ModelCodec<T> of(Class<T> modelClass) {
+        ModelCodec<?> codec = CODECS.get(modelClass);
+        if (codec == null) {
+            codec = load(modelClass);
+            ModelCodec<?> existing = CODECS.putIfAbsent(modelClass, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return (ModelCodec<T>) codec;
+    }
+
+    public static void put(ContentValues contentValues, String key, Object value) {
+        if (value == null) {
+            contentValues.putNull(key);
+        } else if (value instanceof Long) {
+            contentValues.put(key, (Long) value);
+        } else if (value instanceof Double) {
+            contentValues.put(key, (Double) value);
+        } else if (value instanceof byte[]) {
+            contentValues.put(key, (byte[]) value);
+        } else {
+            contentValues.put(key, (String) value);
+        }
+    }
+
+    public static int[] indexesIn(Cursor cursor, String[] columnNames) {
+        int[] indexes = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            indexes[i] = cursor.getColumnIndex(columnNames[i]);
+        }
+        return indexes;
+    }
+
+    private static ModelCodec<?> load(Class<?> modelClass) {
+        String codecName = modelClass.getName() + SUFFIX;
+        try {
+            Class<?> codecClass = Class.forName(codecName, true, modelClass.getClassLoader());
+            return (ModelCodec<?>) codecClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("No codec generated for " + modelClass.getName()
+                    + ", is it annotated with @" + GenerateCodec.class.getSimpleName() + "?", e);
+        } catch (InstantiationException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + codecName, e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + codecName, e);
+        }
+    }
+}
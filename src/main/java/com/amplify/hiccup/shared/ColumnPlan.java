@@ -0,0 +1,365 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps the fields of a model class to typed columns: integral and boolean fields to INTEGER, floating
+ * point fields to REAL, strings and enums to TEXT and byte arrays to BLOB. Column names are the field
+ * names. Plans are built once per class with reflection and cached.
+ *
+ * <p>Only flat models are supported. Use JSON ({@link JsonConverter}) for nested models.</p>
+ */
+public final class ColumnPlan {
+
+    private static final ConcurrentMap<Class<?>, ColumnPlan> PLANS = new ConcurrentHashMap<Class<?>, ColumnPlan>();
+
+    private final Class<?> modelClass;
+    private final Constructor<?> constructor;
+    private final Column[] columns;
+    private final String[] columnNames;
+    private final int schemaId;
+
+    private ColumnPlan(Class<?> modelClass) {
+        this.modelClass = modelClass;
+        this.constructor = findConstructor(modelClass);
+        this.columns = findColumns(modelClass);
+        this.columnNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columnNames[i] = columns[i].name;
+        }
+        this.schemaId = schemaIdOf(columns);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the class has no no-arg constructor or a field that
+     *     cannot be mapped to a column.
+     */
+    public static ColumnPlan of(Class<?> modelClass) {
+        ColumnPlan plan = PLANS.get(modelClass);
+        if (plan == null) {
+            plan = new ColumnPlan(modelClass);
+            ColumnPlan existing = PLANS.putIfAbsent(modelClass, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    public int size() {
+        return columns.length;
+    }
+
+    /**
+     * Identifies the column names and types of the plan, so encoded rows can be checked against
+     * the model they are decoded into.
+     */
+    public int getSchemaId() {
+        return schemaId;
+    }
+
+    /**
+     * Copies the model's column values into {@code row}, starting at {@code offset}, in the
+     * order of {@link #getColumnNames()}.
+     */
+    public void writeRow(Object model, Object[] row, int offset) {
+        for (int i = 0; i < columns.length; i++) {
+            row[offset + i] = columns[i].read(model);
+        }
+    }
+
+    /**
+     * Creates a model from the column values in {@code row}, starting at {@code offset}, as written by
+     * {@link #writeRow(Object, Object[], int)}.
+     */
+    public Object fromRow(Object[] row, int offset) {
+        Object model = newInstance();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].write(model, columns[i].fromColumnValue(row[offset + i]));
+        }
+        return model;
+    }
+
+    public ContentValues toValues(Object model) {
+        ContentValues contentValues = new ContentValues(columns.length);
+        for (Column column : columns) {
+            Codecs.put(contentValues, column.name, column.read(model));
+        }
+        return contentValues;
+    }
+
+    public Object fromValues(ContentValues contentValues) {
+        Object model = newInstance();
+        for (Column column : columns) {
+            if (contentValues.containsKey(column.name)) {
+                column.write(model, column.getFrom(contentValues));
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Returns the index of each column in {@code cursor}, in the order of {@link #getColumnNames()},
+     * or -1 for columns the cursor doesn't have. Look up once per cursor and pass to
+     * {@link #fromCursor(Cursor, int[])} for every row.
+     */
+    public int[] indexesIn(Cursor cursor) {
+        return Codecs.indexesIn(cursor, columnNames);
+    }
+
+    /**
+     * Reads the current row of {@code cursor} into a new model.
+     */
+    public Object fromCursor(Cursor cursor, int[] indexes) {
+        return readCursor(cursor, indexes, newInstance());
+    }
+
+    /**
+     * Reads the current row of {@code cursor} into an existing {@code model}, so it can be reused
+     * across rows. Fields whose column the cursor doesn't have keep their value, and primitive
+     * fields whose column is null are reset to 0 or false, so no value is left over from the
+     * previous row.
+     */
+    public Object readCursor(Cursor cursor, int[] indexes, Object model) {
+        for (int i = 0; i < columns.length; i++) {
+            if (indexes[i] != -1) {
+                Object value = columns[i].getFrom(cursor, indexes[i]);
+                columns[i].write(model, value == null ? columns[i].zero : value);
+            }
+        }
+        return model;
+    }
+
+    private Object newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot instantiate " + modelClass.getName(), e);
+        }
+    }
+
+    private static Constructor<?> findConstructor(Class<?> modelClass) {
+        try {
+            Constructor<?> constructor = modelClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Model needs a no-arg constructor (" + modelClass.getName() + ")", e);
+        }
+    }
+
+    private static int schemaIdOf(Column[] columns) {
+        int schemaId = 17;
+        for (Column column : columns) {
+            schemaId = 31 * schemaId + column.name.hashCode();
+            schemaId = 31 * schemaId + column.kind.ordinal();
+        }
+        return schemaId;
+    }
+
+    private static Column[] findColumns(Class<?> modelClass) {
+        List<Column> columns = new ArrayList<Column>();
+        for (Class<?> type = modelClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                columns.add(new Column(field, Kind.of(field)));
+            }
+        }
+        return columns.toArray(new Column[columns.size()]);
+    }
+
+    private enum Kind {
+        LONG, INT, SHORT, BYTE, BOOLEAN, FLOAT, DOUBLE, STRING, ENUM, BLOB;
+
+        static Kind of(Field field) {
+            Class<?> type = field.getType();
+            if (type == long.class || type == Long.class) {
+                return LONG;
+            } else if (type == int.class || type == Integer.class) {
+                return INT;
+            } else if (type == short.class || type == Short.class) {
+                return SHORT;
+            } else if (type == byte.class || type == Byte.class) {
+                return BYTE;
+            } else if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            } else if (type == float.class || type == Float.class) {
+                return FLOAT;
+            } else if (type == double.class || type == Double.class) {
+                return DOUBLE;
+            } else if (type == String.class) {
+                return STRING;
+            } else if (type.isEnum()) {
+                return ENUM;
+            } else if (type == byte[].class) {
+                return BLOB;
+            }
+            throw new IllegalArgumentException("Field cannot be mapped to a column ("
+                    + field.getDeclaringClass().getName() + "." + field.getName() + ")");
+        }
+    }
+
+    private static class Column {
+        final Field field;
+        final String name;
+        final Kind kind;
+        final boolean primitive;
+        /**
+         * The default value of primitive fields, or null.
+         */
+        final Object zero;
+
+        Column(Field field, Kind kind) {
+            this.field = field;
+            this.name = field.getName();
+            this.kind = kind;
+            this.primitive = field.getType().isPrimitive();
+            this.zero = primitive ? fromColumnValue(kind == Kind.FLOAT || kind == Kind.DOUBLE ? (Object) 0d : (Object) 0L) : null;
+        }
+
+        /**
+         * Returns the cursor friendly value of the field: Long, Double, String or byte[].
+         */
+        Object read(Object model) {
+            Object value;
+            try {
+                value = field.get(model);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value == null) {
+                return null;
+            }
+            switch (kind) {
+                case BOOLEAN:
+                    return ((Boolean) value) ? 1L : 0L;
+                case LONG:
+                case INT:
+                case SHORT:
+                case BYTE:
+                    return ((Number) value).longValue();
+                case FLOAT:
+                case DOUBLE:
+                    return ((Number) value).doubleValue();
+                case ENUM:
+                    return ((Enum<?>) value).name();
+                default:
+                    return value;
+            }
+        }
+
+        void write(Object model, Object value) {
+            if (value == null && primitive) {
+                return;
+            }
+            try {
+                field.set(model, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Object getFrom(ContentValues contentValues) {
+            if (contentValues.get(name) == null) {
+                return null;
+            }
+            switch (kind) {
+                case LONG:
+                    return contentValues.getAsLong(name);
+                case INT:
+                    return contentValues.getAsInteger(name);
+                case SHORT:
+                    return contentValues.getAsShort(name);
+                case BYTE:
+                    return contentValues.getAsByte(name);
+                case BOOLEAN:
+                    return contentValues.getAsBoolean(name);
+                case FLOAT:
+                    return contentValues.getAsFloat(name);
+                case DOUBLE:
+                    return contentValues.getAsDouble(name);
+                case ENUM:
+                    return toEnum(contentValues.getAsString(name));
+                case BLOB:
+                    return contentValues.getAsByteArray(name);
+                default:
+                    return contentValues.getAsString(name);
+            }
+        }
+
+        /**
+         * Converts a value returned by {@link #read(Object)} back to the field's type.
+         */
+        Object fromColumnValue(Object value) {
+            if (value == null) {
+                return null;
+            }
+            switch (kind) {
+                case INT:
+                    return ((Number) value).intValue();
+                case SHORT:
+                    return ((Number) value).shortValue();
+                case BYTE:
+                    return ((Number) value).byteValue();
+                case BOOLEAN:
+                    return ((Number) value).longValue() != 0;
+                case FLOAT:
+                    return ((Number) value).floatValue();
+                case ENUM:
+                    return toEnum((String) value);
+                default:
+                    return value;
+            }
+        }
+
+        Object getFrom(Cursor cursor, int index) {
+            if (cursor.isNull(index)) {
+                return null;
+            }
+            switch (kind) {
+                case LONG:
+                    return cursor.getLong(index);
+                case INT:
+                    return cursor.getInt(index);
+                case SHORT:
+                    return cursor.getShort(index);
+                case BYTE:
+                    return (byte) cursor.getInt(index);
+                case BOOLEAN:
+                    return cursor.getLong(index) != 0;
+                case FLOAT:
+                    return cursor.getFloat(index);
+                case DOUBLE:
+                    return cursor.getDouble(index);
+                case ENUM:
+                    return toEnum(cursor.getString(index));
+                case BLOB:
+                    return cursor.getBlob(index);
+                default:
+                    return cursor.getString(index);
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object toEnum(String value) {
+            return Enum.valueOf((Class<Enum>) field.getType(), value);
+        }
+    }
+}
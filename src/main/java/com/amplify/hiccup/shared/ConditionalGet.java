@@ -0,0 +1,38 @@
+package com.amplify.hiccup.shared;
+
+import android.os.Bundle;
+
+/**
+ * Wire format of the version checks that let clients reuse the rows of a previous GET. Clients
+ * call {@link android.content.ContentResolver#call(android.net.Uri, String, String, Bundle)} with
+ * {@link #METHOD_VALIDATE}, the Uri of the resources as argument, and the version they have in
+ * {@link #EXTRA_VERSION}. The result says whether the resources were modified since, and their
+ * current version, if known, to keep with the rows of the GET that follows.
+ */
+public final class ConditionalGet {
+
+    public static final String METHOD_VALIDATE = "hiccup:validate";
+
+    public static final String EXTRA_VERSION = "hiccup:version";
+    public static final String EXTRA_MODIFIED = "hiccup:modified";
+
+    private ConditionalGet() {
+    }
+
+    public static Bundle request(String version) {
+        Bundle bundle = new Bundle();
+        bundle.putString(EXTRA_VERSION, version);
+        return bundle;
+    }
+
+    /**
+     * @param version the current version of the resources, or null if it is not known, in which
+     *     case their rows cannot be reused.
+     */
+    public static Bundle response(boolean modified, String version) {
+        Bundle bundle = new Bundle();
+        bundle.putBoolean(EXTRA_MODIFIED, modified);
+        bundle.putString(EXTRA_VERSION, version);
+        return bundle;
+    }
+}
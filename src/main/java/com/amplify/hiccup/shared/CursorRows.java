@@ -0,0 +1,70 @@
+package com.amplify.hiccup.shared;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+/**
+ * Copies of the values of every row of a cursor, to serve them again without the cursor, eg, from
+ * a cache. Each copy is read by a new cursor, so copies may be shared by concurrent readers.
+ */
+public final class CursorRows {
+
+    private final String[] columnNames;
+    private final Object[][] rows;
+
+    private CursorRows(String[] columnNames, Object[][] rows) {
+        this.columnNames = columnNames;
+        this.rows = rows;
+    }
+
+    /**
+     * Reads every row of {@code cursor}, which is left open.
+     */
+    public static CursorRows copyOf(Cursor cursor) {
+        String[] columnNames = cursor.getColumnNames();
+        Object[][] rows = new Object[cursor.getCount()][];
+        for (int row = 0; row < rows.length && cursor.moveToPosition(row); row++) {
+            Object[] values = new Object[columnNames.length];
+            for (int column = 0; column < values.length; column++) {
+                values[column] = valueOf(cursor, column);
+            }
+            rows[row] = values;
+        }
+        return new CursorRows(columnNames, rows);
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    public int getCount() {
+        return rows.length;
+    }
+
+    public Object get(int row, int column) {
+        return rows[row][column];
+    }
+
+    public Cursor newCursor() {
+        MatrixCursor cursor = new MatrixCursor(columnNames, rows.length);
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    private static Object valueOf(Cursor cursor, int column) {
+        switch (cursor.getType(column)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(column);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(column);
+            case Cursor.FIELD_TYPE_STRING:
+                return cursor.getString(column);
+            case Cursor.FIELD_TYPE_BLOB:
+                return cursor.getBlob(column);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.amplify.hiccup.shared;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class for which a {@link ModelCodec} is generated at compile time by the
+ * annotation processor of the hiccup-processor artifact, which must be on the compile classpath.
+ *
+ * <p>The model needs a non-private no-arg constructor and its fields must be non-private and of a
+ * type supported by {@link ColumnPlan}. As with {@link ColumnPlan}, fields inherited from
+ * superclasses are columns too, after the model's own fields, and must be public or declared in the
+ * model's package. Static and transient fields are ignored.</p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec {
+}
@@ -0,0 +1,126 @@
+package com.amplify.hiccup.shared;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Per-thread buffers for converting models to and from JSON. With a {@link StreamingJsonConverter},
+ * models are written into a reused builder and cursor bodies are parsed straight out of a reused char
+ * buffer, so bulk reads and writes don't allocate and grow new buffers for every row. Any other
+ * {@link JsonConverter} is simply called directly.
+ */
+public final class JsonBuffers {
+
+    /**
+     * Buffers that grew beyond this many chars for an unusually large model are not kept around.
+     */
+    static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> WRITE_BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(1024);
+        }
+    };
+
+    private static final ThreadLocal<CharArrayBuffer> READ_BUFFER = new ThreadLocal<CharArrayBuffer>() {
+        @Override
+        protected CharArrayBuffer initialValue() {
+            return new CharArrayBuffer(1024);
+        }
+    };
+
+    private static final ThreadLocal<CharsReader> READER = new ThreadLocal<CharsReader>() {
+        @Override
+        protected CharsReader initialValue() {
+            return new CharsReader();
+        }
+    };
+
+    private JsonBuffers() {
+    }
+
+    public static String toJson(JsonConverter jsonConverter, Object model) {
+        if (!(jsonConverter instanceof StreamingJsonConverter)) {
+            return jsonConverter.toJson(model);
+        }
+
+        StringBuilder buffer = WRITE_BUFFER.get();
+        buffer.setLength(0);
+        try {
+            ((StreamingJsonConverter) jsonConverter).toJson(model, buffer);
+            return buffer.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write JSON", e);
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_CHARS) {
+                WRITE_BUFFER.remove();
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Converts the JSON in {@code column} of the cursor's current row to a model.
+     */
+    public static <T> T fromJson(JsonConverter jsonConverter, Cursor cursor, int column, Class<T> aClass) {
+        if (!(jsonConverter instanceof StreamingJsonConverter)) {
+            return jsonConverter.fromJson(cursor.getString(column), aClass);
+        }
+        if (cursor.isNull(column)) {
+            return null;
+        }
+
+        CharArrayBuffer buffer = READ_BUFFER.get();
+        CharsReader reader = READER.get();
+        cursor.copyStringToBuffer(column, buffer);
+        reader.reset(buffer.data, buffer.sizeCopied);
+        try {
+            return ((StreamingJsonConverter) jsonConverter).fromJson(reader, aClass);
+        } finally {
+            reader.reset(null, 0);
+            if (buffer.data != null && buffer.data.length > MAX_RETAINED_CHARS) {
+                READ_BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * Reader over a char array that can be pointed at new contents without allocating.
+     */
+    private static class CharsReader extends Reader {
+        private char[] chars;
+        private int length;
+        private int position;
+
+        void reset(char[] chars, int length) {
+            this.chars = chars;
+            this.length = length;
+            this.position = 0;
+        }
+
+        @Override
+        public int read(char[] destination, int offset, int count) {
+            if (position >= length) {
+                return -1;
+            }
+            int read = Math.min(count, length - position);
+            System.arraycopy(chars, position, destination, offset, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int read() {
+            return position < length ? chars[position++] : -1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
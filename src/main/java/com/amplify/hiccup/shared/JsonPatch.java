@@ -0,0 +1,497 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An RFC 6902 JSON Patch, sent by clients as one {@link ContentValues} per operation through
+ * {@link com.amplify.hiccup.client.HiccupClient#patch(android.net.Uri, ContentValues[])}.
+ *
+ * <p>Each operation has an {@link #OP} and a {@link #PATH}, and depending on the operation a
+ * {@link #FROM} path or a {@link #VALUE} holding the JSON text of the value. The operations are
+ * parsed once, and applied in order to an in-memory copy of the document, so a patch with a failing
+ * operation, eg, a failed {@code test}, leaves nothing half applied.</p>
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc6902">http://tools.ietf.org/html/rfc6902</a>
+ */
+public final class JsonPatch {
+
+    public static final String OP = "op";
+    public static final String PATH = "path";
+    public static final String FROM = "from";
+    public static final String VALUE = "value";
+
+    public static final String OP_ADD = "add";
+    public static final String OP_REMOVE = "remove";
+    public static final String OP_REPLACE = "replace";
+    public static final String OP_MOVE = "move";
+    public static final String OP_COPY = "copy";
+    public static final String OP_TEST = "test";
+
+    private final List<Operation> operations;
+
+    private JsonPatch(List<Operation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Parses the operations of a patch, including the JSON of their values.
+     *
+     * @throws IllegalArgumentException if an operation is malformed.
+     */
+    public static JsonPatch parse(ContentValues[] contentValues) {
+        if (contentValues == null) {
+            throw new IllegalArgumentException("Patch has no operations");
+        }
+        List<Operation> operations = new ArrayList<Operation>(contentValues.length);
+        for (int i = 0; i < contentValues.length; i++) {
+            operations.add(Operation.parse(i, contentValues[i]));
+        }
+        return new JsonPatch(operations);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Applies the patch to a JSON document.
+     *
+     * @return the JSON of the patched document.
+     *
+     * @throws IllegalArgumentException if the document is not valid JSON, or an operation cannot be
+     *     applied to it.
+     */
+    public String apply(String json) {
+        Object document = parseJson(json, "document");
+        for (Operation operation : operations) {
+            document = operation.apply(document);
+        }
+        StringBuilder builder = new StringBuilder(json.length());
+        writeJson(document, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Builds the {@link ContentValues} of a patch. Values may be null, strings, numbers, booleans,
+     * and maps and collections of those, and are sent as JSON.
+     */
+    public static class Builder {
+        private final List<ContentValues> operations = new ArrayList<ContentValues>();
+
+        public Builder add(String path, Object value) {
+            return withValue(OP_ADD, path, value);
+        }
+
+        public Builder remove(String path) {
+            return operation(OP_REMOVE, path);
+        }
+
+        public Builder replace(String path, Object value) {
+            return withValue(OP_REPLACE, path, value);
+        }
+
+        public Builder move(String from, String path) {
+            return withFrom(OP_MOVE, from, path);
+        }
+
+        public Builder copy(String from, String path) {
+            return withFrom(OP_COPY, from, path);
+        }
+
+        public Builder test(String path, Object value) {
+            return withValue(OP_TEST, path, value);
+        }
+
+        public ContentValues[] build() {
+            return operations.toArray(new ContentValues[operations.size()]);
+        }
+
+        private Builder withValue(String op, String path, Object value) {
+            StringBuilder json = new StringBuilder();
+            writeJson(value, json);
+            newOperation(op, path).put(VALUE, json.toString());
+            return this;
+        }
+
+        private Builder withFrom(String op, String from, String path) {
+            newOperation(op, path).put(FROM, from);
+            return this;
+        }
+
+        private Builder operation(String op, String path) {
+            newOperation(op, path);
+            return this;
+        }
+
+        private ContentValues newOperation(String op, String path) {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(OP, op);
+            contentValues.put(PATH, path);
+            operations.add(contentValues);
+            return contentValues;
+        }
+    }
+
+    private static class Operation {
+        final int index;
+        final String op;
+        final String[] path;
+        final String[] from;
+        final Object value;
+
+        Operation(int index, String op, String[] path, String[] from, Object value) {
+            this.index = index;
+            this.op = op;
+            this.path = path;
+            this.from = from;
+            this.value = value;
+        }
+
+        static Operation parse(int index, ContentValues contentValues) {
+            String op = contentValues == null ? null : contentValues.getAsString(OP);
+            if (op == null) {
+                throw new IllegalArgumentException("Patch operation " + index + " has no op");
+            }
+            String[] path = pointer(index, contentValues, PATH);
+            if (OP_MOVE.equals(op) || OP_COPY.equals(op)) {
+                String[] from = pointer(index, contentValues, FROM);
+                if (OP_MOVE.equals(op) && isProperPrefix(from, path)) {
+                    throw new IllegalArgumentException("Patch operation " + index + " moves a value into itself");
+                }
+                return new Operation(index, op, path, from, null);
+            }
+            if (OP_REMOVE.equals(op)) {
+                return new Operation(index, op, path, null, null);
+            }
+            if (OP_ADD.equals(op) || OP_REPLACE.equals(op) || OP_TEST.equals(op)) {
+                if (!contentValues.containsKey(VALUE)) {
+                    throw new IllegalArgumentException("Patch operation " + index + " has no value");
+                }
+                Object value = parseJson(contentValues.getAsString(VALUE), "value of patch operation " + index);
+                return new Operation(index, op, path, null, value);
+            }
+            throw new IllegalArgumentException("Patch operation " + index + " has an unknown op (" + op + ")");
+        }
+
+        Object apply(Object document) {
+            if (OP_ADD.equals(op)) {
+                return add(document, path, copyOf(value));
+            } else if (OP_REMOVE.equals(op)) {
+                return remove(document, path);
+            } else if (OP_REPLACE.equals(op)) {
+                return replace(document, path, copyOf(value));
+            } else if (OP_MOVE.equals(op)) {
+                if (Arrays.equals(from, path)) {
+                    get(document, from);
+                    return document;
+                }
+                Object moved = get(document, from);
+                return add(remove(document, from), path, moved);
+            } else if (OP_COPY.equals(op)) {
+                return add(document, path, copyOf(get(document, from)));
+            } else if (!jsonEquals(get(document, path), value)) {
+                throw failure("value differs", path);
+            }
+            return document;
+        }
+
+        private Object get(Object document, String[] pointer) {
+            Object current = document;
+            for (int i = 0; i < pointer.length; i++) {
+                current = child(current, pointer, i);
+            }
+            return current;
+        }
+
+        private Object add(Object document, String[] pointer, Object addition) {
+            if (pointer.length == 0) {
+                return addition;
+            }
+            Object parent = parentOf(document, pointer);
+            String token = pointer[pointer.length - 1];
+            if (parent instanceof Map) {
+                mapOf(parent).put(token, addition);
+            } else if (parent instanceof List) {
+                List<Object> list = listOf(parent);
+                list.add("-".equals(token) ? list.size() : index(token, list.size(), pointer), addition);
+            } else {
+                throw failure("parent is not an object or array", pointer);
+            }
+            return document;
+        }
+
+        private Object replace(Object document, String[] pointer, Object replacement) {
+            if (pointer.length == 0) {
+                return replacement;
+            }
+            Object parent = parentOf(document, pointer);
+            String token = pointer[pointer.length - 1];
+            if (parent instanceof Map && mapOf(parent).containsKey(token)) {
+                mapOf(parent).put(token, replacement);
+            } else if (parent instanceof List) {
+                List<Object> list = listOf(parent);
+                list.set(index(token, list.size() - 1, pointer), replacement);
+            } else {
+                throw failure("path does not exist", pointer);
+            }
+            return document;
+        }
+
+        private Object remove(Object document, String[] pointer) {
+            if (pointer.length == 0) {
+                throw failure("cannot remove the whole document", pointer);
+            }
+            Object parent = parentOf(document, pointer);
+            String token = pointer[pointer.length - 1];
+            if (parent instanceof Map && mapOf(parent).containsKey(token)) {
+                mapOf(parent).remove(token);
+            } else if (parent instanceof List) {
+                List<Object> list = listOf(parent);
+                list.remove(index(token, list.size() - 1, pointer));
+            } else {
+                throw failure("path does not exist", pointer);
+            }
+            return document;
+        }
+
+        private Object parentOf(Object document, String[] pointer) {
+            Object current = document;
+            for (int i = 0; i < pointer.length - 1; i++) {
+                current = child(current, pointer, i);
+            }
+            return current;
+        }
+
+        private Object child(Object parent, String[] pointer, int depth) {
+            String token = pointer[depth];
+            if (parent instanceof Map && mapOf(parent).containsKey(token)) {
+                return mapOf(parent).get(token);
+            }
+            if (parent instanceof List) {
+                List<Object> list = listOf(parent);
+                return list.get(index(token, list.size() - 1, pointer));
+            }
+            throw failure("path does not exist", pointer);
+        }
+
+        private int index(String token, int max, String[] pointer) {
+            boolean digits = token.length() > 0 && (token.length() == 1 || token.charAt(0) != '0');
+            for (int i = 0; i < token.length() && digits; i++) {
+                digits = Character.isDigit(token.charAt(i));
+            }
+            int index = digits && token.length() < 10 ? Integer.parseInt(token) : -1;
+            if (index < 0 || index > max) {
+                throw failure("array index out of bounds (" + token + ")", pointer);
+            }
+            return index;
+        }
+
+        private IllegalArgumentException failure(String reason, String[] pointer) {
+            return new IllegalArgumentException("Patch operation " + index + " (" + op + " "
+                    + pointerToString(pointer) + ") failed: " + reason);
+        }
+    }
+
+    private static String[] pointer(int index, ContentValues contentValues, String key) {
+        String pointer = contentValues.getAsString(key);
+        if (pointer == null || (pointer.length() > 0 && pointer.charAt(0) != '/')) {
+            throw new IllegalArgumentException("Patch operation " + index + " has an invalid " + key + " (" + pointer + ")");
+        }
+        if (pointer.length() == 0) {
+            return new String[0];
+        }
+        String[] tokens = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].replace("~1", "/").replace("~0", "~");
+        }
+        return tokens;
+    }
+
+    private static String pointerToString(String[] pointer) {
+        StringBuilder builder = new StringBuilder();
+        for (String token : pointer) {
+            builder.append('/').append(token.replace("~", "~0").replace("/", "~1"));
+        }
+        return builder.toString();
+    }
+
+    private static boolean isProperPrefix(String[] prefix, String[] pointer) {
+        if (prefix.length >= pointer.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (!prefix[i].equals(pointer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mapOf(Object object) {
+        return (Map<String, Object>) object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> listOf(Object object) {
+        return (List<Object>) object;
+    }
+
+    private static Object copyOf(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<String, Object>();
+            for (Map.Entry<String, Object> entry : mapOf(value).entrySet()) {
+                copy.put(entry.getKey(), copyOf(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<Object>(listOf(value).size());
+            for (Object element : listOf(value)) {
+                copy.add(copyOf(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * JSON equality, where numbers are equal by value regardless of how they were parsed, eg, 1 and 1.0.
+     */
+    static boolean jsonEquals(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            Number x = (Number) a;
+            Number y = (Number) b;
+            if (isIntegral(x) && isIntegral(y)) {
+                return x.longValue() == y.longValue();
+            }
+            return x.doubleValue() == y.doubleValue();
+        }
+        if (a instanceof Map && b instanceof Map) {
+            Map<String, Object> x = mapOf(a);
+            Map<String, Object> y = mapOf(b);
+            if (x.size() != y.size()) {
+                return false;
+            }
+            for (Map.Entry<String, Object> entry : x.entrySet()) {
+                if (!y.containsKey(entry.getKey()) || !jsonEquals(entry.getValue(), y.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof List && b instanceof List) {
+            List<Object> x = listOf(a);
+            List<Object> y = listOf(b);
+            if (x.size() != y.size()) {
+                return false;
+            }
+            for (int i = 0; i < x.size(); i++) {
+                if (!jsonEquals(x.get(i), y.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+
+    /**
+     * Parses JSON into maps, lists, strings, numbers, booleans and nulls.
+     */
+    private static Object parseJson(String json, String what) {
+        if (json == null) {
+            throw new IllegalArgumentException("Invalid JSON for " + what + " (null)");
+        }
+        try {
+            JSONTokener tokener = new JSONTokener(json);
+            Object value = tokener.nextValue();
+            if (tokener.nextClean() != 0) {
+                throw tokener.syntaxError("Unexpected content after JSON value");
+            }
+            return fromOrgJson(value);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Invalid JSON for " + what + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private static Object fromOrgJson(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            Iterator<?> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = (String) keys.next();
+                map.put(key, fromOrgJson(object.get(key)));
+            }
+            return map;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            List<Object> list = new ArrayList<Object>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                list.add(fromOrgJson(array.get(i)));
+            }
+            return list;
+        }
+        return value == JSONObject.NULL ? null : value;
+    }
+
+    private static void writeJson(Object value, StringBuilder builder) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof String) {
+            builder.append(JSONObject.quote((String) value));
+        } else if (value instanceof Number) {
+            try {
+                builder.append(JSONObject.numberToString((Number) value));
+            } catch (JSONException e) {
+                throw new IllegalArgumentException("Invalid JSON number (" + value + ")");
+            }
+        } else if (value instanceof Boolean) {
+            builder.append(value);
+        } else if (value instanceof Map) {
+            builder.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                builder.append(JSONObject.quote(String.valueOf(entry.getKey()))).append(':');
+                writeJson(entry.getValue(), builder);
+            }
+            builder.append('}');
+        } else if (value instanceof Collection) {
+            builder.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                writeJson(element, builder);
+            }
+            builder.append(']');
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as a patch value");
+        }
+    }
+}
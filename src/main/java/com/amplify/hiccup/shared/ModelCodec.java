@@ -0,0 +1,19 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+/**
+ * Reads and writes a model as typed columns, with the same layout as {@link ColumnPlan} but without
+ * reflection. Implementations are generated for classes annotated with {@link GenerateCodec}.
+ *
+ * @see Codecs#of(Class)
+ */
+public interface ModelCodec<T> {
+    String[] getColumnNames();
+    void writeRow(T model, Object[] row, int offset);
+    ContentValues toValues(T model);
+    T fromValues(ContentValues contentValues);
+    int[] indexesIn(Cursor cursor);
+    T fromCursor(Cursor cursor, int[] indexes);
+}
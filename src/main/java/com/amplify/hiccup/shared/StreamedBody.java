@@ -0,0 +1,367 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves bodies that are too large for a binder transaction or a {@link android.database.CursorWindow}
+ * through a {@link ParcelFileDescriptor} pipe instead, in chunks, so neither end needs the limits
+ * of the other.
+ *
+ * <p>Large request values are written to a pipe handed to the provider through
+ * {@link android.content.ContentResolver#call(Uri, String, String, android.os.Bundle)}, and large
+ * response bodies are replaced by a token in the {@link #STREAM_COLUMN}, which the client resolves
+ * with {@link android.content.ContentResolver#openFileDescriptor(Uri, String)}.</p>
+ */
+public final class StreamedBody {
+
+    /**
+     * Bodies of this many bytes or fewer are sent inline.
+     */
+    public static final int DEFAULT_THRESHOLD_BYTES = 256 * 1024;
+
+    public static final String STREAM_COLUMN = "body_stream";
+
+    /**
+     * Number of threads that write pipes, see {@link #pipe(PipeWriter)}.
+     */
+    public static final int MAX_PIPE_WRITERS = 4;
+
+    public static final String METHOD_POST = "hiccup:post";
+    public static final String METHOD_PUT = "hiccup:put";
+    public static final String METHOD_PATCH = "hiccup:patch";
+    public static final String METHOD_POST_ALL = "hiccup:post-all";
+
+    public static final String EXTRA_BODY = "hiccup:body";
+    public static final String EXTRA_VALUES = "hiccup:values";
+    public static final String EXTRA_URI = "hiccup:uri";
+    public static final String EXTRA_COUNT = "hiccup:count";
+
+    static final String STREAMS_PATH = "_hiccup/streams";
+
+    private static final char TEXT_TOKEN = 't';
+    private static final char BLOB_TOKEN = 'b';
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte SHORT = 4;
+    private static final byte BYTE = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte BLOB = 9;
+
+    private StreamedBody() {
+    }
+
+    /**
+     * Writes into the pipe returned by {@link #pipe(PipeWriter)}, on a background thread.
+     */
+    public interface PipeWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Returns the read end of a new pipe, and has a writer thread fill the write end with
+     * {@code writer} and close it. The caller owns the returned descriptor.
+     *
+     * <p>At most {@link #MAX_PIPE_WRITERS} pipes are written at once per process. Further pipes wait
+     * for a writer thread to be free, and their readers block until then.</p>
+     */
+    public static ParcelFileDescriptor pipe(final PipeWriter writer) throws IOException {
+        ParcelFileDescriptor[] pipe = ParcelFileDescriptor.createPipe();
+        final OutputStream outputStream = new ParcelFileDescriptor.AutoCloseOutputStream(pipe[1]);
+        try {
+            PipeWriters.INSTANCE.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writer.write(outputStream);
+                    } catch (IOException e) {
+                        // the reader went away, it will see a truncated body
+                    } finally {
+                        closeQuietly(outputStream);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            closeQuietly(outputStream);
+            closeQuietly(pipe[0]);
+            throw new IOException("Could not start writing the pipe", e);
+        }
+        return pipe[0];
+    }
+
+    /**
+     * Returns the number of bytes {@code contentValues} would roughly take in a binder transaction.
+     */
+    public static long sizeOfValues(ContentValues... contentValues) {
+        long size = 0;
+        if (contentValues == null) {
+            return size;
+        }
+        for (ContentValues values : contentValues) {
+            if (values == null) {
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : values.valueSet()) {
+                Object value = entry.getValue();
+                size += entry.getKey().length() * 2;
+                if (value instanceof String) {
+                    size += ((String) value).length() * 2;
+                } else if (value instanceof byte[]) {
+                    size += ((byte[]) value).length;
+                } else {
+                    size += 8;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes {@code body}, a String or byte[], would roughly take in a cursor window.
+     */
+    public static long sizeOfBody(Object body) {
+        if (body instanceof byte[]) {
+            return ((byte[]) body).length;
+        }
+        return body == null ? 0 : ((String) body).length();
+    }
+
+    public static String newToken(Object body, String id) {
+        return (body instanceof byte[] ? BLOB_TOKEN : TEXT_TOKEN) + id;
+    }
+
+    public static boolean isBlobToken(String token) {
+        return token.charAt(0) == BLOB_TOKEN;
+    }
+
+    public static Uri streamUri(String authority, String token) {
+        return new Uri.Builder().scheme("content").authority(authority).path(STREAMS_PATH).appendPath(token).build();
+    }
+
+    /**
+     * Returns the token of a uri built by {@link #streamUri(String, String)}, or null for any other uri.
+     */
+    public static String tokenOf(Uri uri) {
+        String path = uri.getPath();
+        String prefix = "/" + STREAMS_PATH + "/";
+        if (path == null || !path.startsWith(prefix) || path.length() == prefix.length()) {
+            return null;
+        }
+        return uri.getLastPathSegment();
+    }
+
+    public static void writeBody(Object body, OutputStream outputStream) throws IOException {
+        if (body instanceof byte[]) {
+            byte[] bytes = (byte[]) body;
+            for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+                outputStream.write(bytes, offset, Math.min(CHUNK_SIZE, bytes.length - offset));
+            }
+            outputStream.flush();
+            return;
+        }
+        String text = (String) body;
+        Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+        for (int offset = 0; offset < text.length(); offset += CHUNK_SIZE) {
+            writer.write(text, offset, Math.min(CHUNK_SIZE, text.length() - offset));
+        }
+        writer.flush();
+    }
+
+    public static String readText(InputStream inputStream) throws IOException {
+        Reader reader = new InputStreamReader(inputStream, UTF_8);
+        StringBuilder text = new StringBuilder(CHUNK_SIZE);
+        char[] chunk = new char[CHUNK_SIZE];
+        int count;
+        while ((count = reader.read(chunk)) != -1) {
+            text.append(chunk, 0, count);
+        }
+        return text.toString();
+    }
+
+    public static byte[] readBlob(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream blob = new ByteArrayOutputStream(CHUNK_SIZE);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int count;
+        while ((count = inputStream.read(chunk)) != -1) {
+            blob.write(chunk, 0, count);
+        }
+        return blob.toByteArray();
+    }
+
+    /**
+     * Writes each value with its type, so {@link #readValues(InputStream)} restores the same
+     * {@link ContentValues}.
+     */
+    public static void writeValues(ContentValues[] contentValues, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream, CHUNK_SIZE));
+        output.writeInt(contentValues.length);
+        for (ContentValues values : contentValues) {
+            output.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.valueSet()) {
+                output.writeUTF(entry.getKey());
+                writeValue(entry.getValue(), output);
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * @throws IOException if the stream ends early or holds a value of an unknown type.
+     */
+    public static ContentValues[] readValues(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream, CHUNK_SIZE));
+        ContentValues[] contentValues = new ContentValues[input.readInt()];
+        for (int i = 0; i < contentValues.length; i++) {
+            int size = input.readInt();
+            ContentValues values = new ContentValues(size);
+            for (int j = 0; j < size; j++) {
+                readValue(input.readUTF(), input, values);
+            }
+            contentValues[i] = values;
+        }
+        return contentValues;
+    }
+
+    public static void closeQuietly(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (IOException e) {
+            // nothing left to do
+        }
+    }
+
+    private static void writeValue(Object value, DataOutputStream output) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(UTF_8);
+            output.writeByte(STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Short) {
+            output.writeByte(SHORT);
+            output.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            output.writeByte(FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            output.writeByte(BLOB);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type (" + value.getClass().getName() + ")");
+        }
+    }
+
+    private static void readValue(String key, DataInputStream input, ContentValues values) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case NULL:
+                values.putNull(key);
+                break;
+            case STRING:
+                values.put(key, new String(readBytes(input), UTF_8));
+                break;
+            case LONG:
+                values.put(key, input.readLong());
+                break;
+            case INTEGER:
+                values.put(key, input.readInt());
+                break;
+            case SHORT:
+                values.put(key, input.readShort());
+                break;
+            case BYTE:
+                values.put(key, input.readByte());
+                break;
+            case DOUBLE:
+                values.put(key, input.readDouble());
+                break;
+            case FLOAT:
+                values.put(key, input.readFloat());
+                break;
+            case BOOLEAN:
+                values.put(key, input.readBoolean());
+                break;
+            case BLOB:
+                values.put(key, readBytes(input));
+                break;
+            default:
+                throw new IOException("Unknown value type in streamed body (" + type + ")");
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static class PipeWriters {
+        static final ThreadPoolExecutor INSTANCE = newPipeWriters();
+
+        private static ThreadPoolExecutor newPipeWriters() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PIPE_WRITERS, MAX_PIPE_WRITERS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "hiccup-pipe-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.amplify.hiccup.shared;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link JsonConverter} that can write into and read from caller supplied buffers, letting
+ * adapters reuse the same buffers across rows instead of allocating per model.
+ *
+ * @see JsonBuffers
+ */
+public interface StreamingJsonConverter extends JsonConverter {
+    void toJson(Object object, Appendable appendable) throws IOException;
+    <T> T fromJson(Reader reader, Class<T> aClass);
+}
@@ -13,8 +13,10 @@ import org.mockito.Mock;
 import org.robolectric.RobolectricTestRunner;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
@@ -167,6 +169,180 @@ public class BatchRequestTest {
                 .submit();
     }
 
+    @Test
+    public void splitIntoChunksByOperationCount() {
+        batchRequest.chunkBy(2, Long.MAX_VALUE);
+
+        batchRequest.delete(uri).delete(uri).delete(uri).delete(uri).delete(uri);
+
+        List<ArrayList<ContentProviderOperation>> chunks = batchRequest.chunks();
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks.get(0)).hasSize(2);
+        assertThat(chunks.get(2)).hasSize(1);
+    }
+
+    @Test
+    public void splitIntoChunksByEstimatedBytes() {
+        ContentValues large = new ContentValues();
+        large.put("body", new String(new char[1000]));
+        batchRequest.chunkBy(100, 3000);
+
+        batchRequest.post(uri, large).post(uri, large).post(uri, large);
+
+        List<ArrayList<ContentProviderOperation>> chunks = batchRequest.chunks();
+        assertThat(chunks).hasSize(3);
+    }
+
+    @Test
+    public void applyOperationLargerThanChunkOnItsOwn() {
+        ContentValues large = new ContentValues();
+        large.put("body", new String(new char[1000]));
+        batchRequest.chunkBy(100, 10);
+
+        batchRequest.post(uri, large).delete(uri);
+
+        assertThat(batchRequest.chunks()).hasSize(2);
+    }
+
+    @Test
+    public void allowYieldAtIntervalsWithinChunk() {
+        batchRequest.allowYieldEvery(2);
+
+        batchRequest.delete(uri).delete(uri).delete(uri).delete(uri).delete(uri);
+
+        ArrayList<ContentProviderOperation> chunk = batchRequest.chunks().get(0);
+        assertThat(chunk.get(0).isYieldAllowed()).isFalse();
+        assertThat(chunk.get(1).isYieldAllowed()).isFalse();
+        assertThat(chunk.get(2).isYieldAllowed()).isTrue();
+        assertThat(chunk.get(4).isYieldAllowed()).isTrue();
+    }
+
+    @Test
+    public void aggregateResultsOfAllChunks() throws RemoteException, OperationApplicationException {
+        when(contentResolver.applyBatch(anyString(), any(ArrayList.class))).thenReturn(
+                new ContentProviderResult[]{new ContentProviderResult(2), new ContentProviderResult(3)},
+                new ContentProviderResult[]{new ContentProviderResult(4)});
+        batchRequest.chunkBy(2, Long.MAX_VALUE);
+
+        BatchResult result = batchRequest.delete(uri).delete(uri).delete(uri).submit();
+
+        assertThat(result.getChunkCount()).isEqualTo(2);
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.get(2).count).isEqualTo(4);
+        assertThat(result.getTotalCount()).isEqualTo(9);
+    }
+
+    @Test
+    public void keepResultsOfChunksAppliedBeforeFailure() throws RemoteException, OperationApplicationException {
+        when(contentResolver.applyBatch(anyString(), any(ArrayList.class)))
+                .thenReturn(new ContentProviderResult[]{new ContentProviderResult(1)})
+                .thenThrow(new OperationApplicationException());
+        batchRequest.chunkBy(1, Long.MAX_VALUE);
+
+        try {
+            batchRequest.delete(uri).delete(uri).submit();
+            fail("Expected the second chunk to fail");
+        } catch (BatchRequest.BatchFailedException e) {
+            assertThat(e.getAppliedResult().size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void fillBackReferencesWithIdsCreatedEarlierInBatch() {
+        Uri comments = Uri.parse("content://" + COM_FAKE_AUTHORITY + "/comments");
+        int post = batchRequest.size();
+
+        batchRequest
+                .post(uri, new ContentValues())
+                .post(comments, new ContentValues(), BackReference.of("post_id", post));
+
+        ArrayList<ContentProviderOperation> chunk = batchRequest.chunks().get(0);
+        ContentProviderResult[] results = new ContentProviderResult[]{
+                new ContentProviderResult(Uri.parse("content://" + COM_FAKE_AUTHORITY + "/posts/42"))
+        };
+        ContentValues actual = chunk.get(1).resolveValueBackReferences(results, 1);
+        assertThat(actual.getAsLong("post_id")).isEqualTo(42L);
+    }
+
+    @Test
+    public void keepReferencedOperationsInSameChunk() {
+        batchRequest.chunkBy(2, Long.MAX_VALUE);
+
+        batchRequest
+                .post(uri, new ContentValues())
+                .delete(uri)
+                .post(uri, new ContentValues(), BackReference.of("parent_id", 0))
+                .delete(uri);
+
+        List<ArrayList<ContentProviderOperation>> chunks = batchRequest.chunks();
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).hasSize(3);
+    }
+
+    @Test
+    public void rebaseBackReferencesOntoTheirChunk() {
+        batchRequest.chunkBy(2, Long.MAX_VALUE);
+
+        batchRequest
+                .delete(uri)
+                .delete(uri)
+                .post(uri, new ContentValues())
+                .post(uri, new ContentValues(), BackReference.of("parent_id", 2));
+
+        ArrayList<ContentProviderOperation> chunk = batchRequest.chunks().get(1);
+        ContentProviderResult[] results = new ContentProviderResult[]{
+                new ContentProviderResult(Uri.parse("content://" + COM_FAKE_AUTHORITY + "/posts/7"))
+        };
+        assertThat(chunk.get(1).resolveValueBackReferences(results, 1).getAsLong("parent_id")).isEqualTo(7L);
+    }
+
+    @Test
+    public void buildOperationsAnewForEachSubmission() {
+        batchRequest.chunkBy(2, Long.MAX_VALUE);
+        batchRequest
+                .delete(uri)
+                .delete(uri)
+                .post(uri, new ContentValues())
+                .post(uri, new ContentValues(), BackReference.of("parent_id", 2));
+        ArrayList<ContentProviderOperation> chunk = batchRequest.chunks().get(1);
+
+        batchRequest.chunkBy(10, Long.MAX_VALUE).allowYieldEvery(1);
+        batchRequest.chunks();
+
+        ContentProviderResult[] results = new ContentProviderResult[]{
+                new ContentProviderResult(Uri.parse("content://" + COM_FAKE_AUTHORITY + "/posts/7"))
+        };
+        assertThat(chunk.get(1).resolveValueBackReferences(results, 1).getAsLong("parent_id")).isEqualTo(7L);
+        assertThat(chunk.get(1).isYieldAllowed()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void backReferencesMustBeToEarlierOperations() {
+        batchRequest.post(uri, new ContentValues(), BackReference.of("parent_id", 0));
+    }
+
+    @Test
+    public void returnTypedResults() throws RemoteException, OperationApplicationException {
+        when(contentResolver.applyBatch(anyString(), any(ArrayList.class))).thenReturn(new ContentProviderResult[]{
+                new ContentProviderResult(Uri.parse("content://" + COM_FAKE_AUTHORITY + "/posts/42")),
+                new ContentProviderResult(1)
+        });
+
+        BatchResult result = batchRequest.post(uri, new ContentValues()).delete(uri).submit();
+
+        assertThat(result.getId(0)).isEqualTo(42L);
+        assertThat(result.getCount(1)).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwIllegalStateExceptionForResultOfWrongType() throws RemoteException, OperationApplicationException {
+        when(contentResolver.applyBatch(anyString(), any(ArrayList.class))).thenReturn(new ContentProviderResult[]{
+                new ContentProviderResult(1)
+        });
+
+        batchRequest.delete(uri).submit().getUri(0);
+    }
+
     private void simulateApplyContentProviderOperations() {
         try {
             verify(contentResolver).applyBatch(anyString(), operationListCaptor.capture());
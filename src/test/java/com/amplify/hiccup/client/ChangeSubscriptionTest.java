@@ -0,0 +1,140 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+import com.amplify.hiccup.shared.Change;
+import com.amplify.hiccup.shared.ChangeFeed;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ChangeSubscriptionTest {
+
+    private static final Uri POSTS = Uri.parse("content://com.authority/posts");
+    private static final Change CREATED = new Change(Uri.parse("content://com.authority/posts/1"), Change.Operation.CREATE, 11);
+
+    @Mock
+    private ContentResolver contentResolver;
+    @Mock
+    private ChangeSubscription.Listener listener;
+
+    private QueueExecutor executor;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        executor = new QueueExecutor();
+    }
+
+    @Test
+    public void readChangesSinceVersionOnStart() {
+        respondWith(new ChangeFeed.Page(Collections.singletonList(CREATED), 11, true));
+        ChangeSubscription subscription = new ChangeSubscription(contentResolver, POSTS, 10, executor, listener);
+
+        subscription.start();
+        executor.runAll();
+
+        verify(contentResolver).registerContentObserver(eq(POSTS), eq(true), any(ContentObserver.class));
+        ArgumentCaptor<Bundle> extras = ArgumentCaptor.forClass(Bundle.class);
+        verify(contentResolver).call(eq(POSTS), eq(ChangeFeed.METHOD_CHANGES), eq(POSTS.toString()), extras.capture());
+        assertThat(extras.getValue().getLong(ChangeFeed.EXTRA_SINCE)).isEqualTo(10);
+        verify(listener).onChanges(Collections.singletonList(CREATED));
+        assertThat(subscription.getVersion()).isEqualTo(11);
+    }
+
+    @Test
+    public void resetWhenFeedIsIncomplete() {
+        respondWith(new ChangeFeed.Page(Collections.<Change>emptyList(), 50, false));
+        ChangeSubscription subscription = new ChangeSubscription(contentResolver, POSTS, 10, executor, listener);
+
+        subscription.start();
+        executor.runAll();
+
+        verify(listener).onReset(50);
+        verify(listener, never()).onChanges(anyList());
+    }
+
+    @Test
+    public void foldNotificationsArrivingBeforeReadIntoOneRead() {
+        respondWith(new ChangeFeed.Page(Collections.<Change>emptyList(), 10, true));
+        ChangeSubscription subscription = new ChangeSubscription(contentResolver, POSTS, 10, executor, listener);
+
+        subscription.start();
+        subscription.requestRead();
+        subscription.requestRead();
+        executor.runAll();
+
+        verify(contentResolver, times(1)).call(eq(POSTS), eq(ChangeFeed.METHOD_CHANGES), eq(POSTS.toString()), any(Bundle.class));
+        verify(listener, never()).onChanges(anyList());
+    }
+
+    @Test
+    public void stopReadingOnceClosed() {
+        respondWith(new ChangeFeed.Page(Collections.singletonList(CREATED), 11, true));
+        ChangeSubscription subscription = new ChangeSubscription(contentResolver, POSTS, 10, executor, listener);
+
+        subscription.start();
+        subscription.close();
+        executor.runAll();
+        subscription.requestRead();
+        executor.runAll();
+
+        verify(contentResolver).unregisterContentObserver(any(ContentObserver.class));
+        verify(listener, never()).onChanges(anyList());
+        verify(listener, never()).onReset(anyLong());
+    }
+
+    @Test
+    public void reportFailuresToListener() {
+        ChangeSubscription subscription = new ChangeSubscription(contentResolver, POSTS, 10, executor, listener);
+
+        subscription.start();
+        executor.runAll();
+
+        verify(listener).onFailure(any(IllegalStateException.class));
+    }
+
+    private void respondWith(ChangeFeed.Page page) {
+        when(contentResolver.call(eq(POSTS), eq(ChangeFeed.METHOD_CHANGES), eq(POSTS.toString()), any(Bundle.class)))
+                .thenReturn(ChangeFeed.toBundle(page));
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final List<Runnable> runnables = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            while (!runnables.isEmpty()) {
+                runnables.remove(0).run();
+            }
+        }
+    }
+}
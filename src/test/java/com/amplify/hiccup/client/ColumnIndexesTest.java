@@ -0,0 +1,41 @@
+package com.amplify.hiccup.client;
+
+import android.database.MatrixCursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColumnIndexesTest {
+
+    private static final String[] COLUMNS = {"_id", "name"};
+
+    private final ColumnIndexes columnIndexes = new ColumnIndexes();
+    private final Object reader = new Object();
+
+    @Test
+    public void reuseIndexesForCursorsOfTheSameColumns() {
+        int[] indexes = {0, 1};
+        columnIndexes.put(new MatrixCursor(COLUMNS), reader, indexes);
+
+        assertThat(columnIndexes.get(new MatrixCursor(COLUMNS), reader)).isSameAs(indexes);
+    }
+
+    @Test
+    public void missForOtherReaders() {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        columnIndexes.put(cursor, reader, new int[]{0, 1});
+
+        assertThat(columnIndexes.get(cursor, new Object())).isNull();
+    }
+
+    @Test
+    public void missForOtherArraysOfColumnNames() {
+        columnIndexes.put(new MatrixCursor(COLUMNS), reader, new int[]{0, 1});
+
+        assertThat(columnIndexes.get(new MatrixCursor(new String[]{"_id", "name"}), reader)).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColumnResponseAdapterTest {
+
+    private ColumnResponseAdapter columnResponseAdapter;
+
+    @Before
+    public void setUp() {
+        columnResponseAdapter = new ColumnResponseAdapter();
+    }
+
+    @Test
+    public void readCurrentRowIntoModel() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name", "weight"});
+        cursor.addRow(new Object[]{1L, "toys", 3L});
+        cursor.addRow(new Object[]{2L, "books", 7L});
+
+        cursor.moveToFirst();
+        Category first = columnResponseAdapter.toModel(cursor, Category.class);
+        cursor.moveToNext();
+        Category second = columnResponseAdapter.toModel(cursor, Category.class);
+
+        assertThat(first.name).isEqualTo("toys");
+        assertThat(first.weight).isEqualTo(3L);
+        assertThat(second.name).isEqualTo("books");
+        assertThat(second.weight).isEqualTo(7L);
+    }
+
+    @Test
+    public void leaveFieldsMissingFromCursorUnset() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name"});
+        cursor.addRow(new Object[]{1L, "toys"});
+
+        cursor.moveToFirst();
+        Category actual = columnResponseAdapter.toModel(cursor, Category.class);
+
+        assertThat(actual.name).isEqualTo("toys");
+        assertThat(actual.weight).isEqualTo(0L);
+    }
+
+    @Test
+    public void readRowIntoRecycledModel() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name", "weight"});
+        cursor.addRow(new Object[]{1L, "toys", 3L});
+        Category recycled = new Category();
+
+        cursor.moveToFirst();
+        Category actual = columnResponseAdapter.toModel(cursor, Category.class, recycled);
+
+        assertThat(actual).isSameAs(recycled);
+        assertThat(actual.name).isEqualTo("toys");
+        assertThat(actual.weight).isEqualTo(3L);
+    }
+
+    @Test
+    public void columnRequestAdapterSendsTypedValues() {
+        Category category = new Category();
+        category.name = "games";
+        category.weight = 5L;
+
+        ContentValues contentValues = new ColumnRequestAdapter().toValues(category);
+
+        assertThat(contentValues.getAsString("name")).isEqualTo("games");
+        assertThat(contentValues.getAsLong("weight")).isEqualTo(5L);
+    }
+
+    static class Category {
+        String name;
+        long weight;
+    }
+}
@@ -0,0 +1,241 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.CancellationSignal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class GetCoalescerTest {
+
+    private GetCoalescer coalescer;
+    private Uri uri;
+    private Cursor cursor;
+    private AtomicInteger queries;
+
+    @Before
+    public void setUp() {
+        coalescer = new GetCoalescer();
+        uri = Uri.parse("content://com.authority.name/posts");
+        cursor = mock(Cursor.class);
+        queries = new AtomicInteger();
+    }
+
+    @Test
+    public void returnCursorItselfToSingleCaller() {
+        Cursor actual = coalescer.get(uri, null, returning(cursor));
+
+        assertThat(actual).isSameAs(cursor);
+        assertThat(coalescer.inFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void queryAgainOnceNothingIsInFlight() {
+        coalescer.get(uri, null, returning(cursor));
+        coalescer.get(uri, null, returning(cursor));
+
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shareSingleQueryBetweenConcurrentCallers() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final GetCoalescer.Query query = new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                queries.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return cursor;
+            }
+        };
+        final Cursor[] results = new Cursor[2];
+        Thread leader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = coalescer.get(uri, null, query);
+            }
+        });
+        Thread follower = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[1] = coalescer.get(uri, null, query);
+            }
+        });
+
+        leader.start();
+        started.await();
+        follower.start();
+        while (follower.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(results[0]).isNotNull().isNotSameAs(results[1]);
+        results[0].close();
+        verify(cursor, never()).close();
+        results[1].close();
+        verify(cursor).close();
+    }
+
+    @Test
+    public void doNotJoinQueriesStartedBeforeAWrite() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread leader = startBlockedQuery(release);
+
+        coalescer.invalidate(uri.getAuthority());
+        Cursor fresh = mock(Cursor.class);
+        Cursor actual = coalescer.get(uri, null, returning(fresh));
+
+        release.countDown();
+        leader.join();
+        assertThat(actual).isSameAs(fresh);
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void doNotJoinQueriesStartedBeforeANotification() throws Exception {
+        ContentResolver contentResolver = mock(ContentResolver.class);
+        coalescer.watch(contentResolver, uri.getAuthority());
+        coalescer.watch(contentResolver, uri.getAuthority());
+        ArgumentCaptor<ContentObserver> observer = ArgumentCaptor.forClass(ContentObserver.class);
+        verify(contentResolver).registerContentObserver(eq(Uri.parse("content://com.authority.name")), eq(true), observer.capture());
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread leader = startBlockedQuery(release);
+
+        observer.getValue().onChange(false);
+        Cursor fresh = mock(Cursor.class);
+        Cursor actual = coalescer.get(uri, null, returning(fresh));
+
+        release.countDown();
+        leader.join();
+        assertThat(actual).isSameAs(fresh);
+    }
+
+    @Test
+    public void readEachViewAtItsOwnPosition() {
+        when(cursor.getPosition()).thenReturn(-1);
+        when(cursor.getCount()).thenReturn(2);
+        SharedCursor sharedCursor = new SharedCursor(cursor, 2);
+        Cursor first = sharedCursor.newView();
+        Cursor second = sharedCursor.newView();
+
+        first.moveToPosition(1);
+        second.moveToPosition(0);
+        first.getString(0);
+
+        verify(cursor).moveToPosition(1);
+        verify(cursor, never()).moveToPosition(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rethrowFailureOfQuery() {
+        coalescer.get(uri, null, new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                throw new IllegalStateException();
+            }
+        });
+    }
+
+    @Test
+    public void passCancellationSignalOnlyWhenCallerCanCancel() {
+        final CancellationSignal[] signals = new CancellationSignal[2];
+        coalescer.get(uri, null, new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                signals[0] = cancellationSignal;
+                return cursor;
+            }
+        });
+        coalescer.get(uri, new CancellationSignal(), new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                signals[1] = cancellationSignal;
+                return cursor;
+            }
+        });
+
+        assertThat(signals[0]).isNull();
+        assertThat(signals[1]).isNotNull();
+    }
+
+    @Test
+    public void cancelQueryWhenItsOnlyCallerCancels() {
+        final CancellationSignal callerSignal = new CancellationSignal();
+        final boolean[] cancelled = new boolean[1];
+        coalescer.get(uri, callerSignal, new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                callerSignal.cancel();
+                cancelled[0] = cancellationSignal.isCanceled();
+                return cursor;
+            }
+        });
+
+        assertThat(cancelled[0]).isTrue();
+    }
+
+    /**
+     * Starts a query of {@link #uri} on another thread, which returns {@link #cursor} once released.
+     */
+    private Thread startBlockedQuery(final CountDownLatch release) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        Thread leader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                coalescer.get(uri, null, new GetCoalescer.Query() {
+                    @Override
+                    public Cursor run(CancellationSignal cancellationSignal) {
+                        queries.incrementAndGet();
+                        started.countDown();
+                        awaitQuietly(release);
+                        return cursor;
+                    }
+                });
+            }
+        });
+        leader.start();
+        started.await();
+        return leader;
+    }
+
+    private GetCoalescer.Query returning(final Cursor result) {
+        return new GetCoalescer.Query() {
+            @Override
+            public Cursor run(CancellationSignal cancellationSignal) {
+                queries.incrementAndGet();
+                return result;
+            }
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,14 +4,27 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+
+import com.amplify.hiccup.shared.ConditionalGet;
+import com.amplify.hiccup.shared.StreamedBody;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -143,4 +156,254 @@ public class HiccupClientTest {
 
         assertThat(batch).isNotNull();
     }
+
+    @Test
+    public void readInlineBodiesOfStreamingCursorsAsUsual() throws Exception {
+        Cursor cursor = mock(Cursor.class);
+        when(cursor.getColumnNames()).thenReturn(new String[]{"_id", "body", StreamedBody.STREAM_COLUMN});
+        when(cursor.getColumnIndex("body")).thenReturn(1);
+        when(cursor.getColumnIndex(StreamedBody.STREAM_COLUMN)).thenReturn(2);
+        when(cursor.getString(1)).thenReturn("inline");
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(cursor);
+
+        Cursor actualCursor = hiccupClient.get(uri);
+
+        assertThat(actualCursor.getString(1)).isEqualTo("inline");
+        verify(contentResolver, never()).openFileDescriptor(any(Uri.class), anyString());
+    }
+
+    @Test
+    public void sendSmallBodiesInline() {
+        hiccupClient = new HiccupClient(context, 100);
+        ContentValues contentValues = new ContentValues();
+        contentValues.put("body", "small");
+
+        hiccupClient.post(uri, contentValues);
+
+        verify(contentResolver).insert(uri, contentValues);
+        verify(contentResolver, never()).call(any(Uri.class), anyString(), anyString(), any(Bundle.class));
+    }
+
+    @Test
+    public void sendSmallBulkPostsInlineThroughCall() {
+        ContentValues[] contentValues = new ContentValues[]{new ContentValues(), new ContentValues()};
+        Bundle result = new Bundle();
+        result.putInt(StreamedBody.EXTRA_COUNT, 2);
+        when(contentResolver.call(eq(uri), eq(StreamedBody.METHOD_POST_ALL), eq(uri.toString()), any(Bundle.class)))
+                .thenReturn(result);
+
+        int count = hiccupClient.postAll(uri, contentValues);
+
+        assertThat(count).isEqualTo(2);
+        ArgumentCaptor<Bundle> extras = ArgumentCaptor.forClass(Bundle.class);
+        verify(contentResolver).call(eq(uri), eq(StreamedBody.METHOD_POST_ALL), eq(uri.toString()), extras.capture());
+        assertThat(extras.getValue().getParcelableArray(StreamedBody.EXTRA_VALUES)).hasSize(2);
+        verify(contentResolver, never()).bulkInsert(any(Uri.class), any(ContentValues[].class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwIllegalStateExceptionForBulkPostToProviderWithoutHiccupCalls() {
+        hiccupClient.postAll(uri, new ContentValues[]{new ContentValues()});
+    }
+
+    @Test
+    public void runAsyncRequestsOnExecutor() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        hiccupClient = new HiccupClient(context, executor);
+        when(contentResolver.delete(uri, null, null)).thenReturn(3);
+
+        HiccupFuture<Integer> future = hiccupClient.deleteAsync(uri);
+
+        verify(contentResolver, never()).delete(uri, null, null);
+        executor.runAll();
+        assertThat(future.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void queryWithCancellationSignalOnAsyncGet() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        hiccupClient = new HiccupClient(context, executor);
+        Cursor expectedCursor = mock(Cursor.class);
+        when(contentResolver.query(eq(uri), (String[]) isNull(), (String) isNull(), (String[]) isNull(), (String) isNull(),
+                any(CancellationSignal.class))).thenReturn(expectedCursor);
+
+        HiccupFuture<Cursor> future = hiccupClient.getAsync(uri);
+        executor.runAll();
+
+        assertThat(future.get()).isEqualTo(expectedCursor);
+    }
+
+    @Test
+    public void doNotQueryWhenCancelledBeforeRunning() {
+        QueueExecutor executor = new QueueExecutor();
+        hiccupClient = new HiccupClient(context, executor);
+
+        hiccupClient.getAsync(uri).cancel(true);
+        executor.runAll();
+
+        verifyZeroInteractions(contentResolver);
+    }
+
+    @Test
+    public void wrapResponseInModelList() {
+        Cursor expectedCursor = mock(Cursor.class);
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(expectedCursor);
+        hiccupClient = new HiccupClient(context, mock(ResponseAdapter.class));
+
+        ModelList<Object> models = hiccupClient.get(uri, Object.class);
+
+        assertThat(models.getCursor()).isEqualTo(expectedCursor);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwIllegalStateExceptionForModelsWithoutResponseAdapter() {
+        hiccupClient.get(uri, Object.class);
+    }
+
+    @Test
+    public void reuseCachedRowsWhileNotModified() {
+        hiccupClient.cacheResponses(8);
+        when(contentResolver.call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), any(Bundle.class)))
+                .thenReturn(ConditionalGet.response(true, "v1"), ConditionalGet.response(false, "v1"));
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(newCursor(), newCursor());
+
+        hiccupClient.get(uri).close();
+        hiccupClient.get(uri).close();
+        Cursor cursor = hiccupClient.get(uri);
+
+        verify(contentResolver, times(2)).query(uri, null, null, null, null);
+        ArgumentCaptor<Bundle> extras = ArgumentCaptor.forClass(Bundle.class);
+        verify(contentResolver, times(2)).call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), extras.capture());
+        assertThat(extras.getValue().getString(ConditionalGet.EXTRA_VERSION)).isEqualTo("v1");
+        assertThat(cursor.moveToFirst()).isTrue();
+        assertThat(cursor.getString(1)).isEqualTo("toys");
+    }
+
+    @Test
+    public void queryAgainWhenModified() {
+        hiccupClient.cacheResponses(8);
+        when(contentResolver.call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), any(Bundle.class)))
+                .thenReturn(ConditionalGet.response(true, "v1"), ConditionalGet.response(true, "v2"));
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(newCursor(), newCursor(), newCursor());
+
+        hiccupClient.get(uri).close();
+        hiccupClient.get(uri).close();
+        hiccupClient.get(uri).close();
+
+        verify(contentResolver, times(3)).query(uri, null, null, null, null);
+    }
+
+    @Test
+    public void doNotCacheResourcesWithoutVersion() {
+        hiccupClient.cacheResponses(8);
+        Cursor expectedCursor = mock(Cursor.class);
+        when(contentResolver.call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), any(Bundle.class)))
+                .thenReturn(ConditionalGet.response(true, null));
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(expectedCursor);
+
+        hiccupClient.get(uri);
+        assertThat(hiccupClient.get(uri)).isSameAs(expectedCursor);
+        verify(expectedCursor, never()).close();
+    }
+
+    @Test
+    public void queryAsUsualWhenProviderDoesNotValidate() {
+        hiccupClient.cacheResponses(8);
+        Cursor expectedCursor = mock(Cursor.class);
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(expectedCursor);
+
+        assertThat(hiccupClient.get(uri)).isSameAs(expectedCursor);
+    }
+
+    @Test
+    public void checkVersionOnlyOfUrisRequestedBefore() {
+        hiccupClient.cacheResponses(8);
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(newCursor());
+
+        hiccupClient.get(uri).close();
+
+        verify(contentResolver, never()).call(any(Uri.class), anyString(), anyString(), any(Bundle.class));
+    }
+
+    @Test
+    public void stopCheckingVersionsOfProvidersThatDoNotValidate() {
+        hiccupClient.cacheResponses(8);
+        Uri other = Uri.parse("content://com.fake.authority/other/path");
+        when(contentResolver.query(any(Uri.class), any(String[].class), anyString(), any(String[].class), anyString()))
+                .thenReturn(newCursor(), newCursor(), newCursor(), newCursor());
+
+        hiccupClient.get(uri).close();
+        hiccupClient.get(uri).close();
+        hiccupClient.get(other).close();
+        hiccupClient.get(other).close();
+
+        verify(contentResolver, times(1)).call(any(Uri.class), anyString(), anyString(), any(Bundle.class));
+    }
+
+    @Test
+    public void doNotCacheStreamedResponses() {
+        hiccupClient.cacheResponses(8);
+        when(contentResolver.call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), any(Bundle.class)))
+                .thenReturn(ConditionalGet.response(true, "v1"));
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(newStreamedCursor(), newStreamedCursor(), newStreamedCursor());
+
+        hiccupClient.get(uri).close();
+        hiccupClient.get(uri).close();
+        hiccupClient.get(uri).close();
+
+        verify(contentResolver, times(3)).query(uri, null, null, null, null);
+        verify(contentResolver, times(1)).call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), any(Bundle.class));
+    }
+
+    @Test
+    public void doNotQueryWhenCancelledDuringVersionCheck() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        hiccupClient = new HiccupClient(context, executor).cacheResponses(8);
+        when(contentResolver.query(uri, null, null, null, null)).thenReturn(newCursor());
+        hiccupClient.get(uri).close();
+        final List<HiccupFuture<Cursor>> futures = new ArrayList<HiccupFuture<Cursor>>();
+        when(contentResolver.call(eq(uri), eq(ConditionalGet.METHOD_VALIDATE), eq(uri.toString()), any(Bundle.class)))
+                .thenAnswer(new Answer<Bundle>() {
+                    @Override
+                    public Bundle answer(InvocationOnMock invocation) {
+                        futures.get(0).cancel(true);
+                        return ConditionalGet.response(true, "v1");
+                    }
+                });
+
+        futures.add(hiccupClient.getAsync(uri));
+        executor.runAll();
+
+        assertThat(futures.get(0).isCancelled()).isTrue();
+        verify(contentResolver, never()).query(eq(uri), (String[]) isNull(), (String) isNull(), (String[]) isNull(), (String) isNull(),
+                any(CancellationSignal.class));
+    }
+
+    private static Cursor newStreamedCursor() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "body", StreamedBody.STREAM_COLUMN});
+        cursor.addRow(new Object[]{1L, null, "t1"});
+        return cursor;
+    }
+
+    private static Cursor newCursor() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name"});
+        cursor.addRow(new Object[]{1L, "toys"});
+        return cursor;
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final List<Runnable> runnables = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            for (Runnable runnable : runnables) {
+                runnable.run();
+            }
+            runnables.clear();
+        }
+    }
 }
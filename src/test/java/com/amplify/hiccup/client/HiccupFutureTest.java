@@ -0,0 +1,99 @@
+package com.amplify.hiccup.client;
+
+import android.database.Cursor;
+import android.os.CancellationSignal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class HiccupFutureTest {
+
+    @Test
+    public void deliverResultToCallback() throws Exception {
+        RecordingCallback<String> callback = new RecordingCallback<String>();
+        HiccupFuture<String> future = new HiccupFuture<String>(returning("result"), null, callback);
+
+        future.run();
+
+        assertThat(future.get()).isEqualTo("result");
+        assertThat(callback.result).isEqualTo("result");
+    }
+
+    @Test
+    public void deliverCauseOfFailureToCallback() {
+        final IllegalArgumentException failure = new IllegalArgumentException();
+        RecordingCallback<String> callback = new RecordingCallback<String>();
+        HiccupFuture<String> future = new HiccupFuture<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                throw failure;
+            }
+        }, null, callback);
+
+        future.run();
+
+        assertThat(callback.throwable).isSameAs(failure);
+    }
+
+    @Test
+    public void cancelSignalWhenCancelled() {
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        RecordingCallback<String> callback = new RecordingCallback<String>();
+        HiccupFuture<String> future = new HiccupFuture<String>(returning("result"), cancellationSignal, callback);
+
+        future.cancel(true);
+
+        assertThat(cancellationSignal.isCanceled()).isTrue();
+        assertThat(callback.throwable).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    public void closeCursorThatArrivesAfterCancellation() {
+        final Cursor cursor = mock(Cursor.class);
+        final HiccupFuture<Cursor>[] future = new HiccupFuture[1];
+        future[0] = new HiccupFuture<Cursor>(new Callable<Cursor>() {
+            @Override
+            public Cursor call() {
+                future[0].cancel(false);
+                return cursor;
+            }
+        }, null, null);
+
+        future[0].run();
+
+        verify(cursor).close();
+    }
+
+    private static <T> Callable<T> returning(final T result) {
+        return new Callable<T>() {
+            @Override
+            public T call() {
+                return result;
+            }
+        };
+    }
+
+    private static class RecordingCallback<T> implements HiccupFuture.Callback<T> {
+        T result;
+        Throwable throwable;
+
+        @Override
+        public void onSuccess(T result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onFailure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+}
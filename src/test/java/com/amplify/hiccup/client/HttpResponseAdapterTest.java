@@ -0,0 +1,65 @@
+package com.amplify.hiccup.client;
+
+import android.database.MatrixCursor;
+
+import com.amplify.hiccup.shared.BinaryBody;
+import com.amplify.hiccup.shared.JsonConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class HttpResponseAdapterTest {
+
+    private HttpResponseAdapter httpResponseAdapter;
+
+    @Mock
+    private JsonConverter jsonConverter;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        httpResponseAdapter = new HttpResponseAdapter(jsonConverter);
+    }
+
+    @Test
+    public void convertBodyOfCurrentRowToModel() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "body"});
+        cursor.addRow(new Object[]{1L, "{\"name\":\"Krusty\"}"});
+        DomainModel expectedModel = new DomainModel();
+        when(jsonConverter.fromJson("{\"name\":\"Krusty\"}", DomainModel.class)).thenReturn(expectedModel);
+
+        cursor.moveToFirst();
+        DomainModel actualModel = httpResponseAdapter.toModel(cursor, DomainModel.class);
+
+        assertThat(actualModel).isEqualTo(expectedModel);
+    }
+
+    @Test
+    public void decodeBlobBodyAsBinaryBody() {
+        Category category = new Category();
+        category.name = "toys";
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "body"});
+        cursor.addRow(new Object[]{1L, BinaryBody.encode(category)});
+
+        cursor.moveToFirst();
+        Category actual = httpResponseAdapter.toModel(cursor, Category.class);
+
+        assertThat(actual.name).isEqualTo("toys");
+    }
+
+    private static class DomainModel {
+    }
+
+    static class Category {
+        String name;
+    }
+}
@@ -0,0 +1,149 @@
+package com.amplify.hiccup.client;
+
+import android.database.MatrixCursor;
+
+import com.amplify.hiccup.service.HttpContentAdapter;
+import com.amplify.hiccup.shared.JsonConverter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class ListDiffTest {
+
+    private static final String[] COLUMNS = {"_id", "name", "weight"};
+
+    @Test
+    public void reportFirstListAsInserted() {
+        ListDiff diff = ListDiff.between(null, snapshotOf(new Object[]{1L, "toys", 3L}, new Object[]{2L, "books", 7L}));
+
+        assertThat(diff.isReload()).isFalse();
+        assertThat(diff.getInserted()).containsExactly(0, 1);
+        assertThat(diff.getRemoved()).isEmpty();
+        assertThat(diff.getChanged()).isEmpty();
+    }
+
+    @Test
+    public void matchRowsById() {
+        ListDiff.Snapshot previous = snapshotOf(
+                new Object[]{1L, "toys", 3L},
+                new Object[]{2L, "books", 7L},
+                new Object[]{3L, "games", 5L});
+        ListDiff.Snapshot next = snapshotOf(
+                new Object[]{4L, "music", 1L},
+                new Object[]{1L, "toys", 3L},
+                new Object[]{3L, "games", 6L});
+
+        ListDiff diff = ListDiff.between(previous, next);
+
+        assertThat(diff.getRemoved()).containsExactly(1);
+        assertThat(diff.getInserted()).containsExactly(0);
+        assertThat(diff.getChanged()).containsExactly(2);
+        assertThat(diff.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void beEmptyWhenNothingChanged() {
+        ListDiff diff = ListDiff.between(snapshotOf(new Object[]{1L, "toys", 3L}), snapshotOf(new Object[]{1L, "toys", 3L}));
+
+        assertThat(diff.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void reloadWhenRowsHaveNoId() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"name"});
+        cursor.addRow(new Object[]{"toys"});
+
+        ListDiff diff = ListDiff.between(snapshotOf(new Object[]{1L, "toys", 3L}), ListDiff.Snapshot.of(cursor));
+
+        assertThat(diff.isReload()).isTrue();
+        assertThat(diff.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void reloadWhenIdsAreNotUnique() {
+        ListDiff diff = ListDiff.between(snapshotOf(new Object[]{1L, "toys", 3L}),
+                snapshotOf(new Object[]{1L, "toys", 3L}, new Object[]{1L, "books", 7L}));
+
+        assertThat(diff.isReload()).isTrue();
+    }
+
+    @Test
+    public void treatStreamedRowsAsChanged() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "body", "body_stream"});
+        cursor.addRow(new Object[]{5L, null, "t1"});
+        ListDiff.Snapshot streamed = ListDiff.Snapshot.of(cursor);
+
+        ListDiff diff = ListDiff.between(streamed, streamed);
+
+        assertThat(diff.getChanged()).containsExactly(0);
+    }
+
+    @Test
+    public void reloadWhenRowsAreReordered() {
+        ListDiff.Snapshot previous = snapshotOf(
+                new Object[]{4L, "toys", 3L},
+                new Object[]{8L, "books", 7L},
+                new Object[]{9L, "games", 5L});
+        ListDiff.Snapshot next = snapshotOf(
+                new Object[]{9L, "games", 5L},
+                new Object[]{4L, "toys", 3L},
+                new Object[]{8L, "books", 7L});
+
+        ListDiff diff = ListDiff.between(previous, next);
+
+        assertThat(diff.isReload()).isTrue();
+    }
+
+    @Test
+    public void matchRowsNumberedByHttpContentAdapterByValues() {
+        ListDiff.Snapshot previous = httpSnapshotOf("toys", "books", "games");
+        ListDiff.Snapshot next = httpSnapshotOf("books", "games");
+
+        ListDiff diff = ListDiff.between(previous, next);
+
+        assertThat(diff.isReload()).isFalse();
+        assertThat(diff.getRemoved()).containsExactly(0);
+        assertThat(diff.getInserted()).isEmpty();
+        assertThat(diff.getChanged()).isEmpty();
+    }
+
+    @Test
+    public void reportChangedRowsNumberedByHttpContentAdapterAsRemovedAndInserted() {
+        ListDiff diff = ListDiff.between(httpSnapshotOf("toys", "books"), httpSnapshotOf("toys", "music"));
+
+        assertThat(diff.getRemoved()).containsExactly(1);
+        assertThat(diff.getInserted()).containsExactly(1);
+        assertThat(diff.getChanged()).isEmpty();
+    }
+
+    @Test
+    public void reloadWhenRowsNumberedByHttpContentAdapterAreReordered() {
+        ListDiff diff = ListDiff.between(httpSnapshotOf("toys", "books", "games"), httpSnapshotOf("games", "toys", "books"));
+
+        assertThat(diff.isReload()).isTrue();
+    }
+
+    private static ListDiff.Snapshot httpSnapshotOf(Object... models) {
+        JsonConverter jsonConverter = mock(JsonConverter.class);
+        for (Object model : models) {
+            when(jsonConverter.toJson(model)).thenReturn("{\"name\":\"" + model + "\"}");
+        }
+        return ListDiff.Snapshot.of(new HttpContentAdapter(jsonConverter).toCursor(Arrays.asList(models)));
+    }
+
+    private static ListDiff.Snapshot snapshotOf(Object[]... rows) {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        return ListDiff.Snapshot.of(cursor);
+    }
+}
@@ -0,0 +1,102 @@
+package com.amplify.hiccup.client;
+
+import android.database.MatrixCursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ModelListTest {
+
+    @Mock
+    private ResponseAdapter responseAdapter;
+
+    private MatrixCursor cursor;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        cursor = new MatrixCursor(new String[]{"_id", "name", "weight"});
+        cursor.addRow(new Object[]{1L, "toys", 3L});
+        cursor.addRow(new Object[]{2L, "books", 7L});
+        cursor.addRow(new Object[]{3L, "games", 5L});
+    }
+
+    @Test
+    public void decodeOnlyRowsThatAreAccessed() {
+        ModelList<Category> models = new ModelList<Category>(cursor, Category.class, responseAdapter);
+
+        assertThat(models.size()).isEqualTo(3);
+        verify(responseAdapter, never()).toModel(any(MatrixCursor.class), eq(Category.class));
+
+        models.get(2);
+
+        verify(responseAdapter, times(1)).toModel(cursor, Category.class);
+        assertThat(cursor.getPosition()).isEqualTo(2);
+    }
+
+    @Test
+    public void iterateOverModels() {
+        ModelList<Category> models = new ModelList<Category>(cursor, Category.class, new ColumnResponseAdapter());
+
+        StringBuilder names = new StringBuilder();
+        for (Category category : models) {
+            names.append(category.name).append(' ');
+        }
+
+        assertThat(names.toString()).isEqualTo("toys books games ");
+    }
+
+    @Test
+    public void reuseOneModelWhenRecycling() {
+        ModelList<Category> models = new ModelList<Category>(cursor, Category.class, new ColumnResponseAdapter())
+                .recycleModels();
+
+        Category first = models.get(0);
+        Category second = models.get(1);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.name).isEqualTo("books");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refuseToRecycleWithAdapterThatCannot() {
+        new ModelList<Category>(cursor, Category.class, responseAdapter).recycleModels();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void throwIndexOutOfBoundsExceptionPastLastRow() {
+        new ModelList<Category>(cursor, Category.class, responseAdapter).get(3);
+    }
+
+    @Test
+    public void treatMissingCursorAsEmpty() {
+        ModelList<Category> models = new ModelList<Category>(null, Category.class, responseAdapter);
+
+        assertThat(models).isEmpty();
+        models.close();
+    }
+
+    @Test
+    public void closeCursor() {
+        new ModelList<Category>(cursor, Category.class, responseAdapter).close();
+
+        assertThat(cursor.isClosed()).isTrue();
+    }
+
+    static class Category {
+        String name;
+        long weight;
+    }
+}
@@ -0,0 +1,254 @@
+package com.amplify.hiccup.client;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.CancellationSignal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ObservationTest {
+
+    private static final Uri CATEGORIES = Uri.parse("content://com.authority/categories");
+
+    @Mock
+    private ContentResolver contentResolver;
+    @Mock
+    private ResponseAdapter responseAdapter;
+    @Mock
+    private Observation.Observer<Category> observer;
+
+    private QueueExecutor executor;
+    private StubQuery query;
+    private GetCoalescer gets;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        executor = new QueueExecutor();
+        query = new StubQuery();
+        gets = new GetCoalescer();
+    }
+
+    @Test
+    public void deliverInitialListOnStart() {
+        query.respondWith(new Object[]{1L, "toys"}, new Object[]{2L, "books"});
+        Observation<Category> observation = newObservation();
+
+        observation.start();
+        executor.runAll();
+
+        verify(contentResolver).registerContentObserver(eq(CATEGORIES), eq(true), any(ContentObserver.class));
+        ArgumentCaptor<ListDiff> diff = ArgumentCaptor.forClass(ListDiff.class);
+        verify(observer).onChanged(same(query.results.get(0)), diff.capture());
+        assertThat(diff.getValue().getInserted()).containsExactly(0, 1);
+    }
+
+    @Test
+    public void foldNotificationsArrivingDuringQueryIntoOneQuery() {
+        query.respondWith(new Object[]{1L, "toys"});
+        Observation<Category> observation = newObservation();
+
+        observation.start();
+        observation.requestLoad();
+        observation.requestLoad();
+        observation.requestLoad();
+        executor.runAll();
+
+        assertThat(query.results).hasSize(1);
+    }
+
+    @Test
+    public void deliverDiffAndCloseThePreviousList() {
+        query.respondWith(new Object[]{1L, "toys"}, new Object[]{2L, "books"});
+        Observation<Category> observation = newObservation();
+        observation.start();
+        executor.runAll();
+
+        query.respondWith(new Object[]{2L, "novels"}, new Object[]{3L, "games"});
+        observation.requestLoad();
+        executor.runAll();
+
+        ArgumentCaptor<ListDiff> diff = ArgumentCaptor.forClass(ListDiff.class);
+        verify(observer).onChanged(same(query.results.get(1)), diff.capture());
+        assertThat(diff.getValue().getRemoved()).containsExactly(0);
+        assertThat(diff.getValue().getChanged()).containsExactly(0);
+        assertThat(diff.getValue().getInserted()).containsExactly(1);
+        assertThat(query.results.get(0).getCursor().isClosed()).isTrue();
+        assertThat(query.results.get(1).getCursor().isClosed()).isFalse();
+    }
+
+    @Test
+    public void skipListsThatDidNotChange() {
+        query.respondWith(new Object[]{1L, "toys"});
+        Observation<Category> observation = newObservation();
+        observation.start();
+        executor.runAll();
+
+        observation.requestLoad();
+        executor.runAll();
+
+        verify(observer, times(1)).onChanged(any(ModelList.class), any(ListDiff.class));
+        assertThat(query.results.get(1).getCursor().isClosed()).isTrue();
+    }
+
+    @Test
+    public void closeCurrentListAndStopObservingOnClose() {
+        query.respondWith(new Object[]{1L, "toys"});
+        Observation<Category> observation = newObservation();
+        observation.start();
+        executor.runAll();
+
+        observation.close();
+        observation.requestLoad();
+        executor.runAll();
+
+        verify(contentResolver).unregisterContentObserver(any(ContentObserver.class));
+        assertThat(query.results).hasSize(1);
+        assertThat(query.results.get(0).getCursor().isClosed()).isTrue();
+    }
+
+    @Test
+    public void doNotReloadFromGetInFlightWhenNotified() throws Exception {
+        final Object[][][] rows = {{{1L, "toys"}}};
+        Observation<Category> observation = new Observation<Category>(contentResolver, CATEGORIES, new Observation.Query<Category>() {
+            @Override
+            public ModelList<Category> run() {
+                return new ModelList<Category>(gets.get(CATEGORIES, null, new GetCoalescer.Query() {
+                    @Override
+                    public Cursor run(CancellationSignal cancellationSignal) {
+                        return cursorOf(rows[0]);
+                    }
+                }), Category.class, responseAdapter);
+            }
+        }, gets, executor, observer);
+        observation.start();
+        executor.runAll();
+        ArgumentCaptor<ContentObserver> contentObserver = ArgumentCaptor.forClass(ContentObserver.class);
+        verify(contentResolver).registerContentObserver(eq(CATEGORIES), eq(true), contentObserver.capture());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread staleGet = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                gets.get(CATEGORIES, null, new GetCoalescer.Query() {
+                    @Override
+                    public Cursor run(CancellationSignal cancellationSignal) {
+                        Cursor cursor = cursorOf(rows[0]);
+                        started.countDown();
+                        await(release);
+                        return cursor;
+                    }
+                }).close();
+            }
+        });
+        staleGet.start();
+        started.await();
+
+        rows[0] = new Object[][]{{1L, "toys"}, {2L, "books"}};
+        contentObserver.getValue().onChange(false);
+        executor.runAll();
+        release.countDown();
+        staleGet.join();
+
+        ArgumentCaptor<ListDiff> diff = ArgumentCaptor.forClass(ListDiff.class);
+        verify(observer, times(2)).onChanged(any(ModelList.class), diff.capture());
+        assertThat(diff.getValue().getInserted()).containsExactly(1);
+    }
+
+    @Test
+    public void reportFailuresToObserver() {
+        Observation<Category> observation = newObservation();
+
+        observation.start();
+        executor.runAll();
+
+        verify(observer).onFailure(any(IllegalStateException.class));
+        verify(observer, never()).onChanged(any(ModelList.class), any(ListDiff.class));
+    }
+
+    private Observation<Category> newObservation() {
+        return new Observation<Category>(contentResolver, CATEGORIES, query, gets, executor, observer);
+    }
+
+    private static Cursor cursorOf(Object[][] rows) {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name"});
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class StubQuery implements Observation.Query<Category> {
+        final List<ModelList<Category>> results = new ArrayList<ModelList<Category>>();
+        private Object[][] rows;
+
+        void respondWith(Object[]... rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public ModelList<Category> run() {
+            if (rows == null) {
+                throw new IllegalStateException("No response");
+            }
+            MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name"});
+            for (Object[] row : rows) {
+                cursor.addRow(row);
+            }
+            ModelList<Category> models = new ModelList<Category>(cursor, Category.class, responseAdapter);
+            results.add(models);
+            return models;
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final List<Runnable> runnables = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            while (!runnables.isEmpty()) {
+                runnables.remove(0).run();
+            }
+        }
+    }
+
+    static class Category {
+        String name;
+    }
+}
@@ -0,0 +1,63 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.amplify.hiccup.shared.BinaryBody;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class BinaryContentAdapterTest {
+
+    private BinaryContentAdapter binaryContentAdapter;
+
+    @Before
+    public void setUp() {
+        binaryContentAdapter = new BinaryContentAdapter();
+    }
+
+    @Test
+    public void respondWithBlobBodies() {
+        Category category = new Category();
+        category.name = "toys";
+
+        Cursor cursor = binaryContentAdapter.toCursor(Arrays.<Object>asList(category));
+
+        int bodyColumn = cursor.getColumnIndex("body");
+        cursor.moveToFirst();
+        assertThat(cursor.getType(bodyColumn)).isEqualTo(Cursor.FIELD_TYPE_BLOB);
+        assertThat(BinaryBody.decode(cursor.getBlob(bodyColumn), Category.class).name).isEqualTo("toys");
+    }
+
+    @Test
+    public void convertBinaryBodyToModel() {
+        Category category = new Category();
+        category.name = "books";
+        ContentValues contentValues = new ContentValues();
+        contentValues.put("body", BinaryBody.encode(category));
+
+        Category actual = (Category) binaryContentAdapter.toModel(contentValues, Category.class);
+
+        assertThat(actual.name).isEqualTo("books");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectJsonBodiesWithoutJsonConverter() {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put("body", "{\"name\":\"books\"}");
+
+        binaryContentAdapter.toModel(contentValues, Category.class);
+    }
+
+    static class Category {
+        String name;
+    }
+}
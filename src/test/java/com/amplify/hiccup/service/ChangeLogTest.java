@@ -0,0 +1,75 @@
+package com.amplify.hiccup.service;
+
+import android.net.Uri;
+
+import com.amplify.hiccup.shared.Change;
+import com.amplify.hiccup.shared.ChangeFeed;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ChangeLogTest {
+
+    private static final Uri POSTS = Uri.parse("content://com.authority/posts");
+    private static final Uri POST = Uri.parse("content://com.authority/posts/1");
+    private static final Uri COMMENT = Uri.parse("content://com.authority/comments/1");
+
+    @Test
+    public void returnChangesAfterVersionAtOrBelowUri() {
+        ChangeLog changeLog = new ChangeLog(10, 100);
+        changeLog.append(POST, Change.Operation.CREATE);
+        changeLog.append(COMMENT, Change.Operation.CREATE);
+        changeLog.append(POST, Change.Operation.UPDATE);
+
+        ChangeFeed.Page page = changeLog.since(POSTS, 101);
+
+        assertThat(page.isComplete()).isTrue();
+        assertThat(page.getVersion()).isEqualTo(103);
+        assertThat(page.getChanges()).containsExactly(new Change(POST, Change.Operation.UPDATE, 103));
+    }
+
+    @Test
+    public void includeChangesToAncestorsOfUri() {
+        ChangeLog changeLog = new ChangeLog(10, 100);
+        changeLog.append(POSTS, Change.Operation.INVALIDATE);
+
+        ChangeFeed.Page page = changeLog.since(POST, 100);
+
+        assertThat(page.getChanges()).containsExactly(new Change(POSTS, Change.Operation.INVALIDATE, 101));
+    }
+
+    @Test
+    public void returnIncompletePageWhenChangesWereDropped() {
+        ChangeLog changeLog = new ChangeLog(2, 100);
+        changeLog.append(POST, Change.Operation.UPDATE);
+        changeLog.append(POST, Change.Operation.UPDATE);
+        changeLog.append(POST, Change.Operation.UPDATE);
+
+        assertThat(changeLog.since(POSTS, 100).isComplete()).isFalse();
+        assertThat(changeLog.since(POSTS, 101).getChanges()).hasSize(2);
+    }
+
+    @Test
+    public void returnIncompletePageForVersionsOfAnotherProcess() {
+        ChangeLog changeLog = new ChangeLog(10, 100);
+
+        assertThat(changeLog.since(POSTS, 99).isComplete()).isFalse();
+        assertThat(changeLog.since(POSTS, 150).isComplete()).isFalse();
+    }
+
+    @Test
+    public void returnOnlyVersionForNegativeVersion() {
+        ChangeLog changeLog = new ChangeLog(10, 100);
+        changeLog.append(POST, Change.Operation.DELETE);
+
+        ChangeFeed.Page page = changeLog.since(POSTS, -1);
+
+        assertThat(page.isComplete()).isTrue();
+        assertThat(page.getVersion()).isEqualTo(101);
+        assertThat(page.getChanges()).isEmpty();
+    }
+}
@@ -0,0 +1,135 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+
+import com.amplify.hiccup.shared.Change;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ChangeNotifierTest {
+
+    private static final Uri POSTS = Uri.parse("content://com.authority/posts");
+    private static final Uri POST = Uri.parse("content://com.authority/posts/1");
+    private static final Uri COMMENTS = Uri.parse("content://com.authority/comments");
+
+    @Mock
+    private ContentResolver contentResolver;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+    }
+
+    @Test
+    public void notifyImmediatelyOutsideOfRequests() {
+        ChangeNotifier changeNotifier = new ChangeNotifier(contentResolver, 0);
+
+        changeNotifier.notifyChange(POST);
+
+        verify(contentResolver).notifyChange(POST, null);
+    }
+
+    @Test
+    public void holdChangesUntilOutermostScopeEnds() {
+        ChangeNotifier changeNotifier = new ChangeNotifier(contentResolver, 0);
+
+        changeNotifier.begin();
+        changeNotifier.begin();
+        changeNotifier.notifyChange(COMMENTS);
+        changeNotifier.end(true);
+        changeNotifier.notifyChange(COMMENTS);
+        verify(contentResolver, never()).notifyChange(any(Uri.class), any(ContentObserver.class));
+        changeNotifier.end(true);
+
+        verify(contentResolver, times(1)).notifyChange(COMMENTS, null);
+    }
+
+    @Test
+    public void recordChangesOfFailedScopesAsInvalidations() {
+        ChangeNotifier changeNotifier = new ChangeNotifier(contentResolver, 0);
+        long version = changeNotifier.changesSince(POSTS, -1).getVersion();
+
+        changeNotifier.begin();
+        changeNotifier.begin();
+        changeNotifier.notifyChange(POST, Change.Operation.CREATE);
+        changeNotifier.end(false);
+        changeNotifier.notifyChange(POST, Change.Operation.DELETE);
+        changeNotifier.end(true);
+
+        assertThat(changeNotifier.changesSince(POSTS, version).getChanges()).containsExactly(
+                new Change(POST, Change.Operation.INVALIDATE, version + 1),
+                new Change(POST, Change.Operation.INVALIDATE, version + 2));
+    }
+
+    @Test
+    public void recordUnreportedWritesAsInvalidations() {
+        ChangeNotifier changeNotifier = new ChangeNotifier(contentResolver, 0);
+        long version = changeNotifier.changesSince(POSTS, -1).getVersion();
+
+        changeNotifier.begin();
+        changeNotifier.begin();
+        changeNotifier.notifyChange(POST, Change.Operation.CREATE);
+        changeNotifier.recordWrite(POSTS);
+        changeNotifier.end(true);
+        changeNotifier.begin();
+        changeNotifier.notifyChange(COMMENTS, Change.Operation.DELETE);
+        changeNotifier.recordWrite(POST);
+        changeNotifier.end(true);
+        changeNotifier.end(true);
+
+        assertThat(changeNotifier.changesSince(POSTS, version).getChanges()).containsExactly(
+                new Change(POST, Change.Operation.CREATE, version + 1),
+                new Change(POST, Change.Operation.INVALIDATE, version + 3));
+        verify(contentResolver, times(1)).notifyChange(POST, null);
+    }
+
+    @Test
+    public void holdChangesForWindowUntilFlushed() {
+        ChangeNotifier changeNotifier = new ChangeNotifier(contentResolver, 60000);
+
+        changeNotifier.notifyChange(POST);
+        changeNotifier.notifyChange(POST);
+        verify(contentResolver, never()).notifyChange(any(Uri.class), any(ContentObserver.class));
+        changeNotifier.flush();
+
+        verify(contentResolver, times(1)).notifyChange(POST, null);
+    }
+
+    @Test
+    public void reduceChangesToMinimalSetOfUris() {
+        List<Uri> minimal = ChangeNotifier.minimalSetOf(Arrays.asList(
+                POST,
+                Uri.parse("content://com.authority/posts?page=2"),
+                COMMENTS,
+                Uri.parse("content://com.authority/posts/2/comments"),
+                Uri.parse("content://com.authority/postscript")));
+
+        assertThat(minimal).containsOnly(POSTS, COMMENTS, Uri.parse("content://com.authority/postscript"));
+    }
+
+    @Test
+    public void keepUrisOfOtherAuthorities() {
+        Uri otherPosts = Uri.parse("content://com.other/posts/1");
+
+        List<Uri> minimal = ChangeNotifier.minimalSetOf(Arrays.asList(POSTS, otherPosts));
+
+        assertThat(minimal).containsOnly(POSTS, otherPosts);
+    }
+}
@@ -0,0 +1,73 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.provider.BaseColumns;
+
+import com.amplify.hiccup.shared.ModelCodec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class CodecContentAdapterTest {
+
+    private CodecContentAdapter<String> codecContentAdapter;
+
+    @Mock
+    private ModelCodec<String> codec;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(codec.getColumnNames()).thenReturn(new String[]{"name"});
+        codecContentAdapter = new CodecContentAdapter<String>(codec);
+    }
+
+    @Test
+    public void prependIdColumnToCodecColumns() {
+        Cursor cursor = codecContentAdapter.toCursor(null);
+
+        assertThat(cursor.getColumnNames()).containsExactly(BaseColumns._ID, "name");
+    }
+
+    @Test
+    public void writeRowsWithCodec() {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                Object[] arguments = invocation.getArguments();
+                ((Object[]) arguments[1])[(Integer) arguments[2]] = arguments[0];
+                return null;
+            }
+        }).when(codec).writeRow(any(String.class), any(Object[].class), anyInt());
+
+        Cursor cursor = codecContentAdapter.toCursor(Arrays.asList("toys", "books"));
+
+        cursor.moveToLast();
+        assertThat(cursor.getLong(0)).isEqualTo(2L);
+        assertThat(cursor.getString(1)).isEqualTo("books");
+    }
+
+    @Test
+    public void readModelWithCodec() {
+        ContentValues contentValues = new ContentValues();
+        when(codec.fromValues(contentValues)).thenReturn("games");
+
+        assertThat(codecContentAdapter.toModel(contentValues, String.class)).isEqualTo("games");
+    }
+}
@@ -0,0 +1,69 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.provider.BaseColumns;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColumnContentAdapterTest {
+
+    private ColumnContentAdapter<Category> columnContentAdapter;
+
+    @Before
+    public void setUp() {
+        columnContentAdapter = new ColumnContentAdapter<Category>(Category.class);
+    }
+
+    @Test
+    public void returnEmptyCursorWithColumnsForNullResult() {
+        Cursor cursor = columnContentAdapter.toCursor(null);
+
+        assertThat(cursor.getCount()).isEqualTo(0);
+        assertThat(cursor.getColumnNames()).containsExactly(BaseColumns._ID, "name", "weight");
+    }
+
+    @Test
+    public void flattenModelsIntoTypedColumns() {
+        Cursor cursor = columnContentAdapter.toCursor(Arrays.asList(new Category("toys", 3), new Category("books", 7)));
+
+        cursor.moveToLast();
+        assertThat(cursor.getLong(cursor.getColumnIndex(BaseColumns._ID))).isEqualTo(2L);
+        assertThat(cursor.getString(cursor.getColumnIndex("name"))).isEqualTo("books");
+        assertThat(cursor.getType(cursor.getColumnIndex("weight"))).isEqualTo(Cursor.FIELD_TYPE_INTEGER);
+        assertThat(cursor.getLong(cursor.getColumnIndex("weight"))).isEqualTo(7L);
+    }
+
+    @Test
+    public void convertTypedValuesToModel() {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put("name", "games");
+        contentValues.put("weight", 5L);
+
+        Category actual = columnContentAdapter.toModel(contentValues, Category.class);
+
+        assertThat(actual.name).isEqualTo("games");
+        assertThat(actual.weight).isEqualTo(5L);
+    }
+
+    static class Category {
+        String name;
+        long weight;
+
+        Category() {
+        }
+
+        Category(String name, long weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.amplify.hiccup.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EncodedBodiesTest {
+
+    private CountingEncoder bodyEncoder;
+    private Map<Object, Object> versions;
+    private EncodedBodies encodedBodies;
+
+    @Before
+    public void setUp() {
+        bodyEncoder = new CountingEncoder();
+        versions = new HashMap<Object, Object>();
+        encodedBodies = new EncodedBodies(bodyEncoder, new ModelVersions() {
+            @Override
+            public Object versionOf(Object model) {
+                return versions.get(model);
+            }
+        }, 2);
+    }
+
+    @Test
+    public void reuseBodyOfSameInstanceAtSameVersion() {
+        Model model = new Model("toys");
+        versions.put(model, 1L);
+
+        Object first = encodedBodies.encode(model);
+        Object second = encodedBodies.encode(model);
+
+        assertThat(second).isSameAs(first);
+        assertThat(bodyEncoder.count).isEqualTo(1);
+    }
+
+    @Test
+    public void encodeAgainOnceVersionChanges() {
+        Model model = new Model("toys");
+        versions.put(model, 1L);
+        encodedBodies.encode(model);
+
+        model.name = "games";
+        versions.put(model, 2L);
+
+        assertThat(encodedBodies.encode(model)).isEqualTo("games");
+        assertThat(bodyEncoder.count).isEqualTo(2);
+    }
+
+    @Test
+    public void encodeModelsWithoutVersionEveryTime() {
+        Model model = new Model("toys");
+
+        encodedBodies.encode(model);
+        encodedBodies.encode(model);
+
+        assertThat(bodyEncoder.count).isEqualTo(2);
+        assertThat(encodedBodies.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void keepBodiesOfMostRecentlyEncodedModelsOnly() {
+        Model toys = new Model("toys");
+        Model games = new Model("games");
+        Model books = new Model("books");
+        versions.put(toys, 1L);
+        versions.put(games, 1L);
+        versions.put(books, 1L);
+
+        encodedBodies.encode(toys);
+        encodedBodies.encode(games);
+        encodedBodies.encode(toys);
+        encodedBodies.encode(books);
+        encodedBodies.encode(toys);
+        encodedBodies.encode(games);
+
+        assertThat(encodedBodies.size()).isEqualTo(2);
+        assertThat(bodyEncoder.count).isEqualTo(4);
+    }
+
+    private static class Model {
+        String name;
+
+        Model(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class CountingEncoder implements LazyBodyCursor.BodyEncoder {
+        int count;
+
+        @Override
+        public Object encode(Object model) {
+            count++;
+            return new String(((Model) model).name);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ForwardingControllerTest {
+
+    private static final Uri URI = Uri.parse("content://com.authority.name/some/path");
+
+    private ForwardingController forwardingController;
+
+    @Mock
+    private Controller delegate;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        forwardingController = new ForwardingController(delegate);
+    }
+
+    @Test
+    public void forwardGet() {
+        Cursor expectedCursor = mock(Cursor.class);
+        when(delegate.get(URI)).thenReturn(expectedCursor);
+
+        assertThat(forwardingController.get(URI)).isEqualTo(expectedCursor);
+    }
+
+    @Test
+    public void forwardPost() {
+        ContentValues contentValues = new ContentValues();
+        when(delegate.post(URI, contentValues)).thenReturn(URI);
+
+        assertThat(forwardingController.post(URI, contentValues)).isEqualTo(URI);
+    }
+
+    @Test
+    public void forwardPut() {
+        ContentValues contentValues = new ContentValues();
+        when(delegate.put(URI, contentValues)).thenReturn(3);
+
+        assertThat(forwardingController.put(URI, contentValues)).isEqualTo(3);
+    }
+
+    @Test
+    public void forwardDelete() {
+        forwardingController.delete(URI);
+
+        verify(delegate).delete(URI);
+    }
+
+    @Test
+    public void forwardPatch() {
+        ContentValues[] contentValues = new ContentValues[]{new ContentValues()};
+
+        forwardingController.patch(URI, contentValues);
+
+        verify(delegate).patch(URI, contentValues);
+    }
+
+    @Test
+    public void forwardPostAllToBulkControllers() {
+        BulkController bulkDelegate = mock(BulkController.class);
+        ContentValues[] contentValues = new ContentValues[]{new ContentValues()};
+
+        new ForwardingController(bulkDelegate).postAll(URI, contentValues);
+
+        verify(bulkDelegate).postAll(URI, contentValues);
+    }
+
+    @Test
+    public void forwardPostAllToOtherControllersAsOnePostPerResource() {
+        ContentValues first = new ContentValues();
+        first.put("n", 1);
+        ContentValues second = new ContentValues();
+        second.put("n", 2);
+        when(delegate.post(URI, first)).thenReturn(URI);
+
+        int count = forwardingController.postAll(URI, new ContentValues[]{first, second});
+
+        verify(delegate).post(URI, first);
+        verify(delegate).post(URI, second);
+        assertThat(count).isEqualTo(1);
+    }
+}
@@ -1,18 +1,46 @@
 package com.amplify.hiccup.service;
 
+import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
 import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.ContentObserver;
 import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.net.Uri;
+import android.os.Bundle;
+
+import com.amplify.hiccup.shared.Change;
+import com.amplify.hiccup.shared.ChangeFeed;
+import com.amplify.hiccup.shared.ConditionalGet;
+import com.amplify.hiccup.shared.StreamedBody;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.robolectric.RobolectricTestRunner;
 
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -24,6 +52,8 @@ public class HiccupServiceTest {
     private static final String ROUTE_TWO_PATH = "path/to/collection/resource";
     private static final Uri ROUTE_ONE_URI = Uri.parse("content://" + AUTHORITY + "/" + ROUTE_ONE_PATH);
     private static final Uri ROUTE_TWO_URI = Uri.parse("content://" + AUTHORITY + "/" + ROUTE_TWO_PATH);
+    private static final String READ_PERMISSION = "com.authority.permission.READ";
+    private static final String WRITE_PERMISSION = "com.authority.permission.WRITE";
 
     private HiccupService hiccupService;
 
@@ -33,6 +63,10 @@ public class HiccupServiceTest {
     private Controller controller2;
     @Mock
     private ContentAdapter<SomeDomainModel> contentAdapter;
+    @Mock
+    private ContentProvider provider;
+    @Mock
+    private Context context;
 
     @Before
     public void setUp() {
@@ -45,8 +79,8 @@ public class HiccupServiceTest {
         hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
         hiccupService.newRoute(ROUTE_TWO_PATH, controller2);
 
-        Controller actualController1 = hiccupService.getControllerInfo(ROUTE_ONE_URI).controller;
-        Controller actualController2 = hiccupService.getControllerInfo(ROUTE_TWO_URI).controller;
+        Controller actualController1 = hiccupService.getControllerInfo(ROUTE_ONE_URI).controller();
+        Controller actualController2 = hiccupService.getControllerInfo(ROUTE_TWO_URI).controller();
         assertThat(actualController1).isEqualTo(controller1);
         assertThat(actualController2).isEqualTo(controller2);
     }
@@ -56,8 +90,8 @@ public class HiccupServiceTest {
         hiccupService.newRoute("/" + ROUTE_ONE_PATH, controller1);
         hiccupService.newRoute("/" + ROUTE_TWO_PATH, controller2);
 
-        Controller actualController1 = hiccupService.getControllerInfo(ROUTE_ONE_URI).controller;
-        Controller actualController2 = hiccupService.getControllerInfo(ROUTE_TWO_URI).controller;
+        Controller actualController1 = hiccupService.getControllerInfo(ROUTE_ONE_URI).controller();
+        Controller actualController2 = hiccupService.getControllerInfo(ROUTE_TWO_URI).controller();
         assertThat(actualController1).isEqualTo(controller1);
         assertThat(actualController2).isEqualTo(controller2);
     }
@@ -137,5 +171,630 @@ public class HiccupServiceTest {
         assertThat(actualCount).isEqualTo(expectedCount);
     }
 
+    @Test
+    public void createLazyControllerOnlyOnFirstRequest() {
+        ControllerFactory controllerFactory = mock(ControllerFactory.class);
+        when(controllerFactory.create()).thenReturn(controller1);
+        hiccupService.newRoute(ROUTE_ONE_PATH, controllerFactory);
+
+        verify(controllerFactory, never()).create();
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        hiccupService.delegateDelete(ROUTE_ONE_URI);
+
+        verify(controllerFactory, times(1)).create();
+        verify(controller1).get(ROUTE_ONE_URI);
+        verify(controller1).delete(ROUTE_ONE_URI);
+    }
+
+    @Test
+    public void recordNoMetricsUnlessEnabled() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        assertThat(hiccupService.getControllerInfo(ROUTE_ONE_URI).controller()).isEqualTo(controller1);
+        assertThat(hiccupService.getMetrics()).isEmpty();
+    }
+
+    @Test
+    public void recordMetricsPerRouteAndVerbWhenEnabled() {
+        hiccupService.enableMetrics()
+                .newRoute(ROUTE_ONE_PATH, controller1)
+                .newRoute(ROUTE_TWO_PATH, controller2);
+        when(controller2.delete(ROUTE_TWO_URI)).thenThrow(new IllegalStateException());
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        try {
+            hiccupService.delegateDelete(ROUTE_TWO_URI);
+        } catch (IllegalStateException expected) {
+            // recorded as an error
+        }
+
+        List<MetricsSnapshot> metrics = hiccupService.getMetrics();
+        assertThat(metrics).hasSize(2);
+        assertThat(metrics.get(0).getPath()).isEqualTo(ROUTE_ONE_PATH);
+        assertThat(metrics.get(0).getVerb()).isEqualTo(Verb.GET);
+        assertThat(metrics.get(0).getCallCount()).isEqualTo(2L);
+        assertThat(metrics.get(1).getVerb()).isEqualTo(Verb.DELETE);
+        assertThat(metrics.get(1).getErrorCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void applyGlobalInterceptorsOutsideRouteInterceptorsInOrder() {
+        final List<String> calls = new ArrayList<String>();
+        hiccupService
+                .addInterceptor(new RecordingInterceptor("global", calls))
+                .newRoute(ROUTE_ONE_PATH, controller1, new RecordingInterceptor("route", calls));
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        assertThat(calls).containsExactly("global " + ROUTE_ONE_PATH, "route " + ROUTE_ONE_PATH);
+        verify(controller1).get(ROUTE_ONE_URI);
+    }
+
+    @Test
+    public void composeInterceptorsOnceForLazyControllers() {
+        final List<String> calls = new ArrayList<String>();
+        RecordingInterceptor interceptor = new RecordingInterceptor("route", calls);
+        ControllerFactory controllerFactory = mock(ControllerFactory.class);
+        when(controllerFactory.create()).thenReturn(controller1);
+        hiccupService.newRoute(ROUTE_ONE_PATH, controllerFactory, interceptor);
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        assertThat(interceptor.interceptCount).isEqualTo(1);
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    public void interceptorsOnlyApplyToRoutesRegisteredAfterThem() {
+        final List<String> calls = new ArrayList<String>();
+        hiccupService
+                .newRoute(ROUTE_ONE_PATH, controller1)
+                .addInterceptor(new RecordingInterceptor("global", calls))
+                .newRoute(ROUTE_TWO_PATH, controller2);
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        hiccupService.delegateQuery(ROUTE_TWO_URI);
+
+        assertThat(calls).containsExactly("global " + ROUTE_TWO_PATH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwIllegalArgumentExceptionForNonMatchingAuthority() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+
+        hiccupService.delegateQuery(Uri.parse("content://com.other.authority/" + ROUTE_ONE_PATH));
+    }
+
+    @Test
+    public void exposeNamedPathParametersToControllerDuringDispatch() {
+        final long[] actualPostId = new long[1];
+        hiccupService.newRoute("posts/{postId:#}/comments", new ControllerStub() {
+            @Override
+            public Cursor get(Uri uri) {
+                actualPostId[0] = PathParameters.current().getLong("postId");
+                return null;
+            }
+        });
+
+        hiccupService.delegateQuery(Uri.parse("content://" + AUTHORITY + "/posts/17/comments"));
+
+        assertThat(actualPostId[0]).isEqualTo(17L);
+        assertThat(PathParameters.current().has("postId")).isFalse();
+    }
+
+    private static Cursor newCursor() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name"});
+        cursor.addRow(new Object[]{1L, "toys"});
+        return cursor;
+    }
+
     private static class SomeDomainModel {}
+
+    private static class RecordingInterceptor implements Interceptor {
+        private final String name;
+        private final List<String> calls;
+        private int interceptCount;
+
+        RecordingInterceptor(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public Controller intercept(final String path, Controller next) {
+            interceptCount++;
+            return new ForwardingController(next) {
+                @Override
+                public Cursor get(Uri uri) {
+                    calls.add(name + " " + path);
+                    return super.get(uri);
+                }
+            };
+        }
+    }
+
+    private static class ControllerStub implements Controller {
+        @Override
+        public Cursor get(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri post(Uri uri, ContentValues contentValues) {
+            return null;
+        }
+
+        @Override
+        public int put(Uri uri, ContentValues contentValues) {
+            return 0;
+        }
+
+        @Override
+        public int delete(Uri uri) {
+            return 0;
+        }
+
+        @Override
+        public int patch(Uri uri, ContentValues[] contentValues) {
+            return 0;
+        }
+    }
+
+    @Test
+    public void ignoreCallsThatAreNotStreamedRequests() {
+        assertThat(hiccupService.delegateCall(provider, "someOtherMethod", null, null)).isNull();
+    }
+
+    @Test
+    public void delegateBulkPostWithInlineValuesFromCall() {
+        BulkController bulkController = mock(BulkController.class);
+        hiccupService.newRoute(ROUTE_ONE_PATH, bulkController);
+        ContentValues[] values = new ContentValues[]{new ContentValues(), new ContentValues()};
+        when(bulkController.postAll(ROUTE_ONE_URI, values)).thenReturn(2);
+        Bundle extras = new Bundle();
+        extras.putParcelableArray(StreamedBody.EXTRA_VALUES, values);
+
+        Bundle result = hiccupService.delegateCall(provider, StreamedBody.METHOD_POST_ALL, ROUTE_ONE_URI.toString(), extras);
+
+        assertThat(result.getInt(StreamedBody.EXTRA_COUNT)).isEqualTo(2);
+    }
+
+    @Test
+    public void delegateBulkPostToControllersThatAreNotBulkControllersOnePostAtATime() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        ContentValues first = new ContentValues();
+        first.put("n", 1);
+        ContentValues second = new ContentValues();
+        second.put("n", 2);
+        when(controller1.post(ROUTE_ONE_URI, first)).thenReturn(ROUTE_TWO_URI);
+        when(controller1.post(ROUTE_ONE_URI, second)).thenReturn(ROUTE_TWO_URI);
+
+        int count = hiccupService.delegatePostAll(ROUTE_ONE_URI, new ContentValues[]{first, second});
+
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectBulkPostsFromCallersWithoutWritePermission() {
+        BulkController bulkController = mock(BulkController.class);
+        hiccupService.newRoute(ROUTE_ONE_PATH, bulkController);
+        when(provider.getWritePermission()).thenReturn(WRITE_PERMISSION);
+        when(provider.getContext()).thenReturn(context);
+        doThrow(new SecurityException("denied")).when(context).enforceCallingOrSelfPermission(eq(WRITE_PERMISSION), anyString());
+        Bundle extras = new Bundle();
+        extras.putParcelableArray(StreamedBody.EXTRA_VALUES, new ContentValues[]{new ContentValues()});
+
+        try {
+            hiccupService.delegateCall(provider, StreamedBody.METHOD_POST_ALL, ROUTE_ONE_URI.toString(), extras);
+            fail("Expected SecurityException");
+        } catch (SecurityException expected) {
+            verifyZeroInteractions(bulkController);
+        }
+    }
+
+    @Test
+    public void rejectStreamedWritesFromCallersWithoutWritePermission() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        when(provider.getWritePermission()).thenReturn(WRITE_PERMISSION);
+        when(provider.getContext()).thenReturn(context);
+        doThrow(new SecurityException("denied")).when(context).enforceCallingOrSelfPermission(eq(WRITE_PERMISSION), anyString());
+        Bundle extras = new Bundle();
+        extras.putParcelableArray(StreamedBody.EXTRA_VALUES, new ContentValues[]{new ContentValues()});
+
+        try {
+            hiccupService.delegateCall(provider, StreamedBody.METHOD_POST, ROUTE_ONE_URI.toString(), extras);
+            fail("Expected SecurityException");
+        } catch (SecurityException expected) {
+            verifyZeroInteractions(controller1);
+        }
+    }
+
+    @Test
+    public void dispatchStreamedWritesFromCallersWithWritePermission() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        when(provider.getWritePermission()).thenReturn(WRITE_PERMISSION);
+        when(provider.getContext()).thenReturn(context);
+        ContentValues values = new ContentValues();
+        when(controller1.put(ROUTE_ONE_URI, values)).thenReturn(1);
+        Bundle extras = new Bundle();
+        extras.putParcelableArray(StreamedBody.EXTRA_VALUES, new ContentValues[]{values});
+
+        Bundle result = hiccupService.delegateCall(provider, StreamedBody.METHOD_PUT, ROUTE_ONE_URI.toString(), extras);
+
+        verify(context).enforceCallingOrSelfPermission(eq(WRITE_PERMISSION), anyString());
+        assertThat(result.getInt(StreamedBody.EXTRA_COUNT)).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwIllegalArgumentExceptionForStreamedRequestWithoutBody() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+
+        hiccupService.delegateCall(provider, StreamedBody.METHOD_POST, ROUTE_ONE_URI.toString(), new Bundle());
+    }
+
+    @Test
+    public void respondWithoutStreamColumnUnlessStreamingIsEnabled() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        when(controller1.get(ROUTE_ONE_URI)).thenReturn(new HttpContentAdapter(null).toCursor(new ArrayList<Object>()));
+
+        Cursor cursor = hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        assertThat(cursor.getColumnNames()).containsExactly("_id", "body");
+    }
+
+    @Test
+    public void respondWithStreamColumnOnceStreamingIsEnabled() {
+        hiccupService.streamBodiesLargerThan(StreamedBody.DEFAULT_THRESHOLD_BYTES).newRoute(ROUTE_ONE_PATH, controller1);
+        when(controller1.get(ROUTE_ONE_URI)).thenReturn(new HttpContentAdapter(null).toCursor(new ArrayList<Object>()));
+
+        Cursor cursor = hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        assertThat(cursor.getColumnNames()).containsExactly("_id", "body", StreamedBody.STREAM_COLUMN);
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void throwFileNotFoundExceptionForUnknownBodyStream() throws FileNotFoundException {
+        hiccupService.delegateOpenFile(StreamedBody.streamUri(AUTHORITY, "t-unknown"), "r");
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void throwFileNotFoundExceptionForUrisThatAreNotBodyStreams() throws FileNotFoundException {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+
+        hiccupService.delegateOpenFile(ROUTE_ONE_URI, "r");
+    }
+
+    @Test
+    public void applyBatchInOneTransactionPerController() throws OperationApplicationException {
+        TransactionalController transactionalController = mock(TransactionalController.class);
+        hiccupService
+                .newRoute(ROUTE_ONE_PATH, transactionalController)
+                .newRoute(ROUTE_TWO_PATH, controller2);
+        ContentValues values = new ContentValues();
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newInsert(ROUTE_ONE_URI).withValues(values).build());
+        operations.add(ContentProviderOperation.newDelete(ROUTE_TWO_URI).build());
+        operations.add(ContentProviderOperation.newInsert(ROUTE_ONE_URI).withValues(values).build());
+
+        hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+
+        InOrder inOrder = inOrder(transactionalController, controller2);
+        inOrder.verify(transactionalController).beginBatch();
+        inOrder.verify(transactionalController).post(ROUTE_ONE_URI, values);
+        inOrder.verify(controller2).delete(ROUTE_TWO_URI);
+        inOrder.verify(transactionalController).post(ROUTE_ONE_URI, values);
+        inOrder.verify(transactionalController).endBatch(true);
+    }
+
+    @Test
+    public void yieldBatchesBeforeOperationsThatAllowYielding() throws OperationApplicationException {
+        YieldingController yieldingController = mock(YieldingController.class);
+        hiccupService.newRoute(ROUTE_ONE_PATH, yieldingController);
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        for (int i = 0; i < 5; i++) {
+            operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).withYieldAllowed(i % 2 == 0).build());
+        }
+
+        hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+
+        InOrder inOrder = inOrder(yieldingController);
+        inOrder.verify(yieldingController).beginBatch();
+        inOrder.verify(yieldingController, times(2)).delete(ROUTE_ONE_URI);
+        inOrder.verify(yieldingController).yieldBatch();
+        inOrder.verify(yieldingController, times(2)).delete(ROUTE_ONE_URI);
+        inOrder.verify(yieldingController).yieldBatch();
+        inOrder.verify(yieldingController).delete(ROUTE_ONE_URI);
+        inOrder.verify(yieldingController).endBatch(true);
+    }
+
+    @Test
+    public void returnResultsOfBatchInOrder() throws OperationApplicationException {
+        Uri created = Uri.parse("content://" + AUTHORITY + "/" + ROUTE_ONE_PATH + "/3");
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        when(controller1.post(ROUTE_ONE_URI, new ContentValues())).thenReturn(created);
+        when(controller1.delete(ROUTE_ONE_URI)).thenReturn(2);
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newInsert(ROUTE_ONE_URI).withValues(new ContentValues()).build());
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+
+        ContentProviderResult[] results = hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+
+        assertThat(results[0].uri).isEqualTo(created);
+        assertThat(results[1].count).isEqualTo(2);
+    }
+
+    @Test
+    public void endBatchUnsuccessfullyWhenAnOperationFails() throws OperationApplicationException {
+        TransactionalController transactionalController = mock(TransactionalController.class);
+        hiccupService.newRoute(ROUTE_ONE_PATH, transactionalController);
+        when(transactionalController.delete(ROUTE_ONE_URI)).thenThrow(new IllegalStateException("failed"));
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+
+        try {
+            hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+            fail("Expected the batch to fail");
+        } catch (IllegalStateException e) {
+            verify(transactionalController).endBatch(false);
+            verify(transactionalController, never()).endBatch(true);
+        }
+    }
+
+    @Test
+    public void resolveAllRoutesBeforeApplyingBatch() throws OperationApplicationException {
+        TransactionalController transactionalController = mock(TransactionalController.class);
+        hiccupService.newRoute(ROUTE_ONE_PATH, transactionalController);
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+        operations.add(ContentProviderOperation.newDelete(Uri.parse("content://" + AUTHORITY + "/no/route")).build());
+
+        try {
+            hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+            fail("Expected the batch to be rejected");
+        } catch (IllegalArgumentException e) {
+            verifyZeroInteractions(transactionalController);
+        }
+    }
+
+    @Test
+    public void findBatchHookBehindInterceptors() throws OperationApplicationException {
+        TransactionalController transactionalController = mock(TransactionalController.class);
+        hiccupService.newRoute(ROUTE_ONE_PATH, transactionalController,
+                new RecordingInterceptor("route", new ArrayList<String>()));
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+
+        hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+
+        verify(transactionalController).beginBatch();
+        verify(transactionalController).endBatch(true);
+    }
+
+    @Test
+    public void notifyChangesOfBatchOnceItCompletes() throws OperationApplicationException {
+        final ContentResolver contentResolver = mock(ContentResolver.class);
+        hiccupService.notifyChanges(contentResolver, 0);
+        final ChangeNotifier changeNotifier = hiccupService.getChangeNotifier();
+        hiccupService.newRoute(ROUTE_ONE_PATH, new ControllerStub() {
+            @Override
+            public int delete(Uri uri) {
+                changeNotifier.notifyChange(uri);
+                verify(contentResolver, never()).notifyChange(any(Uri.class), any(ContentObserver.class));
+                return 1;
+            }
+        });
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+
+        hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+
+        verify(contentResolver, times(1)).notifyChange(ROUTE_ONE_URI, null);
+    }
+
+    @Test
+    public void publishOnlyInvalidationsForFailedBatches() throws OperationApplicationException {
+        hiccupService.notifyChanges(mock(ContentResolver.class), 0);
+        final ChangeNotifier changeNotifier = hiccupService.getChangeNotifier();
+        hiccupService.newRoute(ROUTE_ONE_PATH, new ControllerStub() {
+            @Override
+            public Uri post(Uri uri, ContentValues contentValues) {
+                changeNotifier.notifyChange(ROUTE_TWO_URI, Change.Operation.CREATE);
+                return ROUTE_TWO_URI;
+            }
+
+            @Override
+            public int delete(Uri uri) {
+                changeNotifier.notifyChange(uri, Change.Operation.DELETE);
+                throw new IllegalStateException("rolled back");
+            }
+        });
+        long version = changeNotifier.changesSince(ROUTE_ONE_URI, -1).getVersion();
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newInsert(ROUTE_ONE_URI).withValues(new ContentValues()).build());
+        operations.add(ContentProviderOperation.newDelete(ROUTE_ONE_URI).build());
+
+        try {
+            hiccupService.delegateApplyBatch(new ServiceProvider(hiccupService), operations);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertThat(changeNotifier.changesSince(ROUTE_ONE_URI, version).getChanges()).containsExactly(
+                    new Change(ROUTE_TWO_URI, Change.Operation.INVALIDATE, version + 1),
+                    new Change(ROUTE_ONE_URI, Change.Operation.INVALIDATE, version + 2));
+        }
+    }
+
+    @Test
+    public void invalidateCachedResponsesOnWritesToOtherRoutes() {
+        when(controller1.get(ROUTE_ONE_URI)).thenReturn(newCursor(), newCursor());
+        hiccupService
+                .newRoute(ROUTE_ONE_PATH, controller1, new ResponseCache(16, 0))
+                .newRoute(ROUTE_TWO_PATH, controller2);
+
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+        verify(controller1, times(1)).get(ROUTE_ONE_URI);
+
+        hiccupService.delegateUpdate(ROUTE_TWO_URI, new ContentValues());
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        verify(controller1, times(2)).get(ROUTE_ONE_URI);
+    }
+
+    @Test
+    public void invalidateCachedResponsesOnReportedChanges() {
+        hiccupService.notifyChanges(mock(ContentResolver.class), 0);
+        when(controller1.get(ROUTE_ONE_URI)).thenReturn(newCursor(), newCursor());
+        ResponseCache responseCache = new ResponseCache(16, 0);
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1, responseCache);
+        hiccupService.delegateQuery(ROUTE_ONE_URI);
+
+        hiccupService.getChangeNotifier().notifyChange(ROUTE_TWO_URI);
+
+        assertThat(responseCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void validateWithVersionOfVersionedController() {
+        VersionedController versionedController = mock(VersionedController.class);
+        when(versionedController.versionOf(ROUTE_ONE_URI)).thenReturn("v2");
+        hiccupService.newRoute(ROUTE_ONE_PATH, versionedController);
+
+        Bundle stale = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request("v1"));
+        Bundle current = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request("v2"));
+
+        assertThat(stale.getBoolean(ConditionalGet.EXTRA_MODIFIED)).isTrue();
+        assertThat(stale.getString(ConditionalGet.EXTRA_VERSION)).isEqualTo("v2");
+        assertThat(current.getBoolean(ConditionalGet.EXTRA_MODIFIED)).isFalse();
+    }
+
+    @Test
+    public void validateWithChangeFeedWhenVersionIsNotKnown() {
+        hiccupService.notifyChanges(mock(ContentResolver.class), 0);
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        String version = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(),
+                ConditionalGet.request(null)).getString(ConditionalGet.EXTRA_VERSION);
+
+        Bundle unchanged = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request(version));
+        hiccupService.getChangeNotifier().notifyChange(ROUTE_TWO_URI);
+        Bundle changed = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request(version));
+
+        assertThat(version).isNotNull();
+        assertThat(unchanged.getBoolean(ConditionalGet.EXTRA_MODIFIED)).isFalse();
+        assertThat(changed.getBoolean(ConditionalGet.EXTRA_MODIFIED)).isTrue();
+        assertThat(changed.getString(ConditionalGet.EXTRA_VERSION)).isNotEqualTo(version);
+    }
+
+    @Test
+    public void reportModifiedAfterWritesTheControllerDidNotReport() {
+        hiccupService.notifyChanges(mock(ContentResolver.class), 0);
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1).newRoute(ROUTE_TWO_PATH, controller2);
+        String version = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(),
+                ConditionalGet.request(null)).getString(ConditionalGet.EXTRA_VERSION);
+
+        hiccupService.delegateUpdate(ROUTE_TWO_URI, new ContentValues());
+        Bundle result = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request(version));
+
+        assertThat(result.getBoolean(ConditionalGet.EXTRA_MODIFIED)).isTrue();
+    }
+
+    @Test(expected = SecurityException.class)
+    public void rejectValidationsFromCallersWithoutReadPermission() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+        when(provider.getReadPermission()).thenReturn(READ_PERMISSION);
+        when(provider.getContext()).thenReturn(context);
+        doThrow(new SecurityException("denied")).when(context).enforceCallingOrSelfPermission(eq(READ_PERMISSION), anyString());
+
+        hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request("v1"));
+    }
+
+    @Test
+    public void alwaysReportModifiedWhenVersionIsNotKnown() {
+        hiccupService.newRoute(ROUTE_ONE_PATH, controller1);
+
+        Bundle result = hiccupService.delegateCall(provider, ConditionalGet.METHOD_VALIDATE, ROUTE_ONE_URI.toString(), ConditionalGet.request("v1"));
+
+        assertThat(result.getBoolean(ConditionalGet.EXTRA_MODIFIED)).isTrue();
+        assertThat(result.getString(ConditionalGet.EXTRA_VERSION)).isNull();
+    }
+
+    @Test
+    public void publishChangesOfRequestsInChangeFeed() {
+        hiccupService.notifyChanges(mock(ContentResolver.class), 0);
+        final ChangeNotifier changeNotifier = hiccupService.getChangeNotifier();
+        hiccupService.newRoute(ROUTE_ONE_PATH, new ControllerStub() {
+            @Override
+            public Uri post(Uri uri, ContentValues contentValues) {
+                changeNotifier.notifyChange(ROUTE_TWO_URI, Change.Operation.CREATE);
+                return ROUTE_TWO_URI;
+            }
+        });
+        Bundle since = new Bundle();
+        since.putLong(ChangeFeed.EXTRA_SINCE, -1);
+        long version = ChangeFeed.fromBundle(hiccupService.delegateCall(provider, ChangeFeed.METHOD_CHANGES, ROUTE_ONE_URI.toString(), since)).getVersion();
+
+        hiccupService.delegateInsert(ROUTE_ONE_URI, new ContentValues());
+
+        since.putLong(ChangeFeed.EXTRA_SINCE, version);
+        ChangeFeed.Page page = ChangeFeed.fromBundle(hiccupService.delegateCall(provider, ChangeFeed.METHOD_CHANGES, ROUTE_ONE_URI.toString(), since));
+        assertThat(page.getChanges()).containsExactly(new Change(ROUTE_TWO_URI, Change.Operation.CREATE, version + 1));
+    }
+
+    @Test(expected = SecurityException.class)
+    public void rejectChangeFeedReadsFromCallersWithoutReadPermission() {
+        hiccupService.notifyChanges(mock(ContentResolver.class), 0);
+        when(provider.getReadPermission()).thenReturn(READ_PERMISSION);
+        when(provider.getContext()).thenReturn(context);
+        doThrow(new SecurityException("denied")).when(context).enforceCallingOrSelfPermission(eq(READ_PERMISSION), anyString());
+
+        hiccupService.delegateCall(provider, ChangeFeed.METHOD_CHANGES, ROUTE_ONE_URI.toString(), new Bundle());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwIllegalStateExceptionForChangeNotifierWhenNotEnabled() {
+        hiccupService.getChangeNotifier();
+    }
+
+    private static class ServiceProvider extends ContentProvider {
+        private final HiccupService hiccupService;
+
+        ServiceProvider(HiccupService hiccupService) {
+            this.hiccupService = hiccupService;
+        }
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            return hiccupService.delegateQuery(uri);
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            return hiccupService.delegateInsert(uri, values);
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            return hiccupService.delegateDelete(uri);
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+            return hiccupService.delegateUpdate(uri, values);
+        }
+    }
 }
@@ -17,6 +17,8 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -132,6 +134,26 @@ public class HttpContentAdapterTest {
         assertThat(actualModel).isEqualTo(expectedModel);
     }
 
+    @Test
+    public void reuseJsonOfUnchangedModelsServedAgain() {
+        Object model = new Object();
+        when(jsonConverter.toJson(model)).thenReturn("{}");
+        httpContentAdapter = new HttpContentAdapter(jsonConverter, new ModelVersions() {
+            @Override
+            public Object versionOf(Object model) {
+                return 1L;
+            }
+        }, 16);
+
+        for (int i = 0; i < 3; i++) {
+            Cursor cursor = httpContentAdapter.toCursor(Arrays.asList(model));
+            cursor.moveToFirst();
+            assertThat(cursor.getString(cursor.getColumnIndex("body"))).isEqualTo("{}");
+        }
+
+        verify(jsonConverter, times(1)).toJson(model);
+    }
+
     private static class DomainModelTest {
     }
 }
@@ -0,0 +1,211 @@
+package com.amplify.hiccup.service;
+
+import android.database.Cursor;
+import android.database.CursorWindow;
+
+import com.amplify.hiccup.shared.JsonConverter;
+import com.amplify.hiccup.shared.StreamedBody;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class LazyBodyCursorTest {
+
+    private static final String[] COLUMNS = new String[]{"_id", "body"};
+    private static final String[] STREAM_COLUMNS = new String[]{"_id", "body", StreamedBody.STREAM_COLUMN};
+
+    @Mock
+    private JsonConverter jsonConverter;
+
+    private Object modelOne;
+    private Object modelTwo;
+    private Object modelThree;
+    private List<Object> models;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        modelOne = new Object();
+        modelTwo = new Object();
+        modelThree = new Object();
+        models = Arrays.asList(modelOne, modelTwo, modelThree);
+        when(jsonConverter.toJson(modelOne)).thenReturn("one");
+        when(jsonConverter.toJson(modelTwo)).thenReturn("two");
+        when(jsonConverter.toJson(modelThree)).thenReturn("three");
+    }
+
+    @Test
+    public void doNotSerializeAnythingUntilRowsAreRead() {
+        Cursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+
+        assertThat(cursor.getCount()).isEqualTo(3);
+        verify(jsonConverter, never()).toJson(anyObject());
+    }
+
+    @Test
+    public void serializeOnlyTheRowsThatAreRead() {
+        Cursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+
+        cursor.moveToPosition(1);
+
+        assertThat(cursor.getString(1)).isEqualTo("two");
+        verify(jsonConverter, never()).toJson(modelOne);
+        verify(jsonConverter, never()).toJson(modelThree);
+    }
+
+    @Test
+    public void serializeCurrentRowOnlyOnce() {
+        Cursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+
+        cursor.moveToFirst();
+        cursor.getString(1);
+        cursor.getString(1);
+
+        verify(jsonConverter, times(1)).toJson(modelOne);
+    }
+
+    @Test
+    public void acceptIterablesThatAreNotRandomAccessLists() {
+        Cursor cursor = new LazyBodyCursor(COLUMNS, new LinkedList<Object>(models), LazyBodyCursor.json(jsonConverter));
+
+        cursor.moveToLast();
+
+        assertThat(cursor.getCount()).isEqualTo(3);
+        assertThat(cursor.getLong(0)).isEqualTo(3L);
+        assertThat(cursor.getString(1)).isEqualTo("three");
+    }
+
+    @Test
+    public void fillWindowFromPositionUntilWindowIsFull() {
+        LazyBodyCursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+        CursorWindow window = mock(CursorWindow.class);
+        when(window.allocRow()).thenReturn(true, false);
+        when(window.putLong(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putString(anyString(), anyInt(), anyInt())).thenReturn(true);
+
+        cursor.fillWindow(1, window);
+
+        verify(window).setStartPosition(1);
+        verify(window).putLong(2L, 1, 0);
+        verify(window).putString("two", 1, 1);
+        verify(jsonConverter, never()).toJson(modelThree);
+    }
+
+    @Test
+    public void freeRowThatDoesNotFitInWindow() {
+        LazyBodyCursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+        CursorWindow window = mock(CursorWindow.class);
+        when(window.allocRow()).thenReturn(true);
+        when(window.putLong(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putString(anyString(), anyInt(), anyInt())).thenReturn(true, false);
+
+        cursor.fillWindow(0, window);
+
+        verify(window).freeLastRow();
+        verify(window, never()).putLong(3L, 2, 0);
+    }
+
+    @Test
+    public void streamBodiesLargerThanThresholdInsteadOfFillingWindow() {
+        BodyStreams bodyStreams = new BodyStreams();
+        LazyBodyCursor cursor = new LazyBodyCursor(STREAM_COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+        cursor.streamBodiesLargerThan(3, bodyStreams);
+        CursorWindow window = mock(CursorWindow.class);
+        when(window.allocRow()).thenReturn(true, true, false);
+        when(window.putLong(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putString(anyString(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putNull(anyInt(), anyInt())).thenReturn(true);
+
+        cursor.fillWindow(1, window);
+
+        verify(window).putString("two", 1, 1);
+        verify(window).putNull(1, 2);
+        verify(window).putNull(2, 1);
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(window).putString(token.capture(), eq(2), eq(2));
+        assertThat(bodyStreams.get(token.getValue())).isEqualTo("three");
+    }
+
+    @Test
+    public void addStreamColumnWhenStreamingIsEnabled() {
+        LazyBodyCursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+
+        cursor.streamBodiesLargerThan(3, new BodyStreams());
+
+        assertThat(cursor.getColumnNames()).containsExactly(STREAM_COLUMNS);
+    }
+
+    @Test
+    public void encodeStreamedBodiesAgainEachTimeTheyAreFetched() {
+        BodyStreams bodyStreams = new BodyStreams();
+        LazyBodyCursor cursor = new LazyBodyCursor(COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+        cursor.streamBodiesLargerThan(3, bodyStreams);
+        CursorWindow window = mock(CursorWindow.class);
+        when(window.allocRow()).thenReturn(true, false);
+        when(window.putLong(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putString(anyString(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putNull(anyInt(), anyInt())).thenReturn(true);
+        cursor.fillWindow(2, window);
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(window).putString(token.capture(), eq(2), eq(2));
+
+        assertThat(bodyStreams.get(token.getValue())).isEqualTo("three");
+        assertThat(bodyStreams.get(token.getValue())).isEqualTo("three");
+        verify(jsonConverter, times(3)).toJson(modelThree);
+    }
+
+    @Test
+    public void readLargeBodiesInProcessWithoutStreaming() {
+        BodyStreams bodyStreams = new BodyStreams();
+        LazyBodyCursor cursor = new LazyBodyCursor(STREAM_COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+        cursor.streamBodiesLargerThan(3, bodyStreams);
+
+        cursor.moveToPosition(2);
+
+        assertThat(cursor.getString(1)).isEqualTo("three");
+        assertThat(cursor.isNull(2)).isTrue();
+        assertThat(bodyStreams.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void releaseStreamedBodiesOnClose() {
+        BodyStreams bodyStreams = new BodyStreams();
+        LazyBodyCursor cursor = new LazyBodyCursor(STREAM_COLUMNS, models, LazyBodyCursor.json(jsonConverter));
+        cursor.streamBodiesLargerThan(0, bodyStreams);
+        CursorWindow window = mock(CursorWindow.class);
+        when(window.allocRow()).thenReturn(true);
+        when(window.putLong(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putString(anyString(), anyInt(), anyInt())).thenReturn(true);
+        when(window.putNull(anyInt(), anyInt())).thenReturn(true);
+        cursor.fillWindow(0, window);
+        cursor.fillWindow(0, window);
+
+        assertThat(bodyStreams.size()).isEqualTo(3);
+
+        cursor.close();
+
+        assertThat(bodyStreams.size()).isEqualTo(0);
+    }
+}
@@ -4,12 +4,18 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.net.Uri;
 
+import com.amplify.hiccup.shared.JsonConverter;
+import com.amplify.hiccup.shared.JsonPatch;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -94,6 +100,91 @@ public class ResourceControllerTest {
         verify(resourceControllerSpy).handleDelete(Uri.parse("/any/path/will/do"));
     }
 
+    @Test
+    public void applyJsonPatchToResourceAndInvokeSubclassPatchHandler() {
+        Object model = new Object();
+        Object patchedModel = new Object();
+        JsonConverter jsonConverter = mock(JsonConverter.class);
+        when(jsonConverter.toJson(model)).thenReturn("{\"title\":\"Hello\"}");
+        when(jsonConverter.fromJson("{\"title\":\"Goodbye\"}", Object.class)).thenReturn(patchedModel);
+        PatchingResourceController patchingController = spy(new PatchingResourceController(contentAdapter, jsonConverter, model));
+        ContentValues[] patch = new JsonPatch.Builder().replace("/title", "Goodbye").build();
+
+        patchingController.patch(Uri.parse("/posts/1"), patch);
+
+        verify(patchingController).handlePatch(Uri.parse("/posts/1"), patchedModel);
+        verify(patchingController).handlePut(Uri.parse("/posts/1"), patchedModel);
+    }
+
+    @Test
+    public void patchNothingWhenResourceDoesNotExist() {
+        PatchingResourceController patchingController = new PatchingResourceController(
+                contentAdapter, mock(JsonConverter.class), null);
+
+        int count = patchingController.patch(Uri.parse("/posts/1"), new JsonPatch.Builder().remove("/title").build());
+
+        assertThat(count).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwIllegalStateExceptionForPatchWithoutJsonConverter() {
+        new PatchingResourceController(contentAdapter, null, new Object())
+                .patch(Uri.parse("/posts/1"), new JsonPatch.Builder().remove("/title").build());
+    }
+
+    @Test
+    public void convertAllValuesAndInvokeSubclassHandlerOnceOnPostAll() {
+        ContentValues first = new ContentValues();
+        first.put("n", 1);
+        ContentValues second = new ContentValues();
+        second.put("n", 2);
+        Object firstModel = new Object();
+        Object secondModel = new Object();
+        when(contentAdapter.toModel(first, Object.class)).thenReturn(firstModel);
+        when(contentAdapter.toModel(second, Object.class)).thenReturn(secondModel);
+        ResourceController resourceControllerSpy = spy(resourceController);
+
+        resourceControllerSpy.postAll(Uri.parse("/posts"), new ContentValues[]{first, second});
+
+        verify(resourceControllerSpy).handlePostAll(Uri.parse("/posts"), Arrays.asList(firstModel, secondModel));
+    }
+
+    @Test
+    public void postEachModelByDefaultOnPostAll() {
+        int count = resourceController.postAll(Uri.parse("/posts"), new ContentValues[]{new ContentValues(), new ContentValues()});
+
+        assertThat(count).isEqualTo(2);
+    }
+
+    private static class PatchingResourceController extends ResourceController<Object> {
+        private final Object model;
+
+        PatchingResourceController(ContentAdapter contentAdapter, JsonConverter jsonConverter, Object model) {
+            super(contentAdapter, Object.class, jsonConverter);
+            this.model = model;
+        }
+
+        @Override
+        protected Iterable<Object> handleGet(Uri uri) {
+            return model == null ? Collections.emptyList() : Collections.singletonList(model);
+        }
+
+        @Override
+        protected Uri handlePost(Uri uri, Object model) {
+            return POST_RESPONSE;
+        }
+
+        @Override
+        protected int handlePut(Uri uri, Object model) {
+            return 1;
+        }
+
+        @Override
+        protected int handleDelete(Uri uri) {
+            return 0;
+        }
+    }
+
     private static class ResourceControllerImpl extends ResourceController<Object> {
 
         public ResourceControllerImpl(ContentAdapter contentAdapter, Class<Object> modelClass) {
@@ -0,0 +1,180 @@
+package com.amplify.hiccup.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ResourceLocksTest {
+
+    private static final Uri POST_1 = Uri.parse("content://com.authority/posts/1");
+    private static final Uri POST_2 = Uri.parse("content://com.authority/posts/2");
+
+    @Mock
+    private Controller controller;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+    }
+
+    @Test
+    public void runGetsOfTheSameResourceConcurrently() throws Exception {
+        final CountDownLatch bothReading = new CountDownLatch(2);
+        final Controller locked = new ResourceLocks(ResourceLocks.Granularity.RESOURCE).intercept("posts/#",
+                new ForwardingController(controller) {
+                    @Override
+                    public Cursor get(Uri uri) {
+                        bothReading.countDown();
+                        await(bothReading);
+                        return null;
+                    }
+                });
+
+        Thread reader = startThread(new Runnable() {
+            @Override
+            public void run() {
+                locked.get(POST_1);
+            }
+        });
+        locked.get(POST_1);
+        reader.join(1000);
+
+        assertThat(bothReading.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void runWritesOfTheSameResourceAlone() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Controller locked = new ResourceLocks(ResourceLocks.Granularity.RESOURCE).intercept("posts/#",
+                new ForwardingController(controller) {
+                    @Override
+                    public int put(Uri uri, ContentValues contentValues) {
+                        writing.countDown();
+                        await(release);
+                        return 1;
+                    }
+                });
+        Thread writer = startThread(new Runnable() {
+            @Override
+            public void run() {
+                locked.put(POST_1, new ContentValues());
+            }
+        });
+        await(writing);
+
+        Thread reader = startThread(new Runnable() {
+            @Override
+            public void run() {
+                locked.get(POST_1);
+            }
+        });
+        reader.join(200);
+        assertThat(reader.isAlive()).isTrue();
+
+        release.countDown();
+        reader.join(1000);
+        writer.join(1000);
+        assertThat(reader.isAlive()).isFalse();
+    }
+
+    @Test
+    public void lockResourcesSeparately() {
+        ResourceLocks resourceLocks = new ResourceLocks(ResourceLocks.Granularity.RESOURCE, 1);
+
+        ResourceLocks.KeyLock post1 = resourceLocks.acquire("posts/#", POST_1);
+        assertThat(post1).isNotSameAs(resourceLocks.acquire("posts/#", POST_2));
+        assertThat(post1).isSameAs(resourceLocks.acquire("posts/#", Uri.parse("content://com.authority/posts/1?fields=title")));
+    }
+
+    @Test
+    public void lockAllResourcesOfARouteTogether() {
+        ResourceLocks resourceLocks = new ResourceLocks(ResourceLocks.Granularity.ROUTE, 1024);
+
+        assertThat(resourceLocks.acquire("posts/#", POST_1)).isSameAs(resourceLocks.acquire("posts/#", POST_2));
+    }
+
+    @Test
+    public void dropLocksOfKeysOnceReleased() {
+        ResourceLocks resourceLocks = new ResourceLocks(ResourceLocks.Granularity.RESOURCE);
+        ResourceLocks.KeyLock first = resourceLocks.acquire("posts/#", POST_1);
+        ResourceLocks.KeyLock second = resourceLocks.acquire("posts/#", POST_1);
+
+        first.release();
+        assertThat(resourceLocks.acquire("posts/#", POST_1)).isSameAs(second);
+
+        second.release();
+        second.release();
+        assertThat(resourceLocks.acquire("posts/#", POST_1)).isNotSameAs(second);
+    }
+
+    @Test
+    public void writeOtherResourcesWhileReading() {
+        ResourceLocks resourceLocks = new ResourceLocks(ResourceLocks.Granularity.RESOURCE, 1);
+        final Controller[] locked = new Controller[1];
+        final int[] deleted = new int[1];
+        locked[0] = resourceLocks.intercept("posts/#", new ForwardingController(controller) {
+            @Override
+            public Cursor get(Uri uri) {
+                deleted[0] = locked[0].delete(POST_2);
+                return null;
+            }
+
+            @Override
+            public int delete(Uri uri) {
+                return 1;
+            }
+        });
+
+        locked[0].get(POST_1);
+
+        assertThat(deleted[0]).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failToWriteWhileReadingTheSameResource() {
+        final ResourceLocks resourceLocks = new ResourceLocks(ResourceLocks.Granularity.RESOURCE);
+        final Controller[] locked = new Controller[1];
+        locked[0] = resourceLocks.intercept("posts/#", new ForwardingController(controller) {
+            @Override
+            public Cursor get(Uri uri) {
+                locked[0].delete(uri);
+                return null;
+            }
+        });
+
+        locked[0].get(POST_1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectNonPositiveStripes() {
+        new ResourceLocks(ResourceLocks.Granularity.ROUTE, 0);
+    }
+
+    private static Thread startThread(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.start();
+        return thread;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.amplify.hiccup.service;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class ResponseCacheTest {
+
+    private static final Uri CATEGORIES = Uri.parse("content://com.authority/categories");
+    private static final Uri TOYS = Uri.parse("content://com.authority/categories/1");
+    private static final Uri TOYS_ITEMS = Uri.parse("content://com.authority/categories/1/items");
+    private static final Uri POSTS = Uri.parse("content://com.authority/posts");
+
+    @Mock
+    private Controller controller;
+
+    private long nanoTime;
+    private ResponseCache responseCache;
+    private Controller cached;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        responseCache = new ResponseCache(2, 1000) {
+            @Override
+            long nanoTime() {
+                return nanoTime;
+            }
+        };
+        cached = responseCache.intercept("categories", controller);
+        when(controller.get(CATEGORIES)).thenReturn(newCursor(), newCursor());
+        when(controller.get(TOYS)).thenReturn(newCursor(), newCursor());
+        when(controller.get(POSTS)).thenReturn(newCursor(), newCursor());
+    }
+
+    @Test
+    public void serveCachedRowsWithoutCallingController() {
+        Cursor first = cached.get(CATEGORIES);
+        Cursor second = cached.get(CATEGORIES);
+
+        verify(controller, times(1)).get(CATEGORIES);
+        assertThat(second.getColumnNames()).isEqualTo(first.getColumnNames());
+        assertThat(second.getCount()).isEqualTo(2);
+        second.moveToPosition(1);
+        assertThat(second.getLong(0)).isEqualTo(2L);
+        assertThat(second.getString(1)).isEqualTo("books");
+    }
+
+    @Test
+    public void keepEncodedBodiesOfLazyCursors() {
+        when(controller.get(TOYS)).thenReturn(new LazyBodyCursor(HttpContentAdapter.COLUMNS,
+                Arrays.asList("{\"name\":\"toys\"}"), LazyBodyCursor.encoded()));
+
+        cached.get(TOYS);
+        Cursor cursor = cached.get(TOYS);
+
+        assertThat(cursor).isInstanceOf(LazyBodyCursor.class);
+        cursor.moveToFirst();
+        assertThat(cursor.getString(1)).isEqualTo("{\"name\":\"toys\"}");
+    }
+
+    @Test
+    public void expireResponsesAfterTimeToLive() {
+        cached.get(CATEGORIES);
+        nanoTime += 1000 * 1000000L;
+
+        cached.get(CATEGORIES);
+
+        verify(controller, times(2)).get(CATEGORIES);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedResponses() {
+        cached.get(CATEGORIES);
+        cached.get(TOYS);
+        cached.get(CATEGORIES);
+
+        cached.get(POSTS);
+        cached.get(CATEGORIES);
+        cached.get(TOYS);
+
+        assertThat(responseCache.size()).isEqualTo(2);
+        verify(controller, times(1)).get(CATEGORIES);
+        verify(controller, times(2)).get(TOYS);
+    }
+
+    @Test
+    public void invalidateResponsesAtAboveAndBelowUri() {
+        cached.get(CATEGORIES);
+        cached.get(POSTS);
+
+        responseCache.invalidate(TOYS_ITEMS);
+        cached.get(CATEGORIES);
+        cached.get(POSTS);
+
+        verify(controller, times(2)).get(CATEGORIES);
+        verify(controller, times(1)).get(POSTS);
+    }
+
+    @Test
+    public void doNotCacheResponsesReadBeforeAnInvalidation() {
+        Cursor cursor = newCursor();
+        Controller invalidating = responseCache.intercept("categories", new ForwardingController(controller) {
+            @Override
+            public Cursor get(Uri uri) {
+                Cursor cursor = super.get(uri);
+                responseCache.invalidate(uri);
+                return cursor;
+            }
+        });
+        when(controller.get(TOYS)).thenReturn(cursor);
+
+        Cursor result = invalidating.get(TOYS);
+
+        assertThat(result).isSameAs(cursor);
+        assertThat(responseCache.size()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectNonPositiveMaxEntries() {
+        new ResponseCache(0, 1000);
+    }
+
+    private static Cursor newCursor() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"_id", "name"});
+        cursor.addRow(new Object[]{1L, "toys"});
+        cursor.addRow(new Object[]{2L, "books"});
+        return cursor;
+    }
+}
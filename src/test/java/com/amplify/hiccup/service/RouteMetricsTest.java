@@ -0,0 +1,69 @@
+package com.amplify.hiccup.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteMetricsTest {
+
+    private RouteMetrics routeMetrics;
+
+    @Before
+    public void setUp() {
+        routeMetrics = new RouteMetrics("posts/#");
+    }
+
+    @Test
+    public void snapshotIsEmptyWhenNothingWasRecorded() {
+        assertThat(routeMetrics.snapshot()).isEmpty();
+    }
+
+    @Test
+    public void recordCallsAndErrorsPerVerb() {
+        routeMetrics.record(Verb.GET, 1000L, false);
+        routeMetrics.record(Verb.GET, 3000L, true);
+        routeMetrics.record(Verb.DELETE, 2000L, false);
+
+        List<MetricsSnapshot> snapshots = routeMetrics.snapshot();
+
+        assertThat(snapshots).hasSize(2);
+        MetricsSnapshot get = snapshots.get(0);
+        assertThat(get.getPath()).isEqualTo("posts/#");
+        assertThat(get.getVerb()).isEqualTo(Verb.GET);
+        assertThat(get.getCallCount()).isEqualTo(2L);
+        assertThat(get.getErrorCount()).isEqualTo(1L);
+        assertThat(get.getMeanLatencyNanos()).isEqualTo(2000L);
+        assertThat(snapshots.get(1).getVerb()).isEqualTo(Verb.DELETE);
+    }
+
+    @Test
+    public void countLatenciesIntoBuckets() {
+        routeMetrics.record(Verb.PUT, 10000L, false);
+        routeMetrics.record(Verb.PUT, 2000000L, false);
+        routeMetrics.record(Verb.PUT, 5000000000L, false);
+
+        long[] buckets = routeMetrics.snapshot().get(0).getBucketCounts();
+
+        long[] bounds = MetricsSnapshot.getBucketUpperBoundsNanos();
+        assertThat(buckets).hasSize(bounds.length + 1);
+        assertThat(buckets[0]).isEqualTo(1L);
+        assertThat(buckets[5]).isEqualTo(1L);
+        assertThat(buckets[bounds.length]).isEqualTo(1L);
+    }
+
+    @Test
+    public void estimatePercentileFromBucketUpperBound() {
+        for (int i = 0; i < 99; i++) {
+            routeMetrics.record(Verb.GET, 10000L, false);
+        }
+        routeMetrics.record(Verb.GET, 2000000L, false);
+
+        MetricsSnapshot snapshot = routeMetrics.snapshot().get(0);
+
+        assertThat(snapshot.getLatencyPercentileNanos(50)).isEqualTo(50000L);
+        assertThat(snapshot.getLatencyPercentileNanos(100)).isEqualTo(2500000L);
+    }
+}
@@ -0,0 +1,139 @@
+package com.amplify.hiccup.service;
+
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class RouteTrieTest {
+
+    private RouteTrie routeTrie;
+
+    @Mock
+    private Controller controller;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        routeTrie = new RouteTrie();
+    }
+
+    @Test
+    public void matchLiteralRoute() {
+        HiccupService.ControllerInfo expected = add("posts");
+
+        RouteTrie.Match match = routeTrie.match(uri("posts"));
+
+        assertThat(match.controllerInfo).isEqualTo(expected);
+    }
+
+    @Test
+    public void returnNullWhenNothingMatches() {
+        add("posts");
+
+        assertThat(routeTrie.match(uri("comments"))).isNull();
+        assertThat(routeTrie.match(uri("posts/1"))).isNull();
+    }
+
+    @Test
+    public void numberWildcardOnlyMatchesDigits() {
+        add("posts/#");
+
+        assertThat(routeTrie.match(uri("posts/123"))).isNotNull();
+        assertThat(routeTrie.match(uri("posts/abc"))).isNull();
+    }
+
+    @Test
+    public void literalTakesPrecedenceOverWildcards() {
+        add("posts/*");
+        add("posts/#");
+        HiccupService.ControllerInfo expected = add("posts/recent");
+
+        RouteTrie.Match match = routeTrie.match(uri("posts/recent"));
+
+        assertThat(match.controllerInfo).isEqualTo(expected);
+    }
+
+    @Test
+    public void backtrackWhenMoreSpecificBranchDoesNotMatch() {
+        add("posts/recent");
+        HiccupService.ControllerInfo expected = add("posts/*/comments");
+
+        RouteTrie.Match match = routeTrie.match(uri("posts/recent/comments"));
+
+        assertThat(match.controllerInfo).isEqualTo(expected);
+    }
+
+    @Test
+    public void extractNamedNumberParameter() {
+        add("posts/{postId:#}/comments");
+
+        RouteTrie.Match match = routeTrie.match(uri("posts/42/comments"));
+
+        assertThat(match.parameters.getLong("postId")).isEqualTo(42L);
+    }
+
+    @Test
+    public void extractNamedTextParameter() {
+        add("categories/{slug}/posts/{postId:#}");
+
+        RouteTrie.Match match = routeTrie.match(uri("categories/toys/posts/7"));
+
+        assertThat(match.parameters.getString("slug")).isEqualTo("toys");
+        assertThat(match.parameters.getLong("postId")).isEqualTo(7L);
+    }
+
+    @Test
+    public void matchNumbersTooLargeForLongAsNumbers() {
+        HiccupService.ControllerInfo expected = add("posts/{key:#}");
+        add("posts/{slug:*}");
+
+        RouteTrie.Match match = routeTrie.match(uri("posts/99999999999999999999"));
+
+        assertThat(match.controllerInfo).isEqualTo(expected);
+        assertThat(match.parameters.getString("key")).isEqualTo("99999999999999999999");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwIllegalArgumentExceptionForNumbersTooLargeForLong() {
+        add("posts/{key:#}");
+
+        routeTrie.match(uri("posts/99999999999999999999")).parameters.getLong("key");
+    }
+
+    @Test
+    public void keepRawSegmentOfNumberParameters() {
+        add("posts/{postId:#}");
+
+        RouteTrie.Match match = routeTrie.match(uri("posts/007"));
+
+        assertThat(match.parameters.getString("postId")).isEqualTo("007");
+        assertThat(match.parameters.getLong("postId")).isEqualTo(7L);
+    }
+
+    @Test
+    public void decodeTextParameters() {
+        add("files/{name}");
+
+        RouteTrie.Match match = routeTrie.match(uri("files/a%2Fb%20c"));
+
+        assertThat(match.parameters.getString("name")).isEqualTo("a/b c");
+    }
+
+    private HiccupService.ControllerInfo add(String path) {
+        HiccupService.ControllerInfo controllerInfo = new HiccupService.ControllerInfo(path, controller, new Interceptor[0]);
+        routeTrie.add(path, controllerInfo);
+        return controllerInfo;
+    }
+
+    private static Uri uri(String path) {
+        return Uri.parse("content://com.authority.name/" + path);
+    }
+}
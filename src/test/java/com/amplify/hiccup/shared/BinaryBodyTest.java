@@ -0,0 +1,81 @@
+package com.amplify.hiccup.shared;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryBodyTest {
+
+    @Test
+    public void roundTripModel() {
+        Reading reading = new Reading();
+        reading.id = 123456789L;
+        reading.delta = -42;
+        reading.value = 3.25d;
+        reading.label = "sensor é";
+        reading.raw = new byte[]{7, 8, 9};
+        reading.valid = true;
+
+        Reading actual = BinaryBody.decode(BinaryBody.encode(reading), Reading.class);
+
+        assertThat(actual.id).isEqualTo(123456789L);
+        assertThat(actual.delta).isEqualTo(-42);
+        assertThat(actual.value).isEqualTo(3.25d);
+        assertThat(actual.label).isEqualTo("sensor é");
+        assertThat(actual.raw).isEqualTo(new byte[]{7, 8, 9});
+        assertThat(actual.valid).isTrue();
+    }
+
+    @Test
+    public void roundTripNulls() {
+        Reading actual = BinaryBody.decode(BinaryBody.encode(new Reading()), Reading.class);
+
+        assertThat(actual.label).isNull();
+        assertThat(actual.raw).isNull();
+    }
+
+    @Test
+    public void encodeSmallNumbersCompactly() {
+        Counter counter = new Counter();
+        counter.count = 5;
+
+        byte[] body = BinaryBody.encode(counter);
+
+        // magic, version, 4 byte schema id, column count, tag, value
+        assertThat(body).hasSize(9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectBodyOfDifferentSchema() {
+        BinaryBody.decode(BinaryBody.encode(new Counter()), Reading.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectBodiesThatAreNotBinaryBodies() {
+        BinaryBody.decode("{\"count\":5}".getBytes(), Counter.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectTruncatedBodies() {
+        Reading reading = new Reading();
+        reading.label = "truncated";
+        byte[] body = BinaryBody.encode(reading);
+        byte[] truncated = new byte[body.length - 3];
+        System.arraycopy(body, 0, truncated, 0, truncated.length);
+
+        BinaryBody.decode(truncated, Reading.class);
+    }
+
+    static class Reading {
+        long id;
+        int delta;
+        double value;
+        String label;
+        byte[] raw;
+        boolean valid;
+    }
+
+    static class Counter {
+        int count;
+    }
+}
@@ -0,0 +1,34 @@
+package com.amplify.hiccup.shared;
+
+import android.net.Uri;
+import android.os.Bundle;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ChangeFeedTest {
+
+    @Test
+    public void roundTripPagesThroughBundles() {
+        Change created = new Change(Uri.parse("content://com.authority/posts/1"), Change.Operation.CREATE, 7);
+        Change deleted = new Change(Uri.parse("content://com.authority/posts/2"), Change.Operation.DELETE, 8);
+
+        ChangeFeed.Page page = ChangeFeed.fromBundle(ChangeFeed.toBundle(
+                new ChangeFeed.Page(Arrays.asList(created, deleted), 9, true)));
+
+        assertThat(page.getChanges()).containsExactly(created, deleted);
+        assertThat(page.getVersion()).isEqualTo(9);
+        assertThat(page.isComplete()).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwIllegalArgumentExceptionForBundlesThatAreNotPages() {
+        ChangeFeed.fromBundle(new Bundle());
+    }
+}
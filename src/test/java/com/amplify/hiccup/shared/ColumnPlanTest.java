@@ -0,0 +1,120 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColumnPlanTest {
+
+    @Test
+    public void cachePlanPerClass() {
+        assertThat(ColumnPlan.of(Post.class)).isSameAs(ColumnPlan.of(Post.class));
+    }
+
+    @Test
+    public void mapFieldsToColumnsSkippingStaticAndTransientFields() {
+        ColumnPlan plan = ColumnPlan.of(Post.class);
+
+        assertThat(plan.getColumnNames()).containsOnly("id", "title", "rating", "published", "status", "thumbnail");
+    }
+
+    @Test
+    public void writeRowWithCursorFriendlyTypes() {
+        Post post = Post.sample();
+        ColumnPlan plan = ColumnPlan.of(Post.class);
+        Object[] row = new Object[plan.size() + 1];
+
+        plan.writeRow(post, row, 1);
+
+        assertThat(row[0]).isNull();
+        assertThat(row).contains(12L, "Hello", 4.5d, 1L, "DRAFT");
+    }
+
+    @Test
+    public void roundTripThroughContentValues() {
+        Post post = Post.sample();
+        ColumnPlan plan = ColumnPlan.of(Post.class);
+
+        ContentValues contentValues = plan.toValues(post);
+        Post actual = (Post) plan.fromValues(contentValues);
+
+        assertThat(contentValues.getAsLong("id")).isEqualTo(12L);
+        assertThat(actual.id).isEqualTo(12);
+        assertThat(actual.title).isEqualTo("Hello");
+        assertThat(actual.rating).isEqualTo(4.5d);
+        assertThat(actual.published).isTrue();
+        assertThat(actual.status).isEqualTo(Status.DRAFT);
+        assertThat(actual.thumbnail).isEqualTo(new byte[]{1, 2});
+    }
+
+    @Test
+    public void leavePrimitivesAtDefaultForNullValues() {
+        ContentValues contentValues = new ContentValues();
+        contentValues.putNull("id");
+
+        Post actual = (Post) ColumnPlan.of(Post.class).fromValues(contentValues);
+
+        assertThat(actual.id).isEqualTo(0);
+    }
+
+    @Test
+    public void resetPrimitivesOfReusedModelForNullValues() {
+        ColumnPlan plan = ColumnPlan.of(Post.class);
+        MatrixCursor cursor = new MatrixCursor(new String[]{"id", "title", "published"});
+        cursor.addRow(new Object[]{12L, "Hello", 1L});
+        cursor.addRow(new Object[]{null, null, null});
+        int[] indexes = plan.indexesIn(cursor);
+        Post post = new Post();
+
+        cursor.moveToFirst();
+        plan.readCursor(cursor, indexes, post);
+        cursor.moveToNext();
+        plan.readCursor(cursor, indexes, post);
+
+        assertThat(post.id).isEqualTo(0);
+        assertThat(post.title).isNull();
+        assertThat(post.published).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectNestedModels() {
+        ColumnPlan.of(Nested.class);
+    }
+
+    enum Status {
+        DRAFT
+    }
+
+    static class Post {
+        static final String IGNORED_CONSTANT = "ignored";
+
+        int id;
+        String title;
+        Double rating;
+        boolean published;
+        Status status;
+        byte[] thumbnail;
+        transient String ignoredCache;
+
+        static Post sample() {
+            Post post = new Post();
+            post.id = 12;
+            post.title = "Hello";
+            post.rating = 4.5d;
+            post.published = true;
+            post.status = Status.DRAFT;
+            post.thumbnail = new byte[]{1, 2};
+            return post;
+        }
+    }
+
+    static class Nested {
+        Post post;
+    }
+}
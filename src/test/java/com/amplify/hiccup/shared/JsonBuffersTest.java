@@ -0,0 +1,123 @@
+package com.amplify.hiccup.shared;
+
+import android.database.MatrixCursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(RobolectricTestRunner.class)
+public class JsonBuffersTest {
+
+    @Mock
+    private JsonConverter jsonConverter;
+
+    private EchoJsonConverter streamingJsonConverter;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        streamingJsonConverter = new EchoJsonConverter();
+    }
+
+    @Test
+    public void callPlainConverterDirectly() {
+        Object model = new Object();
+        when(jsonConverter.toJson(model)).thenReturn("{}");
+
+        assertThat(JsonBuffers.toJson(jsonConverter, model)).isEqualTo("{}");
+    }
+
+    @Test
+    public void writeThroughStreamingConverter() {
+        assertThat(JsonBuffers.toJson(streamingJsonConverter, "first")).isEqualTo("first");
+        assertThat(JsonBuffers.toJson(streamingJsonConverter, "second")).isEqualTo("second");
+        assertThat(streamingJsonConverter.streamedWrites).isEqualTo(2);
+    }
+
+    @Test
+    public void doNotRetainOversizedWriteBuffers() {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i <= JsonBuffers.MAX_RETAINED_CHARS; i++) {
+            large.append('x');
+        }
+
+        assertThat(JsonBuffers.toJson(streamingJsonConverter, large)).hasSize(JsonBuffers.MAX_RETAINED_CHARS + 1);
+        assertThat(JsonBuffers.toJson(streamingJsonConverter, "small")).isEqualTo("small");
+    }
+
+    @Test
+    public void readCursorBodiesThroughStreamingConverter() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"body"});
+        cursor.addRow(new Object[]{"a longer first body"});
+        cursor.addRow(new Object[]{"short"});
+
+        cursor.moveToFirst();
+        String first = JsonBuffers.fromJson(streamingJsonConverter, cursor, 0, String.class);
+        cursor.moveToNext();
+        String second = JsonBuffers.fromJson(streamingJsonConverter, cursor, 0, String.class);
+
+        assertThat(first).isEqualTo("a longer first body");
+        assertThat(second).isEqualTo("short");
+        assertThat(streamingJsonConverter.streamedReads).isEqualTo(2);
+    }
+
+    @Test
+    public void readNullCursorBodyAsNull() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"body"});
+        cursor.addRow(new Object[]{null});
+
+        cursor.moveToFirst();
+
+        assertThat(JsonBuffers.fromJson(streamingJsonConverter, cursor, 0, String.class)).isNull();
+    }
+
+    /**
+     * Treats the model's toString() as its JSON.
+     */
+    private static class EchoJsonConverter implements StreamingJsonConverter {
+        int streamedWrites;
+        int streamedReads;
+
+        @Override
+        public void toJson(Object object, Appendable appendable) throws IOException {
+            streamedWrites++;
+            appendable.append(object.toString());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T fromJson(Reader reader, Class<T> aClass) {
+            streamedReads++;
+            StringBuilder json = new StringBuilder();
+            try {
+                for (int c = reader.read(); c != -1; c = reader.read()) {
+                    json.append((char) c);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return (T) json.toString();
+        }
+
+        @Override
+        public String toJson(Object object) {
+            return object.toString();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T fromJson(String json, Class<T> aClass) {
+            return (T) json;
+        }
+    }
+}
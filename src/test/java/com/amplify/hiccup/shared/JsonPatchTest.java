@@ -0,0 +1,114 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class JsonPatchTest {
+
+    private static final String DOCUMENT = "{\"title\":\"Hello\",\"tags\":[\"a\",\"b\"],\"author\":{\"name\":\"Kim\"}}";
+
+    @Test
+    public void addMembersAndArrayElements() {
+        JsonPatch patch = JsonPatch.parse(new JsonPatch.Builder()
+                .add("/draft", true)
+                .add("/tags/1", "c")
+                .add("/tags/-", "d")
+                .build());
+
+        assertThat(patch.apply(DOCUMENT))
+                .isEqualTo("{\"title\":\"Hello\",\"tags\":[\"a\",\"c\",\"b\",\"d\"],\"author\":{\"name\":\"Kim\"},\"draft\":true}");
+    }
+
+    @Test
+    public void removeAndReplaceValues() {
+        JsonPatch patch = JsonPatch.parse(new JsonPatch.Builder()
+                .remove("/tags/0")
+                .replace("/author/name", "Lee")
+                .build());
+
+        assertThat(patch.apply(DOCUMENT))
+                .isEqualTo("{\"title\":\"Hello\",\"tags\":[\"b\"],\"author\":{\"name\":\"Lee\"}}");
+    }
+
+    @Test
+    public void moveAndCopyValues() {
+        JsonPatch patch = JsonPatch.parse(new JsonPatch.Builder()
+                .copy("/author/name", "/owner")
+                .move("/title", "/heading")
+                .build());
+
+        assertThat(patch.apply(DOCUMENT))
+                .isEqualTo("{\"tags\":[\"a\",\"b\"],\"author\":{\"name\":\"Kim\"},\"owner\":\"Kim\",\"heading\":\"Hello\"}");
+    }
+
+    @Test
+    public void passTestsOfEqualValues() {
+        JsonPatch patch = JsonPatch.parse(new JsonPatch.Builder()
+                .test("/tags", Arrays.asList("a", "b"))
+                .test("/count", 1)
+                .build());
+
+        assertThat(patch.apply("{\"tags\":[\"a\",\"b\"],\"count\":1.0}")).isNotNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failPatchWhenTestFails() {
+        JsonPatch.parse(new JsonPatch.Builder().test("/title", "Goodbye").build()).apply(DOCUMENT);
+    }
+
+    @Test
+    public void unescapePointerTokens() {
+        JsonPatch patch = JsonPatch.parse(new JsonPatch.Builder().replace("/a~1b/c~0d", 2).build());
+
+        assertThat(patch.apply("{\"a/b\":{\"c~d\":1}}")).isEqualTo("{\"a/b\":{\"c~d\":2}}");
+    }
+
+    @Test
+    public void replaceWholeDocument() {
+        JsonPatch patch = JsonPatch.parse(new JsonPatch.Builder().replace("", "text").build());
+
+        assertThat(patch.apply(DOCUMENT)).isEqualTo("\"text\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectReplacingMissingMember() {
+        JsonPatch.parse(new JsonPatch.Builder().replace("/missing", 1).build()).apply(DOCUMENT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectArrayIndexOutOfBounds() {
+        JsonPatch.parse(new JsonPatch.Builder().add("/tags/3", "x").build()).apply(DOCUMENT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectMovingValueIntoItself() {
+        JsonPatch.parse(new JsonPatch.Builder().move("/author", "/author/name").build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnknownOperations() {
+        ContentValues operation = new ContentValues();
+        operation.put(JsonPatch.OP, "merge");
+        operation.put(JsonPatch.PATH, "/title");
+
+        JsonPatch.parse(new ContentValues[]{operation});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectInvalidValueJson() {
+        ContentValues operation = new ContentValues();
+        operation.put(JsonPatch.OP, JsonPatch.OP_ADD);
+        operation.put(JsonPatch.PATH, "/title");
+        operation.put(JsonPatch.VALUE, "{not json");
+
+        JsonPatch.parse(new ContentValues[]{operation});
+    }
+}
@@ -0,0 +1,124 @@
+package com.amplify.hiccup.shared;
+
+import android.content.ContentValues;
+import android.net.Uri;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class StreamedBodyTest {
+
+    @Test
+    public void roundTripValuesWithTheirTypes() throws IOException {
+        ContentValues values = new ContentValues();
+        values.put("text", "attachment é");
+        values.put("long", 5L);
+        values.put("int", 6);
+        values.put("double", 1.5d);
+        values.put("flag", true);
+        values.put("blob", new byte[]{1, 2, 3});
+        values.putNull("nothing");
+
+        ContentValues[] actual = readValues(writeValues(values));
+
+        assertThat(actual).hasSize(1);
+        assertThat(actual[0].get("text")).isEqualTo("attachment é");
+        assertThat(actual[0].get("long")).isEqualTo(5L);
+        assertThat(actual[0].get("int")).isEqualTo(6);
+        assertThat(actual[0].get("double")).isEqualTo(1.5d);
+        assertThat(actual[0].get("flag")).isEqualTo(true);
+        assertThat(actual[0].getAsByteArray("blob")).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(actual[0].containsKey("nothing")).isTrue();
+        assertThat(actual[0].get("nothing")).isNull();
+    }
+
+    @Test
+    public void roundTripSeveralValues() throws IOException {
+        ContentValues first = new ContentValues();
+        first.put("op", "add");
+        ContentValues second = new ContentValues();
+        second.put("op", "remove");
+
+        ContentValues[] actual = readValues(writeValues(first, second));
+
+        assertThat(actual).hasSize(2);
+        assertThat(actual[1].getAsString("op")).isEqualTo("remove");
+    }
+
+    @Test(expected = IOException.class)
+    public void failOnTruncatedValues() throws IOException {
+        ContentValues values = new ContentValues();
+        values.put("text", "attachment");
+        byte[] bytes = writeValues(values);
+
+        readValues(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test
+    public void streamTextLargerThanOneChunk() throws IOException {
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'é');
+        String text = new String(chars);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        StreamedBody.writeBody(text, outputStream);
+
+        assertThat(StreamedBody.readText(new ByteArrayInputStream(outputStream.toByteArray()))).isEqualTo(text);
+    }
+
+    @Test
+    public void streamBlobLargerThanOneChunk() throws IOException {
+        byte[] blob = new byte[20000];
+        Arrays.fill(blob, (byte) 7);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        StreamedBody.writeBody(blob, outputStream);
+
+        assertThat(StreamedBody.readBlob(new ByteArrayInputStream(outputStream.toByteArray()))).isEqualTo(blob);
+    }
+
+    @Test
+    public void estimateSizeOfValues() {
+        ContentValues values = new ContentValues();
+        values.put("a", "12345");
+        values.put("b", new byte[100]);
+
+        assertThat(StreamedBody.sizeOfValues(values)).isEqualTo(2 + 10 + 2 + 100);
+    }
+
+    @Test
+    public void readTokenBackFromStreamUri() {
+        String token = StreamedBody.newToken(new byte[0], "abc-1");
+
+        Uri uri = StreamedBody.streamUri("com.authority.name", token);
+
+        assertThat(StreamedBody.tokenOf(uri)).isEqualTo(token);
+        assertThat(StreamedBody.isBlobToken(token)).isTrue();
+        assertThat(StreamedBody.isBlobToken(StreamedBody.newToken("", "abc-2"))).isFalse();
+    }
+
+    @Test
+    public void ignoreUrisThatAreNotStreams() {
+        assertThat(StreamedBody.tokenOf(Uri.parse("content://com.authority.name/posts/1"))).isNull();
+        assertThat(StreamedBody.tokenOf(Uri.parse("content://com.authority.name/_hiccup/streams/"))).isNull();
+    }
+
+    private static byte[] writeValues(ContentValues... values) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StreamedBody.writeValues(values, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static ContentValues[] readValues(byte[] bytes) throws IOException {
+        return StreamedBody.readValues(new ByteArrayInputStream(bytes));
+    }
+}